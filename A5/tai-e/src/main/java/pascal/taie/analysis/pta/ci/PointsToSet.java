@@ -35,18 +35,29 @@ import java.util.stream.Stream;
  */
 class PointsToSet implements Iterable<Obj> {
 
-    private final Set<Obj> set = Sets.newHybridSet();
+    /**
+     * The shared immutable empty points-to set.
+     */
+    static final PointsToSet EMPTY = new PointsToSet(Set.of());
+
+    private final Set<Obj> set;
 
     /**
      * Constructs an empty points-to set.
      */
     PointsToSet() {
+        this(Sets.newHybridSet());
+    }
+
+    private PointsToSet(Set<Obj> set) {
+        this.set = set;
     }
 
     /**
      * Constructs a points-to set containing one object.
      */
     PointsToSet(Obj obj) {
+        this();
         addObject(obj);
     }
 
@@ -60,6 +71,36 @@ class PointsToSet implements Iterable<Obj> {
         return set.add(obj);
     }
 
+    /**
+     * Adds all objects in given pts to this set.
+     *
+     * @return true if this points-to set changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addAll(PointsToSet pts) {
+        return set.addAll(pts.set);
+    }
+
+    /**
+     * Adds all objects in given pts to this set, and computes the
+     * difference of pts and this set in the same pass.
+     *
+     * @return the objects that are newly added to this set, or
+     * {@link #EMPTY} if this set does not change.
+     */
+    PointsToSet addAllDiff(PointsToSet pts) {
+        PointsToSet diff = null;
+        for (Obj obj : pts) {
+            if (set.add(obj)) {
+                if (diff == null) {
+                    diff = new PointsToSet();
+                }
+                diff.set.add(obj);
+            }
+        }
+        return diff != null ? diff : EMPTY;
+    }
+
     /**
      * @return true if this points-to set contains the given object, otherwise false.
      */
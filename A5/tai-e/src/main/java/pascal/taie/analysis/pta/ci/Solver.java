@@ -31,6 +31,7 @@ import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.MethodRef;
@@ -54,6 +55,8 @@ class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    private final AnalysisOptions options;
+
     private final HeapModel heapModel;
 
     private DefaultCallGraph callGraph;
@@ -66,7 +69,8 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
+    Solver(AnalysisOptions options, HeapModel heapModel) {
+        this.options = options;
         this.heapModel = heapModel;
     }
 
@@ -82,7 +86,8 @@ class Solver {
      * Initializes pointer analysis.
      */
     private void initialize() {
-        workList = new WorkList();
+        workList = new WorkList(
+                options.getBooleanOrDefault("coalesce-worklist", false));
         pointerFlowGraph = new PointerFlowGraph();
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
@@ -207,6 +212,8 @@ class Solver {
                 }
             }
         }
+        logger.info("Work list: max length {}, {} merged entries",
+                workList.getMaxLength(), workList.getMergeCount());
     }
 
     /**
@@ -214,10 +221,8 @@ class Solver {
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        var delta = new PointsToSet();
-        pointsToSet.getObjects().stream().filter(x -> !pointer.getPointsToSet().contains(x)).forEach(delta::addObject);
+        var delta = pointer.getPointsToSet().addAllDiff(pointsToSet);
         if (!delta.isEmpty()){
-            delta.objects().forEach(x -> pointer.getPointsToSet().addObject(x));
             for (var s: pointerFlowGraph.getSuccsOf(pointer)){
                 workList.addEntry(s, delta);
             }
@@ -22,21 +22,74 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
 import java.util.ArrayDeque;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * In coalescing mode, the work list keeps at most one pending entry
+ * for each pointer, and the points-to sets added for a pending pointer
+ * are merged into its pending entry.
  */
 class WorkList {
 
     private final Queue<Entry> entries = new ArrayDeque<>();
 
+    private final boolean coalescing;
+
+    /**
+     * Pending pointers in coalescing mode, in the order they are added.
+     */
+    private final Queue<Pointer> pointers = new ArrayDeque<>();
+
+    /**
+     * Map from pending pointers to their pending points-to sets.
+     */
+    private final Map<Pointer, PointsToSet> pending = Maps.newMap();
+
+    /**
+     * Pending pointers whose points-to sets are created by this work list,
+     * so that further points-to sets can be merged into them in place.
+     */
+    private final Set<Pointer> owned = Sets.newSet();
+
+    private int maxLength = 0;
+
+    private int mergeCount = 0;
+
+    WorkList(boolean coalescing) {
+        this.coalescing = coalescing;
+    }
+
     /**
      * Adds an entry to the work list.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        if (!coalescing) {
+            entries.add(new Entry(pointer, pointsToSet));
+        } else {
+            PointsToSet pts = pending.get(pointer);
+            if (pts == null) {
+                pointers.add(pointer);
+                pending.put(pointer, pointsToSet);
+            } else {
+                if (owned.add(pointer)) {
+                    PointsToSet merged = new PointsToSet();
+                    merged.addAll(pts);
+                    pending.put(pointer, merged);
+                    pts = merged;
+                }
+                pts.addAll(pointsToSet);
+                ++mergeCount;
+            }
+        }
+        maxLength = Math.max(maxLength, size());
     }
 
     /**
@@ -44,14 +97,44 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        if (!coalescing) {
+            return entries.poll();
+        } else {
+            Pointer pointer = pointers.poll();
+            if (pointer == null) {
+                return null;
+            }
+            owned.remove(pointer);
+            return new Entry(pointer, pending.remove(pointer));
+        }
     }
 
     /**
      * @return true if the work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return size() == 0;
+    }
+
+    /**
+     * @return the number of entries in the work list.
+     */
+    int size() {
+        return coalescing ? pointers.size() : entries.size();
+    }
+
+    /**
+     * @return the maximum number of entries ever held by the work list.
+     */
+    int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * @return the number of entries that are merged into pending entries.
+     */
+    int getMergeCount() {
+        return mergeCount;
     }
 
     /**
@@ -78,4 +78,9 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    @Test
+    public void testInstanceFieldCoalesceWorkList() {
+        Tests.testCIPTA(DIR, "InstanceField", "coalesce-worklist:true");
+    }
 }
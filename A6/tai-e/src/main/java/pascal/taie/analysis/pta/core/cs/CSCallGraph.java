@@ -30,16 +30,17 @@ import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
-import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
 
-import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 
 /**
  * Represents context-sensitive call graph.
+ * The methods that modify this call graph are synchronized, so that
+ * the graph can be built by multiple threads.
  */
 public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
@@ -52,7 +53,7 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
     /**
      * Adds an entry method to this call graph.
      */
-    public void addEntryMethod(CSMethod entryMethod) {
+    public synchronized void addEntryMethod(CSMethod entryMethod) {
         entryMethods.add(entryMethod);
     }
 
@@ -62,7 +63,7 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      * @return true if this call graph changed as a result of the call,
      * otherwise false.
      */
-    public boolean addReachableMethod(CSMethod csMethod) {
+    public synchronized boolean addReachableMethod(CSMethod csMethod) {
         if (reachableMethods.add(csMethod)) {
             callSitesIn(csMethod).forEach(csCallSite ->
                     csCallSite.setContainer(csMethod));
@@ -79,7 +80,7 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      * @return true if the call graph changed as a result of the call,
      * otherwise false.
      */
-    public boolean addEdge(Edge<CSCallSite, CSMethod> edge) {
+    public synchronized boolean addEdge(Edge<CSCallSite, CSMethod> edge) {
         if (edge.getCallSite().addEdge(edge)) {
             edge.getCallee().addEdge(edge);
             return true;
@@ -103,18 +104,24 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
         return csCallSite.getContainer();
     }
 
+    /**
+     * The call sites of a CS method are created on the first call of
+     * this method, and then cached in the CS method.
+     */
     @Override
     public Set<CSCallSite> getCallSitesIn(CSMethod csMethod) {
-        JMethod method = csMethod.getMethod();
-        Context context = csMethod.getContext();
-        Set<CSCallSite> callSites = Sets.newHybridOrderedSet();
-        for (Stmt s : method.getIR()) {
-            if (s instanceof Invoke) {
-                CSCallSite csCallSite = csManager.getCSCallSite(context, (Invoke) s);
-                callSites.add(csCallSite);
+        Set<CSCallSite> callSites = csMethod.getCallSites();
+        if (callSites == null) {
+            Context context = csMethod.getContext();
+            List<Invoke> invokes = csMethod.getMethod().getInvokes();
+            callSites = Sets.newHybridOrderedSet();
+            for (Invoke invoke : invokes) {
+                callSites.add(csManager.getCSCallSite(context, invoke));
             }
+            csMethod.setCallSites(callSites);
+            callSites = csMethod.getCallSites();
         }
-        return Collections.unmodifiableSet(callSites);
+        return callSites;
     }
 
     @Override
@@ -0,0 +1,244 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trie-based contexts. Each context is a node of a trie, and is
+ * represented by its parent context and its last element.
+ * <p>
+ * The contexts are interned by {@link Factory}, i.e., each context
+ * (of the same factory) is one canonical object, thus contexts are
+ * compared by identity, and their hash codes are computed only once.
+ *
+ * @param <T> type of context elements
+ */
+public class TrieContext<T> implements Context {
+
+    private static final VarHandle CHILDREN;
+
+    static {
+        try {
+            CHILDREN = MethodHandles.lookup().findVarHandle(
+                    TrieContext.class, "children", Map.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The parent context, null for the empty context.
+     */
+    private final TrieContext<T> parent;
+
+    /**
+     * The last element of this context, null for the empty context.
+     */
+    private final T elem;
+
+    private final int length;
+
+    private final int hashCode;
+
+    /**
+     * Map from elements to the child contexts, which is created when
+     * the first child is created, as most contexts (e.g., the longest
+     * ones of k-limited selectors) have no children.
+     */
+    private volatile Map<T, TrieContext<T>> children;
+
+    private TrieContext(TrieContext<T> parent, T elem) {
+        this.parent = parent;
+        this.elem = elem;
+        if (parent == null) {
+            length = 0;
+            hashCode = 1;
+        } else {
+            length = parent.length + 1;
+            hashCode = 31 * parent.hashCode + elem.hashCode();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private TrieContext<T> getChild(T elem) {
+        Map<T, TrieContext<T>> map = children;
+        if (map == null) {
+            // the map may be created by another thread concurrently,
+            // and the one set first is used
+            Map<T, TrieContext<T>> newMap = Maps.newConcurrentMap();
+            Object witness = CHILDREN.compareAndExchange(this, null, newMap);
+            map = witness == null ? newMap : (Map<T, TrieContext<T>>) witness;
+        }
+        return map.computeIfAbsent(elem, e -> new TrieContext<>(this, e));
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public Object getElementAt(int i) {
+        if (i >= length) {
+            throw new AnalysisException(
+                    "Context " + this + " doesn't have " + i + "-th element");
+        }
+        TrieContext<T> c = this;
+        for (int j = length - 1; j > i; --j) {
+            c = c.parent;
+        }
+        return c.elem;
+    }
+
+    private List<T> getElements() {
+        List<T> elements = new ArrayList<>(length);
+        for (TrieContext<T> c = this; c.parent != null; c = c.parent) {
+            elements.add(c.elem);
+        }
+        Collections.reverse(elements);
+        return elements;
+    }
+
+    /**
+     * @return the context that consists of the elements of given context
+     * followed by given elements, which is interned by the factory of
+     * given context. This restores the contexts of a factory from their
+     * elements, e.g., the contexts saved by a previous analysis.
+     */
+    public static Context extend(Context context, Object... elements) {
+        TrieContext<Object> c = Factory.cast(context);
+        for (Object elem : elements) {
+            c = c.getChild(elem);
+        }
+        return c;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return getElements().toString();
+    }
+
+    /**
+     * Creates and interns trie-based contexts. The contexts created by
+     * different factories are never equal, so each context selector
+     * should use one factory for all its contexts.
+     *
+     * @param <T> type of context elements
+     */
+    public static class Factory<T> {
+
+        private final TrieContext<T> emptyContext = new TrieContext<>(null, null);
+
+        /**
+         * @return the empty context.
+         */
+        public Context getEmptyContext() {
+            return emptyContext;
+        }
+
+        /**
+         * @return the context that consists of given context elements.
+         */
+        @SafeVarargs
+        public final Context make(T... elements) {
+            TrieContext<T> context = emptyContext;
+            for (T elem : elements) {
+                context = context.getChild(elem);
+            }
+            return context;
+        }
+
+        /**
+         * Appends an element to given context. If the length of the
+         * result exceeds given limit, the oldest elements are dropped.
+         *
+         * @param parent the context created by this factory.
+         * @param elem   the element to be appended.
+         * @param limit  the maximum length of the result.
+         * @return the resulting context.
+         */
+        public Context append(Context parent, T elem, int limit) {
+            TrieContext<T> p = cast(parent);
+            if (p.length >= limit) {
+                p = cast(makeLastK(p, limit - 1));
+            }
+            return p.getChild(elem);
+        }
+
+        /**
+         * @param context the context created by this factory.
+         * @param k       the maximum length of the result.
+         * @return the context that consists of the last k elements of
+         * given context, or the context itself if its length is at most k.
+         */
+        public Context makeLastK(Context context, int k) {
+            TrieContext<T> c = cast(context);
+            if (c.length <= k) {
+                return c;
+            }
+            if (k == 1) {
+                // the common case of k-limiting, e.g., 2-limited selectors
+                return emptyContext.getChild(c.elem);
+            }
+            return lastK(c, k);
+        }
+
+        /**
+         * @return the context that consists of the last k elements of
+         * given context, which is built by walking the parent links.
+         * The length of the context must be at least k.
+         */
+        private TrieContext<T> lastK(TrieContext<T> context, int k) {
+            return k == 0 ? emptyContext :
+                    lastK(context.parent, k - 1).getChild(context.elem);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> TrieContext<T> cast(Context context) {
+            if (context instanceof TrieContext<?> c) {
+                return (TrieContext<T>) c;
+            }
+            throw new AnalysisException(
+                    "Context " + context + " is not a trie-based context");
+        }
+    }
+}
@@ -22,20 +22,22 @@
 
 package pascal.taie.analysis.pta.core.cs.element;
 
-import pascal.taie.analysis.pta.pts.PointsToSet;
-
+/**
+ * Base class of pointers, which only holds the index. The elements and
+ * the points-to set are held by the subclasses, or by the columns of
+ * {@link ArenaCSManager} for its flyweight pointers.
+ */
 abstract class AbstractPointer implements Pointer {
 
-    private PointsToSet pointsToSet;
+    private final int index;
 
-    @Override
-    public PointsToSet getPointsToSet() {
-        return pointsToSet;
+    AbstractPointer(int index) {
+        this.index = index;
     }
 
     @Override
-    public void setPointsToSet(PointsToSet pointsToSet) {
-        this.pointsToSet = pointsToSet;
+    public int getIndex() {
+        return index;
     }
 
 }
@@ -0,0 +1,640 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manages context-sensitive elements like {@link ArrayBasedCSManager},
+ * but stores the pointers (except static fields) in struct-of-arrays.
+ * <p>
+ * Each pointer is a dense int index into the columns of pointer data,
+ * i.e., its kind, its variable or field, its context (for variables)
+ * or base object (for instance fields and array indexes), and the
+ * handle of its points-to set. The lookup tables from elements to
+ * pointers hold int indexes instead of pointer objects. The
+ * {@link Pointer}s returned by this manager are flyweight views,
+ * which hold only the index, are created on demand, read and write
+ * the columns, and are equal if they have the same index.
+ * <p>
+ * The CS variables, call sites, methods and objects are looked up by
+ * context first, and then in the maps of that context, which hold
+ * only the methods and objects that are used with that context.
+ * <p>
+ * The largest int tables, i.e., the owners of pointers, the array
+ * index pointers of objects and the lists of pointers of each kind,
+ * can be stored off-heap in direct buffers.
+ * <p>
+ * This manager is not thread-safe.
+ */
+public class ArenaCSManager implements CSManager {
+
+    private static final byte VAR = 0;
+
+    private static final byte STATIC_FIELD = 1;
+
+    private static final byte INSTANCE_FIELD = 2;
+
+    private static final byte ARRAY_INDEX = 3;
+
+    private final Map<Context, ContextElements> contextElements = Maps.newMap();
+
+    /**
+     * List of all contexts, the index of each context in this list
+     * is its ID in {@link #owners}.
+     */
+    private final List<Context> contexts = new ArrayList<>();
+
+    /**
+     * The elements of the most recently accessed context.
+     */
+    private ContextElements lastElements;
+
+    /**
+     * List of all CS objects, the index of each object in this list
+     * is its {@link CSObj#getIndex()}.
+     */
+    private final List<CSObj> objList = new ArrayList<>();
+
+    private int methodCounter = 0;
+
+    private int callSiteCounter = 0;
+
+    // columns of pointers, indexed by pointer index
+
+    private byte[] kinds = new byte[16];
+
+    /**
+     * Variable of each CS variable, and field of each (static or
+     * instance) field pointer.
+     */
+    private Object[] elements = new Object[16];
+
+    /**
+     * Context ID of each CS variable, and base object index
+     * of each instance field and array index pointer.
+     */
+    private final IntTable owners;
+
+    private PointsToSet[] pointsToSets = new PointsToSet[16];
+
+    private int pointerCounter = 0;
+
+    // lookup tables and lists of pointers, which hold pointer index + 1,
+    // and 0 for absent pointers
+
+    private final Map<Var, int[]> var2CSVars = Maps.newMap();
+
+    private final Map<JField, Integer> staticFields = Maps.newMap();
+
+    /**
+     * Fields and indexes of instance field pointers,
+     * indexed by {@link CSObj#getIndex()} of the base objects.
+     */
+    private JField[][] instanceFieldKeys = new JField[0][];
+
+    private int[][] instanceFieldIndexes = new int[0][];
+
+    /**
+     * Array index pointers, indexed by {@link CSObj#getIndex()}
+     * of the array objects.
+     */
+    private final IntTable arrayIndexes;
+
+    private final IntTable varList;
+
+    private final IntTable staticFieldList;
+
+    private final IntTable instanceFieldList;
+
+    private final IntTable arrayIndexList;
+
+    private final PointsToSetFactory ptsFactory;
+
+    /**
+     * @param ptsKind kind of points-to sets of the pointers created
+     *                by this manager.
+     * @param offHeap whether the largest int tables are stored off-heap.
+     */
+    public ArenaCSManager(PointsToSetFactory.Kind ptsKind, boolean offHeap) {
+        ptsFactory = new PointsToSetFactory(ptsKind, this::getObject);
+        owners = IntTable.of(offHeap);
+        arrayIndexes = IntTable.of(offHeap);
+        varList = IntTable.of(offHeap);
+        staticFieldList = IntTable.of(offHeap);
+        instanceFieldList = IntTable.of(offHeap);
+        arrayIndexList = IntTable.of(offHeap);
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        ContextElements elems = getElements(context);
+        MethodElements methodElems = elems.getMethodElements(var.getMethod());
+        int[] vars = methodElems.vars;
+        if (vars == null) {
+            vars = new int[var.getMethod().getIR().getVars().size()];
+            methodElems.vars = vars;
+        }
+        int index = vars[var.getIndex()] - 1;
+        if (index < 0) {
+            index = newPointer(VAR, var, elems.id);
+            vars[var.getIndex()] = index + 1;
+            varList.add(index);
+            int[] csVars = var2CSVars.get(var);
+            if (csVars == null || csVars[0] + 1 == csVars.length) {
+                csVars = csVars == null ? new int[2] :
+                        Arrays.copyOf(csVars, csVars.length * 2);
+                var2CSVars.put(var, csVars);
+            }
+            csVars[++csVars[0]] = index;
+        }
+        return new VarView(index);
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        ContextElements elems = getElements(heapContext);
+        return elems.objs.computeIfAbsent(obj, o -> {
+            CSObj csObj = new CSObj(o, heapContext, objList.size());
+            objList.add(csObj);
+            return csObj;
+        });
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        ContextElements elems = getElements(context);
+        JMethod method = callSite.getContainer();
+        MethodElements methodElems = elems.getMethodElements(method);
+        CSCallSite[] callSites = methodElems.callSites;
+        if (callSites == null) {
+            callSites = new CSCallSite[method.getIR().getStmts().size()];
+            methodElems.callSites = callSites;
+        }
+        CSCallSite csCallSite = callSites[callSite.getIndex()];
+        if (csCallSite == null) {
+            csCallSite = new CSCallSite(callSite, context, callSiteCounter++);
+            callSites[callSite.getIndex()] = csCallSite;
+        }
+        return csCallSite;
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        MethodElements methodElems = getElements(context)
+                .getMethodElements(method);
+        CSMethod csMethod = methodElems.csMethod;
+        if (csMethod == null) {
+            csMethod = new CSMethod(method, context, methodCounter++);
+            methodElems.csMethod = csMethod;
+        }
+        return csMethod;
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        int index = staticFields.computeIfAbsent(field, f -> {
+            int i = newPointer(STATIC_FIELD, f, -1);
+            staticFieldList.add(i);
+            return i;
+        });
+        return new StaticFieldView(index);
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        int objIndex = base.getIndex();
+        if (objIndex >= instanceFieldKeys.length) {
+            int capacity = newCapacity(instanceFieldKeys.length, objIndex);
+            instanceFieldKeys = Arrays.copyOf(instanceFieldKeys, capacity);
+            instanceFieldIndexes = Arrays.copyOf(instanceFieldIndexes, capacity);
+        }
+        JField[] keys = instanceFieldKeys[objIndex];
+        int[] indexes = instanceFieldIndexes[objIndex];
+        int n = 0;
+        if (keys != null) {
+            // objects have few fields, thus linear search suffices
+            for (; n < keys.length && keys[n] != null; ++n) {
+                if (keys[n] == field) {
+                    return new InstanceFieldView(indexes[n]);
+                }
+            }
+        }
+        if (keys == null || n == keys.length) {
+            keys = keys == null ? new JField[2] : Arrays.copyOf(keys, n * 2);
+            indexes = indexes == null ? new int[2] : Arrays.copyOf(indexes, n * 2);
+            instanceFieldKeys[objIndex] = keys;
+            instanceFieldIndexes[objIndex] = indexes;
+        }
+        int index = newPointer(INSTANCE_FIELD, field, objIndex);
+        keys[n] = field;
+        indexes[n] = index;
+        instanceFieldList.add(index);
+        return new InstanceFieldView(index);
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        int index = arrayIndexes.get(array.getIndex()) - 1;
+        if (index < 0) {
+            index = newPointer(ARRAY_INDEX, null, array.getIndex());
+            arrayIndexes.set(array.getIndex(), index + 1);
+            arrayIndexList.add(index);
+        }
+        return new ArrayIndexView(index);
+    }
+
+    /**
+     * @return the view of the pointer of given index.
+     */
+    public Pointer getPointer(int index) {
+        return switch (kinds[index]) {
+            case VAR -> new VarView(index);
+            case STATIC_FIELD -> new StaticFieldView(index);
+            case INSTANCE_FIELD -> new InstanceFieldView(index);
+            case ARRAY_INDEX -> new ArrayIndexView(index);
+            default -> throw new IllegalArgumentException(
+                    "Unknown pointer kind: " + kinds[index]);
+        };
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(var2CSVars.keySet());
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        int[] csVars = var2CSVars.get(var);
+        if (csVars == null) {
+            return List.of();
+        }
+        return new AbstractList<>() {
+            @Override
+            public CSVar get(int i) {
+                return (CSVar) getPointer(csVars[i + 1]);
+            }
+
+            @Override
+            public int size() {
+                return csVars[0];
+            }
+        };
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return viewsOf(varList);
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return Collections.unmodifiableList(objList);
+    }
+
+    @Override
+    public CSObj getObject(int index) {
+        return objList.get(index);
+    }
+
+    @Override
+    public PointsToSetFactory getPointsToSetFactory() {
+        return ptsFactory;
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return viewsOf(staticFieldList);
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return viewsOf(instanceFieldList);
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return viewsOf(arrayIndexList);
+    }
+
+    /**
+     * @return the number of pointers created by this manager.
+     */
+    public int getNumberOfPointers() {
+        return pointerCounter;
+    }
+
+    /**
+     * @return the list of the views of the pointers in given list.
+     */
+    private <P extends Pointer> List<P> viewsOf(IntTable pointers) {
+        return new AbstractList<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public P get(int i) {
+                return (P) getPointer(pointers.get(i));
+            }
+
+            @Override
+            public int size() {
+                return pointers.size();
+            }
+        };
+    }
+
+    private int newPointer(byte kind, Object element, int owner) {
+        int index = pointerCounter++;
+        if (index == kinds.length) {
+            int capacity = newCapacity(kinds.length, index);
+            kinds = Arrays.copyOf(kinds, capacity);
+            elements = Arrays.copyOf(elements, capacity);
+            pointsToSets = Arrays.copyOf(pointsToSets, capacity);
+        }
+        kinds[index] = kind;
+        elements[index] = element;
+        owners.set(index, owner);
+        pointsToSets[index] = ptsFactory.make();
+        return index;
+    }
+
+    private ContextElements getElements(Context context) {
+        ContextElements elems = lastElements;
+        if (elems == null || !elems.context.equals(context)) {
+            elems = contextElements.computeIfAbsent(context, c -> {
+                contexts.add(c);
+                return new ContextElements(c, contexts.size() - 1);
+            });
+            lastElements = elems;
+        }
+        return elems;
+    }
+
+    private static int newCapacity(int length, int index) {
+        return Math.max(index + 1, length + (length >> 1));
+    }
+
+    /**
+     * The CS elements of a context.
+     */
+    private static class ContextElements {
+
+        private final Context context;
+
+        /**
+         * ID of the context in {@link #owners}.
+         */
+        private final int id;
+
+        /**
+         * CS elements of the methods that are used with this context.
+         */
+        private final Map<JMethod, MethodElements> methods = Maps.newMap();
+
+        /**
+         * CS objects of the objects that are used with this context.
+         */
+        private final Map<Obj, CSObj> objs = Maps.newMap();
+
+        /**
+         * The method elements of the most recently accessed method.
+         */
+        private MethodElements lastMethodElements;
+
+        private ContextElements(Context context, int id) {
+            this.context = context;
+            this.id = id;
+        }
+
+        private MethodElements getMethodElements(JMethod method) {
+            MethodElements elems = lastMethodElements;
+            if (elems == null || elems.method != method) {
+                elems = methods.computeIfAbsent(method, MethodElements::new);
+                lastMethodElements = elems;
+            }
+            return elems;
+        }
+    }
+
+    /**
+     * The CS elements of a method under a context, which are
+     * created when they are first accessed.
+     */
+    private static class MethodElements {
+
+        private final JMethod method;
+
+        private CSMethod csMethod;
+
+        /**
+         * Indexes (+1) of CS variables, indexed by variable index.
+         */
+        private int[] vars;
+
+        /**
+         * CS call sites, indexed by statement index.
+         */
+        private CSCallSite[] callSites;
+
+        private MethodElements(JMethod method) {
+            this.method = method;
+        }
+    }
+
+    // flyweight views of the pointers, which hold only their indexes,
+    // and read their elements and points-to sets from the columns
+
+    private class VarView extends CSVar {
+
+        private VarView(int index) {
+            super(index);
+        }
+
+        @Override
+        public Var getVar() {
+            return (Var) elements[getIndex()];
+        }
+
+        @Override
+        public Context getContext() {
+            return contexts.get(owners.get(getIndex()));
+        }
+
+        @Override
+        public PointsToSet getPointsToSet() {
+            return pointsToSets[getIndex()];
+        }
+
+        @Override
+        public void setPointsToSet(PointsToSet pointsToSet) {
+            pointsToSets[getIndex()] = pointsToSet;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof VarView v && v.getIndex() == getIndex() &&
+                    v.getManager() == ArenaCSManager.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return getIndex();
+        }
+
+        private ArenaCSManager getManager() {
+            return ArenaCSManager.this;
+        }
+    }
+
+    private class StaticFieldView extends StaticField {
+
+        private StaticFieldView(int index) {
+            super(index);
+        }
+
+        @Override
+        public JField getField() {
+            return (JField) elements[getIndex()];
+        }
+
+        @Override
+        public PointsToSet getPointsToSet() {
+            return pointsToSets[getIndex()];
+        }
+
+        @Override
+        public void setPointsToSet(PointsToSet pointsToSet) {
+            pointsToSets[getIndex()] = pointsToSet;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StaticFieldView v && v.getIndex() == getIndex() &&
+                    v.getManager() == ArenaCSManager.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return getIndex();
+        }
+
+        private ArenaCSManager getManager() {
+            return ArenaCSManager.this;
+        }
+    }
+
+    private class InstanceFieldView extends InstanceField {
+
+        private InstanceFieldView(int index) {
+            super(index);
+        }
+
+        @Override
+        public CSObj getBase() {
+            return objList.get(owners.get(getIndex()));
+        }
+
+        @Override
+        public JField getField() {
+            return (JField) elements[getIndex()];
+        }
+
+        @Override
+        public PointsToSet getPointsToSet() {
+            return pointsToSets[getIndex()];
+        }
+
+        @Override
+        public void setPointsToSet(PointsToSet pointsToSet) {
+            pointsToSets[getIndex()] = pointsToSet;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof InstanceFieldView v && v.getIndex() == getIndex() &&
+                    v.getManager() == ArenaCSManager.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return getIndex();
+        }
+
+        private ArenaCSManager getManager() {
+            return ArenaCSManager.this;
+        }
+    }
+
+    private class ArrayIndexView extends ArrayIndex {
+
+        private ArrayIndexView(int index) {
+            super(index);
+        }
+
+        @Override
+        public CSObj getArray() {
+            return objList.get(owners.get(getIndex()));
+        }
+
+        @Override
+        public PointsToSet getPointsToSet() {
+            return pointsToSets[getIndex()];
+        }
+
+        @Override
+        public void setPointsToSet(PointsToSet pointsToSet) {
+            pointsToSets[getIndex()] = pointsToSet;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ArrayIndexView v && v.getIndex() == getIndex() &&
+                    v.getManager() == ArenaCSManager.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return getIndex();
+        }
+
+        private ArenaCSManager getManager() {
+            return ArenaCSManager.this;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manages context-sensitive elements and pointers with arrays.
+ * <p>
+ * The elements of each context are stored sparsely, i.e., only for the
+ * methods and objects that are used with that context. For each such
+ * method, the CS variables are stored in an array indexed by
+ * {@link Var#getIndex()}, and the CS call sites are stored likewise by
+ * {@link Invoke#getIndex()}. Retrieving a CS variable, call site or method
+ * thus hashes its context and its method, which are skipped when they
+ * repeat the last ones (as in processing the statements of a method),
+ * and the rest are array accesses instead of the two-key map lookups
+ * of {@link MapBasedCSManager}.
+ * <p>
+ * This manager is not thread-safe.
+ */
+public class ArrayBasedCSManager implements CSManager {
+
+    private final Map<Context, ContextElements> contextElements = Maps.newMap();
+
+    /**
+     * The elements of the most recently accessed context.
+     */
+    private ContextElements lastElements;
+
+    private final List<CSVar> csVars = new ArrayList<>();
+
+    private final MultiMap<Var, CSVar> var2CSVars = Maps.newMultiMap();
+
+    /**
+     * List of all CS objects, the index of each object in this list
+     * is its {@link CSObj#getIndex()}.
+     */
+    private final List<CSObj> objList = new ArrayList<>();
+
+    private final Map<JField, StaticField> staticFields = Maps.newMap();
+
+    private final List<StaticField> staticFieldList = new ArrayList<>();
+
+    /**
+     * Instance field pointers, indexed by {@link CSObj#getIndex()}
+     * of the base objects.
+     */
+    private Map<JField, InstanceField>[] instanceFields = newMapArray(0);
+
+    private final List<InstanceField> instanceFieldList = new ArrayList<>();
+
+    /**
+     * Array index pointers, indexed by {@link CSObj#getIndex()}
+     * of the array objects.
+     */
+    private ArrayIndex[] arrayIndexes = new ArrayIndex[0];
+
+    private final List<ArrayIndex> arrayIndexList = new ArrayList<>();
+
+    private int pointerCounter = 0;
+
+    private int methodCounter = 0;
+
+    private int callSiteCounter = 0;
+
+    private final PointsToSetFactory ptsFactory;
+
+    /**
+     * @param ptsKind kind of points-to sets of the pointers created
+     *                by this manager.
+     */
+    public ArrayBasedCSManager(PointsToSetFactory.Kind ptsKind) {
+        ptsFactory = new PointsToSetFactory(ptsKind, this::getObject);
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        MethodElements methodElems = getElements(context)
+                .getMethodElements(var.getMethod());
+        CSVar[] vars = methodElems.vars;
+        if (vars == null) {
+            vars = new CSVar[var.getMethod().getIR().getVars().size()];
+            methodElems.vars = vars;
+        }
+        CSVar csVar = vars[var.getIndex()];
+        if (csVar == null) {
+            csVar = initializePointsToSet(CSVar.of(var, context, pointerCounter++));
+            vars[var.getIndex()] = csVar;
+            csVars.add(csVar);
+            var2CSVars.put(var, csVar);
+        }
+        return csVar;
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        return getElements(heapContext).objs.computeIfAbsent(obj, o -> {
+            CSObj csObj = new CSObj(o, heapContext, objList.size());
+            objList.add(csObj);
+            return csObj;
+        });
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        JMethod method = callSite.getContainer();
+        MethodElements methodElems = getElements(context)
+                .getMethodElements(method);
+        CSCallSite[] callSites = methodElems.callSites;
+        if (callSites == null) {
+            callSites = new CSCallSite[method.getIR().getStmts().size()];
+            methodElems.callSites = callSites;
+        }
+        CSCallSite csCallSite = callSites[callSite.getIndex()];
+        if (csCallSite == null) {
+            csCallSite = new CSCallSite(callSite, context, callSiteCounter++);
+            callSites[callSite.getIndex()] = csCallSite;
+        }
+        return csCallSite;
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        MethodElements methodElems = getElements(context)
+                .getMethodElements(method);
+        CSMethod csMethod = methodElems.csMethod;
+        if (csMethod == null) {
+            csMethod = new CSMethod(method, context, methodCounter++);
+            methodElems.csMethod = csMethod;
+        }
+        return csMethod;
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return staticFields.computeIfAbsent(field, f -> {
+            StaticField staticField = initializePointsToSet(
+                    StaticField.of(f, pointerCounter++));
+            staticFieldList.add(staticField);
+            return staticField;
+        });
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        int index = base.getIndex();
+        if (index >= instanceFields.length) {
+            instanceFields = Arrays.copyOf(instanceFields,
+                    newCapacity(instanceFields.length, index));
+        }
+        Map<JField, InstanceField> fields = instanceFields[index];
+        if (fields == null) {
+            fields = Maps.newHybridMap();
+            instanceFields[index] = fields;
+        }
+        return fields.computeIfAbsent(field, f -> {
+            InstanceField instanceField = initializePointsToSet(
+                    InstanceField.of(base, f, pointerCounter++));
+            instanceFieldList.add(instanceField);
+            return instanceField;
+        });
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        int index = array.getIndex();
+        arrayIndexes = ensureCapacity(arrayIndexes, index);
+        ArrayIndex arrayIndex = arrayIndexes[index];
+        if (arrayIndex == null) {
+            arrayIndex = initializePointsToSet(
+                    ArrayIndex.of(array, pointerCounter++));
+            arrayIndexes[index] = arrayIndex;
+            arrayIndexList.add(arrayIndex);
+        }
+        return arrayIndex;
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(var2CSVars.keySet());
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        return var2CSVars.get(var);
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return Collections.unmodifiableList(csVars);
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return Collections.unmodifiableList(objList);
+    }
+
+    @Override
+    public CSObj getObject(int index) {
+        return objList.get(index);
+    }
+
+    @Override
+    public PointsToSetFactory getPointsToSetFactory() {
+        return ptsFactory;
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableList(staticFieldList);
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return Collections.unmodifiableList(instanceFieldList);
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Collections.unmodifiableList(arrayIndexList);
+    }
+
+    private ContextElements getElements(Context context) {
+        ContextElements elems = lastElements;
+        if (elems == null || !elems.context.equals(context)) {
+            elems = contextElements.computeIfAbsent(context, ContextElements::new);
+            lastElements = elems;
+        }
+        return elems;
+    }
+
+    private <P extends Pointer> P initializePointsToSet(P pointer) {
+        pointer.setPointsToSet(ptsFactory.make());
+        return pointer;
+    }
+
+    /**
+     * @return given array if its length is greater than index,
+     * otherwise a larger copy of the array.
+     */
+    private static <T> T[] ensureCapacity(T[] array, int index) {
+        return index < array.length ? array :
+                Arrays.copyOf(array, newCapacity(array.length, index));
+    }
+
+    private static int newCapacity(int length, int index) {
+        return Math.max(index + 1, length + (length >> 1));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<JField, InstanceField>[] newMapArray(int length) {
+        return (Map<JField, InstanceField>[]) new Map[length];
+    }
+
+    /**
+     * The CS elements of a context.
+     */
+    private static class ContextElements {
+
+        private final Context context;
+
+        /**
+         * CS elements of the methods that are used with this context.
+         */
+        private final Map<JMethod, MethodElements> methods = Maps.newMap();
+
+        /**
+         * CS objects of the objects that are used with this context.
+         */
+        private final Map<Obj, CSObj> objs = Maps.newMap();
+
+        /**
+         * The method elements of the most recently accessed method.
+         */
+        private MethodElements lastMethodElements;
+
+        private ContextElements(Context context) {
+            this.context = context;
+        }
+
+        private MethodElements getMethodElements(JMethod method) {
+            MethodElements elems = lastMethodElements;
+            if (elems == null || elems.method != method) {
+                elems = methods.computeIfAbsent(method, MethodElements::new);
+                lastMethodElements = elems;
+            }
+            return elems;
+        }
+    }
+
+    /**
+     * The CS elements of a method under a context, which are
+     * created when they are first accessed.
+     */
+    private static class MethodElements {
+
+        private final JMethod method;
+
+        private CSMethod csMethod;
+
+        /**
+         * CS variables, indexed by variable index.
+         */
+        private CSVar[] vars;
+
+        /**
+         * CS call sites, indexed by statement index.
+         */
+        private CSCallSite[] callSites;
+
+        private MethodElements(JMethod method) {
+            this.method = method;
+        }
+    }
+}
@@ -22,35 +22,67 @@
 
 package pascal.taie.analysis.pta.core.cs.element;
 
+import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.language.type.ArrayType;
 import pascal.taie.language.type.Type;
 
 /**
  * Represents array index pointers.
  */
-public class ArrayIndex extends AbstractPointer {
+public abstract class ArrayIndex extends AbstractPointer {
 
-    private final CSObj array;
+    ArrayIndex(int index) {
+        super(index);
+    }
 
-    ArrayIndex(CSObj array) {
-        this.array = array;
+    /**
+     * @return an array index pointer which holds its array object
+     * and points-to set.
+     */
+    static ArrayIndex of(CSObj array, int index) {
+        return new Impl(array, index);
     }
 
     /**
      * @return the array object.
      */
-    public CSObj getArray() {
-        return array;
-    }
+    public abstract CSObj getArray();
 
     @Override
     public Type getType() {
-        return ((ArrayType) array.getObject().getType())
+        return ((ArrayType) getArray().getObject().getType())
                 .elementType();
     }
 
     @Override
     public String toString() {
-        return array + "[*]";
+        return getArray() + "[*]";
+    }
+
+    private static class Impl extends ArrayIndex {
+
+        private final CSObj array;
+
+        private PointsToSet pointsToSet;
+
+        private Impl(CSObj array, int index) {
+            super(index);
+            this.array = array;
+        }
+
+        @Override
+        public CSObj getArray() {
+            return array;
+        }
+
+        @Override
+        public PointsToSet getPointsToSet() {
+            return pointsToSet;
+        }
+
+        @Override
+        public void setPointsToSet(PointsToSet pointsToSet) {
+            this.pointsToSet = pointsToSet;
+        }
     }
 }
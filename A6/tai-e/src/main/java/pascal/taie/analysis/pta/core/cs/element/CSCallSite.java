@@ -25,6 +25,7 @@ package pascal.taie.analysis.pta.core.cs.element;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.util.Indexable;
 import pascal.taie.util.collection.Sets;
 
 import java.util.Collections;
@@ -33,7 +34,7 @@ import java.util.Set;
 /**
  * Represents context-sensitive call sites.
  */
-public class CSCallSite extends AbstractCSElement {
+public class CSCallSite extends AbstractCSElement implements Indexable {
 
     private final Invoke callSite;
 
@@ -47,9 +48,20 @@ public class CSCallSite extends AbstractCSElement {
      */
     private final Set<Edge<CSCallSite, CSMethod>> edges = Sets.newHybridSet();
 
-    CSCallSite(Invoke callSite, Context context) {
+    /**
+     * Dense index of this call site, assigned by {@link CSManager}.
+     */
+    private final int index;
+
+    CSCallSite(Invoke callSite, Context context, int index) {
         super(context);
         this.callSite = callSite;
+        this.index = index;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
     }
 
     /**
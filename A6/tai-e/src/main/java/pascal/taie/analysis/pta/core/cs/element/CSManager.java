@@ -24,6 +24,7 @@ package pascal.taie.analysis.pta.core.cs.element;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.JField;
@@ -92,6 +93,18 @@ public interface CSManager {
      */
     Collection<CSObj> getObjects();
 
+    /**
+     * @return the context-sensitive object whose index is given index.
+     * @see CSObj#getIndex()
+     */
+    CSObj getObject(int index);
+
+    /**
+     * @return the factory that creates points-to sets for the pointers
+     * managed by this manager.
+     */
+    PointsToSetFactory getPointsToSetFactory();
+
     /**
      * @return all static field pointers.
      */
@@ -26,9 +26,11 @@ import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AbstractResultHolder;
+import pascal.taie.util.Indexable;
 import pascal.taie.util.ResultHolder;
 import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
@@ -37,7 +39,7 @@ import java.util.function.Supplier;
 /**
  * Represents context-sensitive methods.
  */
-public class CSMethod extends AbstractCSElement {
+public class CSMethod extends AbstractCSElement implements Indexable {
 
     private final JMethod method;
 
@@ -46,11 +48,27 @@ public class CSMethod extends AbstractCSElement {
      */
     private final Set<Edge<CSCallSite, CSMethod>> edges = Sets.newHybridSet();
 
+    /**
+     * Call sites in this method, created on first request.
+     */
+    private Set<CSCallSite> callSites;
+
     private final ResultHolder resultHolder = new AbstractResultHolder() {};
 
-    CSMethod(JMethod method, Context context) {
+    /**
+     * Dense index of this method, assigned by {@link CSManager}.
+     */
+    private final int index;
+
+    CSMethod(JMethod method, Context context, int index) {
         super(context);
         this.method = method;
+        this.index = index;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
     }
 
     /**
@@ -68,6 +86,22 @@ public class CSMethod extends AbstractCSElement {
         return Collections.unmodifiableSet(edges);
     }
 
+    /**
+     * @return the call sites in this method, or null if they have not
+     * been created.
+     */
+    @Nullable
+    public Set<CSCallSite> getCallSites() {
+        return callSites;
+    }
+
+    /**
+     * Caches the call sites in this method.
+     */
+    public void setCallSites(Set<CSCallSite> callSites) {
+        this.callSites = Collections.unmodifiableSet(callSites);
+    }
+
     public <R> R getResult(String id, Supplier<R> supplier) {
         return resultHolder.getResult(id, supplier);
     }
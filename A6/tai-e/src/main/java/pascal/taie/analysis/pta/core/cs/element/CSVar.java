@@ -23,42 +23,74 @@
 package pascal.taie.analysis.pta.core.cs.element;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.language.type.Type;
 
 /**
  * Represents context-sensitive variables.
  */
-public class CSVar extends AbstractPointer implements CSElement {
+public abstract class CSVar extends AbstractPointer implements CSElement {
 
-    private final Var var;
-
-    private final Context context;
-
-    CSVar(Var var, Context context) {
-        this.var = var;
-        this.context = context;
+    CSVar(int index) {
+        super(index);
     }
 
-    @Override
-    public Context getContext() {
-        return context;
+    /**
+     * @return a CS variable which holds its elements and points-to set.
+     */
+    static CSVar of(Var var, Context context, int index) {
+        return new Impl(var, context, index);
     }
 
     /**
      * @return the variable (without context).
      */
-    public Var getVar() {
-        return var;
-    }
+    public abstract Var getVar();
 
     @Override
     public Type getType() {
-        return var.getType();
+        return getVar().getType();
     }
 
     @Override
     public String toString() {
-        return context + ":" + var.getMethod() + "/" + var.getName();
+        Var var = getVar();
+        return getContext() + ":" + var.getMethod() + "/" + var.getName();
+    }
+
+    private static class Impl extends CSVar {
+
+        private final Var var;
+
+        private final Context context;
+
+        private PointsToSet pointsToSet;
+
+        private Impl(Var var, Context context, int index) {
+            super(index);
+            this.var = var;
+            this.context = context;
+        }
+
+        @Override
+        public Context getContext() {
+            return context;
+        }
+
+        @Override
+        public Var getVar() {
+            return var;
+        }
+
+        @Override
+        public PointsToSet getPointsToSet() {
+            return pointsToSet;
+        }
+
+        @Override
+        public void setPointsToSet(PointsToSet pointsToSet) {
+            this.pointsToSet = pointsToSet;
+        }
     }
 }
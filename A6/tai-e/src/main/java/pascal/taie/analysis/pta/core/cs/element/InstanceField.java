@@ -22,44 +22,79 @@
 
 package pascal.taie.analysis.pta.core.cs.element;
 
+import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.type.Type;
 
 /**
  * Represents instance field pointers.
  */
-public class InstanceField extends AbstractPointer {
+public abstract class InstanceField extends AbstractPointer {
 
-    private final CSObj base;
-
-    private final JField field;
+    InstanceField(int index) {
+        super(index);
+    }
 
-    InstanceField(CSObj base, JField field) {
-        this.base = base;
-        this.field = field;
+    /**
+     * @return an instance field pointer which holds its base object,
+     * field and points-to set.
+     */
+    static InstanceField of(CSObj base, JField field, int index) {
+        return new Impl(base, field, index);
     }
 
     /**
      * @return the base object.
      */
-    public CSObj getBase() {
-        return base;
-    }
+    public abstract CSObj getBase();
 
     /**
      * @return the corresponding instance field of the InstanceField pointer.
      */
-    public JField getField() {
-        return field;
-    }
+    public abstract JField getField();
 
     @Override
     public Type getType() {
-        return field.getType();
+        return getField().getType();
     }
 
     @Override
     public String toString() {
-        return base + "." + field.getName();
+        return getBase() + "." + getField().getName();
+    }
+
+    private static class Impl extends InstanceField {
+
+        private final CSObj base;
+
+        private final JField field;
+
+        private PointsToSet pointsToSet;
+
+        private Impl(CSObj base, JField field, int index) {
+            super(index);
+            this.base = base;
+            this.field = field;
+        }
+
+        @Override
+        public CSObj getBase() {
+            return base;
+        }
+
+        @Override
+        public JField getField() {
+            return field;
+        }
+
+        @Override
+        public PointsToSet getPointsToSet() {
+            return pointsToSet;
+        }
+
+        @Override
+        public void setPointsToSet(PointsToSet pointsToSet) {
+            this.pointsToSet = pointsToSet;
+        }
     }
 }
@@ -0,0 +1,134 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable table of int values, stored either in a Java array or
+ * off-heap in a direct buffer. Absent values are 0.
+ */
+abstract class IntTable {
+
+    /**
+     * Number of values, i.e., the largest index set or added plus 1.
+     */
+    private int size;
+
+    /**
+     * @param offHeap whether the values are stored off-heap.
+     */
+    static IntTable of(boolean offHeap) {
+        return offHeap ? new OffHeap() : new OnHeap();
+    }
+
+    int get(int index) {
+        return index < capacity() ? load(index) : 0;
+    }
+
+    void set(int index, int value) {
+        if (index >= capacity()) {
+            grow(Math.max(index + 1, capacity() + (capacity() >> 1)));
+        }
+        store(index, value);
+        size = Math.max(size, index + 1);
+    }
+
+    void add(int value) {
+        set(size, value);
+    }
+
+    int size() {
+        return size;
+    }
+
+    abstract int capacity();
+
+    abstract int load(int index);
+
+    abstract void store(int index, int value);
+
+    abstract void grow(int capacity);
+
+    private static class OnHeap extends IntTable {
+
+        private int[] values = new int[16];
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        int load(int index) {
+            return values[index];
+        }
+
+        @Override
+        void store(int index, int value) {
+            values[index] = value;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static class OffHeap extends IntTable {
+
+        private IntBuffer values = allocate(1024);
+
+        private static IntBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity * Integer.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asIntBuffer();
+        }
+
+        @Override
+        int capacity() {
+            return values.capacity();
+        }
+
+        @Override
+        int load(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        void store(int index, int value) {
+            values.put(index, value);
+        }
+
+        @Override
+        void grow(int capacity) {
+            IntBuffer newValues = allocate(capacity);
+            newValues.put(values.position(0));
+            values = newValues;
+        }
+    }
+}
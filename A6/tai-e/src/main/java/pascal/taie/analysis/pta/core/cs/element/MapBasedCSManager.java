@@ -0,0 +1,249 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.MapMapTwoKeyMap;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Manages context-sensitive elements and pointers with nested maps.
+ * Each {@link CSObj} is assigned a dense index in creation order,
+ * so that points-to sets can be represented by bit sets. Pointers,
+ * CS methods and CS call sites are also assigned dense indexes.
+ * <p>
+ * A concurrent manager can be shared by multiple threads, in which
+ * the maps are backed by concurrent maps, and each element is
+ * created exactly once.
+ */
+public class MapBasedCSManager implements CSManager {
+
+    private final boolean concurrent;
+
+    private final TwoKeyMap<Var, Context, CSVar> vars;
+
+    private final TwoKeyMap<Obj, Context, CSObj> objs;
+
+    /**
+     * List of all CS objects, the index of each object in this list
+     * is its {@link CSObj#getIndex()}.
+     */
+    private final List<CSObj> objList;
+
+    private final TwoKeyMap<Invoke, Context, CSCallSite> callSites;
+
+    private final TwoKeyMap<JMethod, Context, CSMethod> methods;
+
+    private final Map<JField, StaticField> staticFields;
+
+    private final TwoKeyMap<CSObj, JField, InstanceField> instanceFields;
+
+    private final Map<CSObj, ArrayIndex> arrayIndexes;
+
+    /**
+     * Counters for the indexes of pointers, CS methods and CS call sites.
+     */
+    private final AtomicInteger pointerCounter = new AtomicInteger();
+
+    private final AtomicInteger methodCounter = new AtomicInteger();
+
+    private final AtomicInteger callSiteCounter = new AtomicInteger();
+
+    private final PointsToSetFactory ptsFactory;
+
+    public MapBasedCSManager() {
+        this(PointsToSetFactory.Kind.HYBRID);
+    }
+
+    /**
+     * @param ptsKind kind of points-to sets of the pointers created
+     *                by this manager.
+     */
+    public MapBasedCSManager(PointsToSetFactory.Kind ptsKind) {
+        this(ptsKind, false);
+    }
+
+    /**
+     * @param ptsKind    kind of points-to sets of the pointers created
+     *                   by this manager.
+     * @param concurrent whether this manager can be accessed by multiple
+     *                   threads simultaneously.
+     */
+    public MapBasedCSManager(PointsToSetFactory.Kind ptsKind, boolean concurrent) {
+        this.concurrent = concurrent;
+        vars = newTwoKeyMap();
+        objs = newTwoKeyMap();
+        objList = concurrent ?
+                Collections.synchronizedList(new ArrayList<>()) : new ArrayList<>();
+        callSites = newTwoKeyMap();
+        methods = newTwoKeyMap();
+        staticFields = concurrent ? Maps.newConcurrentMap() : Maps.newMap();
+        instanceFields = newTwoKeyMap();
+        arrayIndexes = concurrent ? Maps.newConcurrentMap() : Maps.newMap();
+        ptsFactory = new PointsToSetFactory(ptsKind, this::getObject);
+    }
+
+    private <K1, K2, V> TwoKeyMap<K1, K2, V> newTwoKeyMap() {
+        return concurrent ?
+                new MapMapTwoKeyMap<>(Maps.newConcurrentMap(), Maps::newConcurrentMap) :
+                Maps.newTwoKeyMap();
+    }
+
+    /**
+     * Retrieves the element of given keys from given map, or creates
+     * the element by given function if it is absent. For concurrent
+     * manager, the creation is synchronized on the map, so that each
+     * element is created exactly once.
+     */
+    private <K1, K2, V> V computeIfAbsent(TwoKeyMap<K1, K2, V> map,
+                                          K1 key1, K2 key2,
+                                          BiFunction<K1, K2, V> function) {
+        if (!concurrent) {
+            return map.computeIfAbsent(key1, key2, function);
+        }
+        V value = map.get(key1, key2);
+        if (value == null) {
+            synchronized (map) {
+                value = map.computeIfAbsent(key1, key2, function);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        return computeIfAbsent(vars, var, context,
+                (v, c) -> initializePointsToSet(CSVar.of(v, c, nextPointerIndex())));
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        return computeIfAbsent(objs, obj, heapContext, (o, c) -> {
+            CSObj csObj = new CSObj(o, c, objList.size());
+            objList.add(csObj);
+            return csObj;
+        });
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        return computeIfAbsent(callSites, callSite, context,
+                (cs, c) -> new CSCallSite(cs, c, callSiteCounter.getAndIncrement()));
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        return computeIfAbsent(methods, method, context,
+                (m, c) -> new CSMethod(m, c, methodCounter.getAndIncrement()));
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return staticFields.computeIfAbsent(field,
+                f -> initializePointsToSet(StaticField.of(f, nextPointerIndex())));
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        return computeIfAbsent(instanceFields, base, field,
+                (b, f) -> initializePointsToSet(
+                        InstanceField.of(b, f, nextPointerIndex())));
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        return arrayIndexes.computeIfAbsent(array,
+                a -> initializePointsToSet(ArrayIndex.of(a, nextPointerIndex())));
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return vars.keySet();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        Map<Context, CSVar> csVars = vars.get(var);
+        return csVars != null ? csVars.values() : Set.of();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return vars.values();
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return Collections.unmodifiableList(objList);
+    }
+
+    @Override
+    public CSObj getObject(int index) {
+        return objList.get(index);
+    }
+
+    @Override
+    public PointsToSetFactory getPointsToSetFactory() {
+        return ptsFactory;
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableCollection(staticFields.values());
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return instanceFields.values();
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Collections.unmodifiableCollection(arrayIndexes.values());
+    }
+
+    private int nextPointerIndex() {
+        return pointerCounter.getAndIncrement();
+    }
+
+    private <P extends Pointer> P initializePointsToSet(P pointer) {
+        pointer.setPointsToSet(ptsFactory.make());
+        return pointer;
+    }
+}
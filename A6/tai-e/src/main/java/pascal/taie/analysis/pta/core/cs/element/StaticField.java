@@ -22,34 +22,65 @@
 
 package pascal.taie.analysis.pta.core.cs.element;
 
+import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.type.Type;
 
 /**
  * Represents static field pointers.
  */
-public class StaticField extends AbstractPointer {
+public abstract class StaticField extends AbstractPointer {
 
-    private final JField field;
+    StaticField(int index) {
+        super(index);
+    }
 
-    StaticField(JField field) {
-        this.field = field;
+    /**
+     * @return a static field pointer which holds its field and points-to set.
+     */
+    static StaticField of(JField field, int index) {
+        return new Impl(field, index);
     }
 
     /**
      * @return the corresponding static field of the StaticField pointer.
      */
-    public JField getField() {
-        return field;
-    }
+    public abstract JField getField();
 
     @Override
     public Type getType() {
-        return field.getType();
+        return getField().getType();
     }
 
     @Override
     public String toString() {
-        return field.toString();
+        return getField().toString();
+    }
+
+    private static class Impl extends StaticField {
+
+        private final JField field;
+
+        private PointsToSet pointsToSet;
+
+        private Impl(JField field, int index) {
+            super(index);
+            this.field = field;
+        }
+
+        @Override
+        public JField getField() {
+            return field;
+        }
+
+        @Override
+        public PointsToSet getPointsToSet() {
+            return pointsToSet;
+        }
+
+        @Override
+        public void setPointsToSet(PointsToSet pointsToSet) {
+            this.pointsToSet = pointsToSet;
+        }
     }
 }
@@ -0,0 +1,142 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Context selector that applies a k-limiting variant to all methods,
+ * and allows the solver to degrade individual methods to shallower
+ * context sensitivity, e.g., under memory pressure. A method of a
+ * 2-limiting variant is first degraded to the 1-limiting variant of the
+ * same kind of context elements, e.g., 2-call to 1-call, and then to
+ * context insensitivity; a method of a 1-limiting variant is degraded
+ * to context insensitivity directly.
+ * <p>
+ * Degradation only affects the contexts selected afterwards, and the
+ * contexts selected before are kept, thus the analysis stays sound.
+ * All variants create contexts by one factory, so the contexts are
+ * shared among the methods of different depths.
+ */
+public class DegradableSelector implements ContextSelector {
+
+    private final TrieContext.Factory<Object> factory = new TrieContext.Factory<>();
+
+    /**
+     * Selectors of the depths from the deepest to the shallowest,
+     * where the last one (null) means context insensitivity.
+     */
+    private final ContextSelector[] depths;
+
+    /**
+     * Map from each degraded method to the index of its current depth.
+     */
+    private final Map<JMethod, Integer> degraded = Maps.newConcurrentMap();
+
+    /**
+     * @param variant the k-limiting variant applied to the methods
+     *                that are not degraded, e.g., "2-obj".
+     */
+    public DegradableSelector(String variant) {
+        ContextSelector base = GuidedSelector.makeSelector(variant, factory);
+        if (variant.startsWith("2-")) {
+            ContextSelector shorter = GuidedSelector.makeSelector(
+                    "1-" + variant.substring(2), factory);
+            depths = new ContextSelector[]{ base, shorter, null };
+        } else {
+            depths = new ContextSelector[]{ base, null };
+        }
+    }
+
+    /**
+     * Degrades the context sensitivity of given method by one level.
+     *
+     * @return {@code true} if the method is degraded, or {@code false}
+     * if it is already context-insensitive.
+     */
+    public boolean degrade(JMethod method) {
+        int depth = degraded.getOrDefault(method, 0);
+        if (depth == depths.length - 1) {
+            return false;
+        }
+        degraded.put(method, depth + 1);
+        return true;
+    }
+
+    /**
+     * @return {@code true} if given method has not been degraded to
+     * context insensitivity.
+     */
+    public boolean isDegradable(JMethod method) {
+        return getSelector(method) != null;
+    }
+
+    /**
+     * @return the methods that have been degraded.
+     */
+    public Set<JMethod> getDegradedMethods() {
+        return Collections.unmodifiableSet(degraded.keySet());
+    }
+
+    private ContextSelector getSelector(JMethod method) {
+        return depths[degraded.getOrDefault(method, 0)];
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return factory.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        ContextSelector selector = getSelector(callee);
+        return selector != null ?
+                selector.selectContext(callSite, callee) : getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        ContextSelector selector = getSelector(callee);
+        return selector != null ?
+                selector.selectContext(callSite, recv, callee) : getEmptyContext();
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        ContextSelector selector = getSelector(method.getMethod());
+        return selector != null ?
+                selector.selectHeapContext(method, obj) : getEmptyContext();
+    }
+}
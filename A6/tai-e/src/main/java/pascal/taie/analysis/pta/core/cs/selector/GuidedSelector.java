@@ -0,0 +1,117 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Context selector that applies different context sensitivity variants
+ * to different methods, e.g., as guided by a pre-analysis. The contexts
+ * of a method are selected by the variant of the method, and the heap
+ * contexts of an object are selected by the variant of the method that
+ * allocates the object. The methods without variants are analyzed
+ * context-insensitively.
+ * <p>
+ * All variants create contexts by one factory, so the contexts are
+ * shared among the methods of different variants.
+ */
+public class GuidedSelector implements ContextSelector {
+
+    private final TrieContext.Factory<Object> factory = new TrieContext.Factory<>();
+
+    /**
+     * Map from each method to the selector of its variant.
+     */
+    private final Map<JMethod, ContextSelector> selectors;
+
+    /**
+     * @param csMap map from methods to their context sensitivity variants,
+     *              e.g., "ci", "2-obj" and "1-type".
+     */
+    public GuidedSelector(Map<JMethod, String> csMap) {
+        Map<String, ContextSelector> variants = Maps.newMap();
+        selectors = Maps.newMap(csMap.size());
+        csMap.forEach((method, variant) -> {
+            if (!variant.equals("ci")) {
+                selectors.put(method,
+                        variants.computeIfAbsent(variant,
+                                v -> makeSelector(v, factory)));
+            }
+        });
+    }
+
+    /**
+     * Creates the selector of given k-limiting variant that creates
+     * contexts by the given factory.
+     */
+    static ContextSelector makeSelector(
+            String variant, TrieContext.Factory<Object> factory) {
+        return switch (variant) {
+            case "1-call" -> new _1CallSelector(factory);
+            case "1-obj" -> new _1ObjSelector(factory);
+            case "1-type" -> new _1TypeSelector(factory);
+            case "2-call" -> new _2CallSelector(factory);
+            case "2-obj" -> new _2ObjSelector(factory);
+            case "2-type" -> new _2TypeSelector(factory);
+            default -> throw new ConfigException(
+                    "Unexpected context-sensitivity variant: " + variant);
+        };
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return factory.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        ContextSelector selector = selectors.get(callee);
+        return selector != null ?
+                selector.selectContext(callSite, callee) : getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        ContextSelector selector = selectors.get(callee);
+        return selector != null ?
+                selector.selectContext(callSite, recv, callee) : getEmptyContext();
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        ContextSelector selector = selectors.get(method.getMethod());
+        return selector != null ?
+                selector.selectHeapContext(method, obj) : getEmptyContext();
+    }
+}
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,19 +36,28 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2CallSelector implements ContextSelector {
 
+    private final TrieContext.Factory<? super Invoke> factory;
+
+    public _2CallSelector() {
+        this(new TrieContext.Factory<Invoke>());
+    }
+
+    /**
+     * @param factory the factory of the contexts, which may be shared
+     *                with other selectors.
+     */
+    public _2CallSelector(TrieContext.Factory<? super Invoke> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
-        var old = callSite.getContext();
-        if (old.getLength() > 0){
-            return ListContext.make(old.getElementAt(old.getLength() - 1), callSite.getCallSite());
-        }else{
-            return ListContext.make(callSite.getCallSite());
-        }
+        return factory.append(callSite.getContext(), callSite.getCallSite(), 2);
     }
 
     @Override
@@ -58,10 +67,6 @@ public class _2CallSelector implements ContextSelector {
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
-        Context oldContext = method.getContext();
-        if(oldContext.getLength() >= 2){
-            return ListContext.make(oldContext.getElementAt(oldContext.getLength() - 1));
-        }
-        return oldContext;
+        return factory.makeLastK(method.getContext(), 1);
     }
 }
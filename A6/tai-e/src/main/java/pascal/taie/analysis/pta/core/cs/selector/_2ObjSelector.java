@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,9 +35,23 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2ObjSelector implements ContextSelector {
 
+    private final TrieContext.Factory<? super Obj> factory;
+
+    public _2ObjSelector() {
+        this(new TrieContext.Factory<Obj>());
+    }
+
+    /**
+     * @param factory the factory of the contexts, which may be shared
+     *                with other selectors.
+     */
+    public _2ObjSelector(TrieContext.Factory<? super Obj> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -47,19 +61,11 @@ public class _2ObjSelector implements ContextSelector {
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
-        var old = recv.getContext();
-        if(old.getLength() >= 1){
-            return ListContext.make(old.getElementAt(old.getLength() - 1), recv.getObject());
-        }
-        return ListContext.make(recv.getObject());
+        return factory.append(recv.getContext(), recv.getObject(), 2);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
-        var old = method.getContext();
-        if(old.getLength() >= 2){
-            return ListContext.make(old.getElementAt(old.getLength() - 1));
-        }
-        return old;
+        return factory.makeLastK(method.getContext(), 1);
     }
 }
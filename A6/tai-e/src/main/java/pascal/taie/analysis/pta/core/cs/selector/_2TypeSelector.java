@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,9 +36,23 @@ import pascal.taie.language.type.Type;
  */
 public class _2TypeSelector implements ContextSelector {
 
+    private final TrieContext.Factory<? super Type> factory;
+
+    public _2TypeSelector() {
+        this(new TrieContext.Factory<Type>());
+    }
+
+    /**
+     * @param factory the factory of the contexts, which may be shared
+     *                with other selectors.
+     */
+    public _2TypeSelector(TrieContext.Factory<? super Type> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -48,19 +62,12 @@ public class _2TypeSelector implements ContextSelector {
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
-        var old = recv.getContext();
-        if(old.getLength() >= 1){
-            return ListContext.make(old.getElementAt(old.getLength() - 1), recv.getObject().getContainerType());
-        }
-        return ListContext.make(recv.getObject().getContainerType());
+        return factory.append(recv.getContext(),
+                recv.getObject().getContainerType(), 2);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
-        var old = method.getContext();
-        if(old.getLength() >= 2){
-            return ListContext.make(old.getElementAt(old.getLength() - 1));
-        }
-        return old;
+        return factory.makeLastK(method.getContext(), 1);
     }
 }
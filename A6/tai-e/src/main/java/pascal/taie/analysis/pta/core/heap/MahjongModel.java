@@ -0,0 +1,71 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.heap;
+
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Heap model that merges the objects of given groups of allocation
+ * sites, e.g., the type-consistent objects found by
+ * {@link pascal.taie.analysis.pta.toolkit.mahjong.Mahjong}.
+ * The objects of other allocation sites are allocation-site-based.
+ */
+public class MahjongModel extends AbstractHeapModel {
+
+    /**
+     * Map from each merged allocation site to the object of its group.
+     */
+    private final Map<New, MergedObj> mergedObjs = Maps.newMap();
+
+    /**
+     * @param groups groups of allocation sites, the objects of each group
+     *               are merged into one object, which is named after the
+     *               first allocation site of the group.
+     */
+    public MahjongModel(AnalysisOptions options,
+                        Collection<? extends Collection<New>> groups) {
+        super(options);
+        for (Collection<New> group : groups) {
+            New first = group.iterator().next();
+            MergedObj merged = new MergedObj(first.getRValue().getType(),
+                    getNewObj(first).toString());
+            group.forEach(allocSite -> mergedObjs.put(allocSite, merged));
+        }
+    }
+
+    @Override
+    protected Obj doGetObj(New allocSite) {
+        MergedObj merged = mergedObjs.get(allocSite);
+        if (merged != null) {
+            merged.addRepresentedObj(getNewObj(allocSite));
+            return merged;
+        }
+        return getNewObj(allocSite);
+    }
+}
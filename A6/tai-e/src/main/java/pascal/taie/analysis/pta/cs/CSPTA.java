@@ -22,19 +22,33 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.DegradableSelector;
+import pascal.taie.analysis.pta.core.cs.selector.GuidedSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.AllocationTypeBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.MahjongModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.toolkit.mahjong.Mahjong;
+import pascal.taie.analysis.pta.toolkit.scaler.Scaler;
+import pascal.taie.analysis.pta.toolkit.zipper.Zipper;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.Strings;
+import pascal.taie.util.collection.Maps;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.Map;
 
 /**
  * Context-sensitive pointer analysis.
@@ -43,6 +57,8 @@ public class CSPTA extends ProgramAnalysis {
 
     public static final String ID = "cspta";
 
+    private static final Logger logger = LogManager.getLogger(CSPTA.class);
+
     public CSPTA(AnalysisConfig config) {
         super(config);
     }
@@ -50,16 +66,96 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
-        solver.solve();
+        HeapModel heapModel = makeHeapModel(options);
+        ContextSelector contextSelector = makeContextSelector(options, heapModel);
+        Solver solver = new Solver(options, heapModel, contextSelector);
+        String stateFile = options.getString("incremental-state");
+        if (stateFile != null) {
+            // the state of a previous run is reused only if the objects
+            // and contexts are the same, which is not guaranteed for
+            // the ones derived from a pre-analysis or memory pressure
+            if (heapModel instanceof MahjongModel ||
+                    contextSelector instanceof GuidedSelector ||
+                    contextSelector instanceof DegradableSelector) {
+                throw new ConfigException("Incremental solving does not support " +
+                        "Mahjong, Zipper, Scaler or memory threshold");
+            }
+            solver.solveIncrementally(Path.of(stateFile));
+        } else {
+            solver.solve();
+        }
         PointerAnalysisResult result = solver.getResult();
         ResultProcessor.process(options, result);
         return result;
     }
 
-    private static ContextSelector getContextSelector(String cs) {
+    /**
+     * Creates the heap model specified by option "heap-model".
+     * Mahjong merges objects based on a context-insensitive pre-analysis
+     * with allocation-site-based heap model.
+     */
+    static HeapModel makeHeapModel(AnalysisOptions options) {
+        String kind = options.getString("heap-model");
+        if (kind == null || kind.equals("allocation-site")) {
+            return new AllocationSiteBasedModel(options);
+        } else if (kind.equals("allocation-type")) {
+            return new AllocationTypeBasedModel(options);
+        } else if (kind.equals("mahjong")) {
+            Mahjong mahjong = new Mahjong(runPreAnalysis(
+                    options, new AllocationSiteBasedModel(options)));
+            return new MahjongModel(options, mahjong.mergeTypeConsistentObjects());
+        } else {
+            throw new ConfigException("Unknown heap model: " + kind);
+        }
+    }
+
+    /**
+     * Creates the context selector specified by options "cs", "zipper"
+     * and "memory-threshold". Scaler and Zipper select the context
+     * sensitivity of each method based on a context-insensitive
+     * pre-analysis. With a memory threshold, the selector can be degraded
+     * by the solver under memory pressure.
+     */
+    static ContextSelector makeContextSelector(
+            AnalysisOptions options, HeapModel heapModel) {
+        String cs = options.getString("cs");
+        if (options.get("memory-threshold") != null &&
+                options.getInt("memory-threshold") > 0) {
+            if (cs.equals("ci") || cs.equals("scaler") ||
+                    options.getBooleanOrDefault("zipper", false)) {
+                throw new ConfigException(
+                        "Memory threshold only supports k-limiting cs, given: " + cs);
+            }
+            return new DegradableSelector(cs);
+        } else if (options.getBooleanOrDefault("zipper", false)) {
+            if (cs.equals("ci") || cs.equals("scaler")) {
+                throw new ConfigException("Zipper does not support cs: " + cs);
+            }
+            Zipper zipper = new Zipper(runPreAnalysis(options, heapModel));
+            Map<JMethod, String> csMap = Maps.newMap();
+            zipper.selectPrecisionCriticalMethods()
+                    .forEach(method -> csMap.put(method, cs));
+            return new GuidedSelector(csMap);
+        } else if (cs.equals("scaler")) {
+            PointerAnalysisResult preResult = runPreAnalysis(options, heapModel);
+            Scaler scaler = options.get("scaler-tst") != null ?
+                    new Scaler(preResult, options.getInt("scaler-tst")) :
+                    new Scaler(preResult);
+            return new GuidedSelector(scaler.selectContext());
+        } else {
+            return getContextSelector(cs);
+        }
+    }
+
+    static PointerAnalysisResult runPreAnalysis(
+            AnalysisOptions options, HeapModel heapModel) {
+        logger.info("Running context-insensitive pre-analysis");
+        Solver preSolver = new Solver(options, heapModel, new CISelector());
+        preSolver.solve();
+        return preSolver.getResult();
+    }
+
+    static ContextSelector getContextSelector(String cs) {
         if (cs.equals("ci")) {
             return new CISelector();
         } else {
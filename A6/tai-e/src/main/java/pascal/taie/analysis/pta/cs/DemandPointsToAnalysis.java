@@ -0,0 +1,418 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Demand-driven pointer analysis, which answers the points-to set of
+ * a single variable by exploring only the pointer flows that reach the
+ * variable, in the style of refinement-based analysis by Sridharan and
+ * Bodik (PLDI'06).
+ * <p>
+ * The analysis starts from a context-insensitive pre-analysis, whose
+ * call graph bounds the explored flows and whose points-to sets are
+ * the fallback answers. For each query, the flows are explored backward
+ * from the variable with the statement semantics of {@link Solver},
+ * and refined in two ways:
+ * <ul>
+ *     <li>the parameters and return values are matched by call sites
+ *     (CFL-reachability of balanced calls and returns), where the call
+ *     stacks are limited to the k of the context sensitivity variant.</li>
+ *     <li>the values stored to a field (or an array) of an object only
+ *     flow to the loads if the base of the store may point to the object
+ *     by the refined points-to set, and the callees of an instance call
+ *     are resolved by the refined points-to set of its receiver.</li>
+ * </ul>
+ * The points-to set explored for a query is no larger than the
+ * context-insensitive one. If a query exceeds its budget, i.e.,
+ * the number of steps of exploring and propagating, the analysis
+ * falls back to the context-insensitive answer.
+ */
+public class DemandPointsToAnalysis {
+
+    private static final Logger logger = LogManager.getLogger(DemandPointsToAnalysis.class);
+
+    private static final int DEFAULT_BUDGET = 100000;
+
+    private final HeapModel heapModel;
+
+    private final PointerAnalysisResult ciResult;
+
+    private final CallGraph<Invoke, JMethod> callGraph;
+
+    /**
+     * Maximum depth of call stacks.
+     */
+    private final int k;
+
+    /**
+     * Maximum number of steps of each query.
+     */
+    private final int budget;
+
+    /**
+     * Statements that define each variable, i.e.,
+     * new, copy, field/array load and invocation.
+     */
+    private final MultiMap<Var, Stmt> definitions = Maps.newMultiMap();
+
+    private final MultiMap<JField, StoreField> fieldStores = Maps.newMultiMap();
+
+    private final List<StoreArray> arrayStores = new ArrayList<>();
+
+    private final Map<Var, Set<Obj>> answers = Maps.newMap();
+
+    private int fallbacks;
+
+    /**
+     * Creates the analysis with options "cs", "demand-budget" and the
+     * options of the heap model, which runs the pre-analysis.
+     * The analysis is used by clients via this constructor rather than
+     * run in the plan, thus "demand-budget" is given by the options
+     * of clients, e.g., {@code Map.of("demand-budget", 1000)}, and is
+     * {@value #DEFAULT_BUDGET} by default.
+     */
+    public DemandPointsToAnalysis(AnalysisOptions options) {
+        this.heapModel = new AllocationSiteBasedModel(options);
+        this.ciResult = CSPTA.runPreAnalysis(options, heapModel);
+        this.callGraph = ciResult.getCallGraph();
+        String cs = options.getString("cs");
+        this.k = cs == null || !Character.isDigit(cs.charAt(0)) ?
+                0 : Character.digit(cs.charAt(0), 10);
+        this.budget = options.get("demand-budget") != null ?
+                options.getInt("demand-budget") : DEFAULT_BUDGET;
+        callGraph.reachableMethods().forEach(this::indexStatements);
+    }
+
+    private void indexStatements(JMethod method) {
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof New || stmt instanceof Copy ||
+                    stmt instanceof LoadField || stmt instanceof LoadArray) {
+                stmt.getDef().ifPresent(lhs -> definitions.put((Var) lhs, stmt));
+            } else if (stmt instanceof Invoke invoke && invoke.getLValue() != null) {
+                definitions.put(invoke.getLValue(), invoke);
+            } else if (stmt instanceof StoreField store) {
+                fieldStores.put(store.getFieldRef().resolve(), store);
+            } else if (stmt instanceof StoreArray store) {
+                arrayStores.add(store);
+            }
+        }
+    }
+
+    /**
+     * @return the points-to set of given variable in all contexts.
+     */
+    public Set<Obj> getPointsToSet(Var var) {
+        return answers.computeIfAbsent(var, v -> {
+            if (!callGraph.contains(v.getMethod())) {
+                return Set.of();
+            }
+            Set<Obj> pts = new Query().solve(v);
+            if (pts == null) {
+                ++fallbacks;
+                logger.debug("Query of {} exceeds the budget, falls back to CI", v);
+                return ciResult.getPointsToSet(v);
+            }
+            return Collections.unmodifiableSet(pts);
+        });
+    }
+
+    /**
+     * @return the number of queries that exceeded the budget.
+     */
+    public int getNumberOfFallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * Call stack of a variable, i.e., the unmatched call sites through
+     * which the values flow back from callees, with the latest on top.
+     * The stack keeps at most k call sites, and the flows to the callers
+     * beyond the stack are unmatched, which is sound.
+     */
+    private record CallStack(List<Invoke> callSites) {
+
+        private static final CallStack EMPTY = new CallStack(List.of());
+
+        private CallStack push(Invoke callSite, int k) {
+            if (k == 0) {
+                return this;
+            }
+            List<Invoke> sites = new ArrayList<>(callSites.size() + 1);
+            sites.addAll(callSites.size() < k ?
+                    callSites : callSites.subList(1, callSites.size()));
+            sites.add(callSite);
+            return new CallStack(List.copyOf(sites));
+        }
+
+        private Invoke top() {
+            return callSites.isEmpty() ? null : callSites.get(callSites.size() - 1);
+        }
+
+        private CallStack pop() {
+            return new CallStack(callSites.subList(0, callSites.size() - 1));
+        }
+    }
+
+    private sealed interface Node {
+    }
+
+    private record VarNode(Var var, CallStack stack) implements Node {
+    }
+
+    private record StaticFieldNode(JField field) implements Node {
+    }
+
+    private record InstanceFieldNode(Obj base, JField field) implements Node {
+    }
+
+    private record ArrayIndexNode(Obj base) implements Node {
+    }
+
+    /**
+     * State of a single query. Nodes are demanded backward from the query
+     * variable, and the objects are propagated forward along the edges
+     * into the demanded nodes.
+     */
+    private class Query {
+
+        private final Map<Node, Set<Obj>> pointsTo = Maps.newMap();
+
+        private final MultiMap<Node, Node> succs = Maps.newMultiMap();
+
+        /**
+         * Actions on the new objects of each node, e.g., resolving callees
+         * on a receiver and connecting fields on a base variable.
+         */
+        private final MultiMap<Node, Consumer<Obj>> observers = Maps.newMultiMap();
+
+        private final Queue<Node> nodes = new ArrayDeque<>();
+
+        private final Queue<Obj> objs = new ArrayDeque<>();
+
+        private int steps;
+
+        /**
+         * @return the points-to set of given variable,
+         * or null if the query exceeds the budget.
+         */
+        private Set<Obj> solve(Var var) {
+            VarNode query = new VarNode(var, CallStack.EMPTY);
+            demand(query);
+            while (!nodes.isEmpty()) {
+                if (++steps > budget) {
+                    return null;
+                }
+                Node node = nodes.poll();
+                Obj obj = objs.poll();
+                if (pointsTo.get(node).add(obj)) {
+                    succs.get(node).forEach(succ -> addObject(succ, obj));
+                    List.copyOf(observers.get(node)).forEach(o -> o.accept(obj));
+                }
+            }
+            return pointsTo.get(query);
+        }
+
+        private void addObject(Node node, Obj obj) {
+            nodes.add(node);
+            objs.add(obj);
+        }
+
+        private void addEdge(Node source, Node target) {
+            demand(source);
+            if (succs.put(source, target)) {
+                pointsTo.get(source).forEach(obj -> addObject(target, obj));
+            }
+        }
+
+        private void observe(Node node, Consumer<Obj> observer) {
+            demand(node);
+            observers.put(node, observer);
+            List.copyOf(pointsTo.get(node)).forEach(observer);
+        }
+
+        /**
+         * Adds the edges into given node when it is first demanded.
+         */
+        private void demand(Node node) {
+            if (pointsTo.containsKey(node)) {
+                return;
+            }
+            ++steps;
+            pointsTo.put(node, Sets.newHybridSet());
+            if (node instanceof VarNode varNode) {
+                demandVar(varNode);
+            } else if (node instanceof StaticFieldNode sfNode) {
+                fieldStores.get(sfNode.field()).forEach(store -> {
+                    if (store.isStatic()) {
+                        addEdge(new VarNode(store.getRValue(), CallStack.EMPTY), node);
+                    }
+                });
+            } else if (node instanceof InstanceFieldNode ifNode) {
+                fieldStores.get(ifNode.field()).forEach(store -> {
+                    if (!store.isStatic()) {
+                        Var base = ((InstanceFieldAccess) store.getFieldAccess()).getBase();
+                        storeIfPointsTo(ifNode.base(), base, store.getRValue(), node);
+                    }
+                });
+            } else if (node instanceof ArrayIndexNode aiNode) {
+                arrayStores.forEach(store -> storeIfPointsTo(aiNode.base(),
+                        store.getArrayAccess().getBase(), store.getRValue(), node));
+            }
+        }
+
+        /**
+         * Adds edge from value to target if base may point to obj.
+         */
+        private void storeIfPointsTo(Obj obj, Var base, Var value, Node target) {
+            observe(new VarNode(base, CallStack.EMPTY), o -> {
+                if (o.equals(obj)) {
+                    addEdge(new VarNode(value, CallStack.EMPTY), target);
+                }
+            });
+        }
+
+        private void demandVar(VarNode node) {
+            Var var = node.var();
+            CallStack stack = node.stack();
+            for (Stmt stmt : definitions.get(var)) {
+                if (stmt instanceof New newStmt) {
+                    addObject(node, heapModel.getObj(newStmt));
+                } else if (stmt instanceof Copy copy) {
+                    addEdge(new VarNode(copy.getRValue(), stack), node);
+                } else if (stmt instanceof LoadField load) {
+                    JField field = load.getFieldRef().resolve();
+                    if (load.isStatic()) {
+                        addEdge(new StaticFieldNode(field), node);
+                    } else {
+                        Var base = ((InstanceFieldAccess) load.getFieldAccess()).getBase();
+                        observe(new VarNode(base, stack), o ->
+                                addEdge(new InstanceFieldNode(o, field), node));
+                    }
+                } else if (stmt instanceof LoadArray load) {
+                    Var base = load.getArrayAccess().getBase();
+                    observe(new VarNode(base, stack), o ->
+                            addEdge(new ArrayIndexNode(o), node));
+                } else if (stmt instanceof Invoke invoke) {
+                    for (JMethod callee : callGraph.getCalleesOf(invoke)) {
+                        CallStack calleeStack = stack.push(invoke, k);
+                        onCallEdge(invoke, stack, callee, () -> {
+                            for (Var ret : callee.getIR().getReturnVars()) {
+                                addEdge(new VarNode(ret, calleeStack), node);
+                            }
+                        });
+                    }
+                }
+            }
+            IR ir = var.getMethod().getIR();
+            int index = ir.getParams().indexOf(var);
+            if (index >= 0 || var.equals(ir.getThis())) {
+                Invoke top = stack.top();
+                if (top != null) {
+                    demandParam(node, index, top, stack.pop());
+                } else {
+                    for (Invoke callSite : callGraph.getCallersOf(var.getMethod())) {
+                        demandParam(node, index, callSite, CallStack.EMPTY);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the flows from call site to the parameter (or this variable
+         * if index is -1) of the callee.
+         */
+        private void demandParam(VarNode param, int index,
+                                 Invoke callSite, CallStack callerStack) {
+            JMethod callee = param.var().getMethod();
+            if (index >= 0) {
+                Var arg = callSite.getInvokeExp().getArg(index);
+                onCallEdge(callSite, callerStack, callee, () ->
+                        addEdge(new VarNode(arg, callerStack), param));
+            } else {
+                Var recv = ((InvokeInstanceExp) callSite.getInvokeExp()).getBase();
+                observe(new VarNode(recv, callerStack), o -> {
+                    if (callee.equals(CallGraphs.resolveCallee(o.getType(), callSite))) {
+                        addObject(param, o);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Runs action once the call edge from call site to callee is
+         * confirmed by the refined points-to set of the receiver.
+         */
+        private void onCallEdge(Invoke callSite, CallStack callerStack,
+                                JMethod callee, Runnable action) {
+            if (callSite.getInvokeExp() instanceof InvokeInstanceExp instanceExp) {
+                boolean[] confirmed = { false };
+                observe(new VarNode(instanceExp.getBase(), callerStack), o -> {
+                    if (!confirmed[0] &&
+                            callee.equals(CallGraphs.resolveCallee(o.getType(), callSite))) {
+                        confirmed[0] = true;
+                        action.run();
+                    }
+                });
+            } else {
+                action.run();
+            }
+        }
+    }
+}
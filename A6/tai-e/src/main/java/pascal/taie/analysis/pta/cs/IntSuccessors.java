@@ -0,0 +1,195 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Successor sets of PFG nodes in primitive arrays, indexed by the
+ * indexes of the source pointers. Row i holds the successors of
+ * pointer i: row[0] is the number of successors, and the successors
+ * are stored as index + 1 in the rest of the row. A small row is a list
+ * that is searched linearly; a row with more than {@link #LINEAR_LIMIT}
+ * successors is an open-addressing hash set, where 0 is an empty slot.
+ */
+class IntSuccessors {
+
+    private static final int LINEAR_LIMIT = 16;
+
+    private int[][] rows = new int[16][];
+
+    /**
+     * Adds target to the successors of source.
+     *
+     * @return true if the successors changed as a result of the call.
+     */
+    boolean add(int source, int target) {
+        if (source >= rows.length) {
+            rows = Arrays.copyOf(rows, Math.max(source + 1, rows.length * 2));
+        }
+        int[] row = rows[source];
+        if (row == null) {
+            row = new int[4];
+            rows[source] = row;
+        }
+        int value = target + 1;
+        int size = row[0];
+        if (size < LINEAR_LIMIT) {
+            for (int i = 1; i <= size; ++i) {
+                if (row[i] == value) {
+                    return false;
+                }
+            }
+            if (size + 1 == row.length) {
+                row = Arrays.copyOf(row, row.length * 2);
+                rows[source] = row;
+            }
+            row[size + 1] = value;
+            row[0] = size + 1;
+            if (size + 1 == LINEAR_LIMIT) {
+                rows[source] = rehash(row, LINEAR_LIMIT, 4 * LINEAR_LIMIT);
+            }
+            return true;
+        }
+        if (!insert(row, value)) {
+            return false;
+        }
+        ++row[0];
+        if (row[0] * 2 > row.length - 1) {
+            rows[source] = rehash(row, row.length - 1, (row.length - 1) * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return an upper bound (exclusive) of the indexes of the sources.
+     */
+    int getSourceBound() {
+        return rows.length;
+    }
+
+    /**
+     * @return the number of successors of given source.
+     */
+    int size(int source) {
+        int[] row = source < rows.length ? rows[source] : null;
+        return row == null ? 0 : row[0];
+    }
+
+    /**
+     * Performs given action for each successor of given source.
+     */
+    void forEach(int source, IntConsumer action) {
+        int[] row = source < rows.length ? rows[source] : null;
+        if (row == null) {
+            return;
+        }
+        int end = row[0] < LINEAR_LIMIT ? row[0] : row.length - 1;
+        for (int i = 1; i <= end; ++i) {
+            if (row[i] != 0) {
+                action.accept(row[i] - 1);
+            }
+        }
+    }
+
+    /**
+     * @return an iterator over the successors of given source, which
+     * walks the row of the source without copying it. The successors
+     * must not be added to while iterating.
+     */
+    PrimitiveIterator.OfInt iterator(int source) {
+        int[] row = source < rows.length && rows[source] != null ?
+                rows[source] : new int[1];
+        int end = row[0] < LINEAR_LIMIT ? row[0] : row.length - 1;
+        return new PrimitiveIterator.OfInt() {
+
+            private int next = advance(1);
+
+            @Override
+            public boolean hasNext() {
+                return next <= end;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int value = row[next] - 1;
+                next = advance(next + 1);
+                return value;
+            }
+
+            /**
+             * @return the first non-empty slot from i, or end + 1.
+             */
+            private int advance(int i) {
+                while (i <= end && row[i] == 0) {
+                    ++i;
+                }
+                return i;
+            }
+        };
+    }
+
+    /**
+     * @return a hash row of given capacity (power of 2)
+     * which holds the values in slots [1, end] of given row.
+     */
+    private static int[] rehash(int[] row, int end, int capacity) {
+        int[] newRow = new int[capacity + 1];
+        newRow[0] = row[0];
+        for (int i = 1; i <= end; ++i) {
+            if (row[i] != 0) {
+                insert(newRow, row[i]);
+            }
+        }
+        return newRow;
+    }
+
+    /**
+     * Inserts value to hash row by linear probing.
+     *
+     * @return false if the value is already in the row.
+     */
+    private static boolean insert(int[] row, int value) {
+        int mask = row.length - 2;
+        for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+            if (row[i + 1] == value) {
+                return false;
+            } else if (row[i + 1] == 0) {
+                row[i + 1] = value;
+                return true;
+            }
+        }
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Least-recently-fired strategy, which processes first the entries
+ * whose pointers have not been processed for the longest time.
+ */
+class LRFStrategy extends PriorityStrategy {
+
+    /**
+     * Map from each pointer to the last time it was processed.
+     */
+    private final Map<Pointer, Long> lastFired = Maps.newMap();
+
+    private long time = 0;
+
+    @Override
+    public WorkList.Entry poll() {
+        WorkList.Entry entry = super.poll();
+        if (entry != null) {
+            lastFired.put(entry.pointer(), time++);
+        }
+        return entry;
+    }
+
+    @Override
+    protected long getPriority(Pointer pointer) {
+        // pointers that have never been processed come first
+        return lastFired.getOrDefault(pointer, -1L);
+    }
+
+    @Override
+    public String getName() {
+        return "lrf";
+    }
+}
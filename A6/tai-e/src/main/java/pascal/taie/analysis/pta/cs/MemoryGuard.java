@@ -0,0 +1,212 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.selector.DegradableSelector;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Monitors the heap usage during solving, and degrades the context
+ * sensitivity of the heaviest methods, i.e., the methods analyzed in
+ * the most contexts, when the usage exceeds a threshold.
+ * <p>
+ * The usage is measured after the most recent garbage collection (see
+ * {@link MemoryPoolMXBean#getCollectionUsage()}), so garbage does not
+ * trigger degradation, and it is only re-checked after a new collection.
+ * After degrading, the guard is re-armed when the usage falls below
+ * the low-water mark, or after a minimum interval, so that the effect
+ * of a degradation is observed before the next one.
+ * <p>
+ * The source of the usage and the clock can be given to the guard,
+ * e.g., to simulate memory pressure in tests.
+ */
+class MemoryGuard {
+
+    private static final Logger logger = LogManager.getLogger(MemoryGuard.class);
+
+    /**
+     * Fraction of the degradable reachable methods degraded at a time.
+     */
+    private static final double DEGRADE_RATIO = 0.1;
+
+    /**
+     * Fraction of the threshold below which the guard is re-armed.
+     */
+    private static final double LOW_WATER_RATIO = 0.9;
+
+    /**
+     * Minimum interval (in nanoseconds) between two degradations
+     * if the usage does not fall below the low-water mark.
+     */
+    private static final long MIN_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final DegradableSelector selector;
+
+    /**
+     * Heap usage (in bytes) above which methods are degraded.
+     */
+    private final long threshold;
+
+    /**
+     * Source of the heap usage, which returns the usage measured since
+     * its previous call, or a negative value if it has not been measured
+     * again.
+     */
+    private final LongSupplier usage;
+
+    /**
+     * Clock of the interval between degradations, in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Whether the guard may degrade methods, which is false
+     * after degrading until it is re-armed.
+     */
+    private boolean armed = true;
+
+    /**
+     * Time (from {@link #clock}) of the last degradation.
+     */
+    private long lastDegradeTime;
+
+    /**
+     * @param percent threshold in percentage of the maximum heap size.
+     */
+    MemoryGuard(DegradableSelector selector, int percent) {
+        this(selector, getMaxHeap() / 100 * percent,
+                new CollectionUsage(), System::nanoTime);
+    }
+
+    /**
+     * @param threshold heap usage (in bytes) above which methods are degraded.
+     * @param usage     source of the heap usage, see {@link #usage}.
+     * @param clock     clock of the interval between degradations.
+     */
+    MemoryGuard(DegradableSelector selector, long threshold,
+                LongSupplier usage, LongSupplier clock) {
+        this.selector = selector;
+        this.threshold = threshold;
+        this.usage = usage;
+        this.clock = clock;
+    }
+
+    private static long getMaxHeap() {
+        MemoryUsage usage = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return usage.getMax() > 0 ? usage.getMax() : usage.getCommitted();
+    }
+
+    /**
+     * Degrades the heaviest methods in the call graph if the heap usage
+     * measured since the last check exceeds the threshold.
+     *
+     * @return the number of degraded methods.
+     */
+    int check(CSCallGraph callGraph) {
+        long used = usage.getAsLong();
+        if (used < 0) {
+            // the usage has not been measured again since the last check
+            return 0;
+        }
+        if (!armed) {
+            armed = used < threshold * LOW_WATER_RATIO ||
+                    clock.getAsLong() - lastDegradeTime >= MIN_INTERVAL;
+        }
+        if (!armed || used <= threshold) {
+            return 0;
+        }
+        Map<JMethod, Integer> contexts = Maps.newMap();
+        callGraph.reachableMethods()
+                .map(CSMethod::getMethod)
+                .filter(selector::isDegradable)
+                .forEach(m -> contexts.merge(m, 1, Integer::sum));
+        List<JMethod> heaviest = contexts.keySet()
+                .stream()
+                .sorted(Comparator.<JMethod, Integer>comparing(contexts::get).reversed()
+                        .thenComparing(JMethod::toString))
+                .limit(Math.max(1, (long) (contexts.size() * DEGRADE_RATIO)))
+                .toList();
+        heaviest.forEach(selector::degrade);
+        armed = false;
+        lastDegradeTime = clock.getAsLong();
+        logger.info("Heap usage after GC {} MB exceeds {} MB, degrading {} methods",
+                used >> 20, threshold >> 20, heaviest.size());
+        return heaviest.size();
+    }
+
+    /**
+     * The heap usage after the most recent garbage collection, which
+     * is measured again only after a new collection.
+     */
+    private static class CollectionUsage implements LongSupplier {
+
+        private final List<MemoryPoolMXBean> heapPools = ManagementFactory
+                .getMemoryPoolMXBeans()
+                .stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP &&
+                        pool.isCollectionUsageThresholdSupported())
+                .toList();
+
+        private final List<GarbageCollectorMXBean> collectors =
+                ManagementFactory.getGarbageCollectorMXBeans();
+
+        /**
+         * Number of garbage collections at the last call,
+         * -1 before the first call.
+         */
+        private long lastCollections = -1;
+
+        @Override
+        public long getAsLong() {
+            long collections = collectors.stream()
+                    .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                    .filter(count -> count > 0)
+                    .sum();
+            if (collections == lastCollections) {
+                return -1;
+            }
+            lastCollections = collections;
+            return heapPools.stream()
+                    .map(MemoryPoolMXBean::getCollectionUsage)
+                    .mapToLong(MemoryUsage::getUsed)
+                    .sum();
+        }
+    }
+}
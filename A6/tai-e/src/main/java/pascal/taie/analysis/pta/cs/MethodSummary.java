@@ -0,0 +1,131 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.FieldStmt;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summary of the statements of a method that the solver processes when
+ * the method becomes reachable, i.e., allocations, copies, static field
+ * accesses and static invocations. The summary is compiled once for each
+ * method, with the objects, fields and callees resolved, and then
+ * instantiated in every context of the method.
+ * <p>
+ * Statement i of each kind is represented by element i of the arrays
+ * of that kind.
+ */
+class MethodSummary {
+
+    /**
+     * Allocations: newVars[i] = new newObjs[i].
+     */
+    final Var[] newVars;
+
+    final Obj[] newObjs;
+
+    /**
+     * Copies: copyTargets[i] = copySources[i].
+     */
+    final Var[] copySources;
+
+    final Var[] copyTargets;
+
+    /**
+     * Static loads: loadTargets[i] = T.loadFields[i].
+     */
+    final JField[] loadFields;
+
+    final Var[] loadTargets;
+
+    /**
+     * Static stores: T.storeFields[i] = storeSources[i].
+     */
+    final Var[] storeSources;
+
+    final JField[] storeFields;
+
+    /**
+     * Static invocations and their callees.
+     */
+    final Invoke[] staticInvokes;
+
+    final JMethod[] staticCallees;
+
+    MethodSummary(JMethod method, HeapModel heapModel) {
+        List<New> news = new ArrayList<>();
+        List<Copy> copies = new ArrayList<>();
+        List<LoadField> loads = new ArrayList<>();
+        List<StoreField> stores = new ArrayList<>();
+        List<Invoke> invokes = new ArrayList<>();
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof New newStmt) {
+                news.add(newStmt);
+            } else if (stmt instanceof Copy copy) {
+                copies.add(copy);
+            } else if (stmt instanceof FieldStmt<?, ?> fieldStmt) {
+                // resolve (and cache) the field before it is accessed
+                // by the parallel phases of the solver
+                fieldStmt.getFieldRef().resolve();
+                if (fieldStmt.isStatic()) {
+                    if (fieldStmt instanceof LoadField load) {
+                        loads.add(load);
+                    } else {
+                        stores.add((StoreField) fieldStmt);
+                    }
+                }
+            } else if (stmt instanceof Invoke invoke && invoke.isStatic()) {
+                invokes.add(invoke);
+            }
+        }
+        newVars = news.stream().map(New::getLValue).toArray(Var[]::new);
+        newObjs = news.stream().map(heapModel::getObj).toArray(Obj[]::new);
+        copySources = copies.stream().map(Copy::getRValue).toArray(Var[]::new);
+        copyTargets = copies.stream().map(Copy::getLValue).toArray(Var[]::new);
+        loadFields = loads.stream()
+                .map(s -> s.getFieldRef().resolve()).toArray(JField[]::new);
+        loadTargets = loads.stream().map(LoadField::getLValue).toArray(Var[]::new);
+        storeSources = stores.stream().map(StoreField::getRValue).toArray(Var[]::new);
+        storeFields = stores.stream()
+                .map(s -> s.getFieldRef().resolve()).toArray(JField[]::new);
+        staticInvokes = invokes.toArray(new Invoke[0]);
+        staticCallees = invokes.stream()
+                .map(s -> CallGraphs.resolveCallee(null, s))
+                .toArray(JMethod[]::new);
+    }
+}
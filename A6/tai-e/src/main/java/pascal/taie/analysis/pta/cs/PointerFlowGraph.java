@@ -23,20 +23,108 @@
 package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.collection.MapSetMultiMap;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.Graph;
+import pascal.taie.util.graph.SCC;
+import pascal.taie.util.graph.SimpleGraph;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 /**
  * Represents pointer flow graph in context-sensitive pointer analysis.
+ * <p>
+ * The pointers on a cycle of this graph always have the same points-to
+ * set, thus the cycles can be collapsed by {@link #collapseCycles()}:
+ * all pointers on a cycle are merged into one representative, which
+ * owns the edges of the merged pointers.
+ * <p>
+ * A concurrent PFG allows adding edges and querying successors from
+ * multiple threads simultaneously. The cycles must be collapsed when
+ * no other thread accesses the graph.
+ * <p>
+ * An indexed PFG stores the successors by the indexes of pointers in
+ * primitive arrays, and obtains the pointers by their indexes. It is
+ * used with {@link pascal.taie.analysis.pta.core.cs.element.ArenaCSManager},
+ * and does not support cycle elimination.
  */
 class PointerFlowGraph {
 
     /**
-     * Map from a pointer (node) to its successors in PFG.
+     * Map from a pointer (node) to its successors in PFG,
+     * null if this PFG is indexed.
      */
-    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
+    private final MultiMap<Pointer, Pointer> successors;
+
+    /**
+     * Successors by pointer indexes, null if this PFG is not indexed.
+     */
+    private final IntSuccessors indexedSuccessors;
+
+    /**
+     * Function from indexes to pointers, null if this PFG is not indexed.
+     */
+    private final IntFunction<Pointer> pointers;
+
+    /**
+     * Map from each merged pointer to the representative of its cycle.
+     * Pointers that have not been merged are absent in this map.
+     */
+    private final Map<Pointer, Pointer> reps = Maps.newMap();
+
+    /**
+     * Map from each representative to the pointers merged into it,
+     * including the representative itself.
+     */
+    private final MultiMap<Pointer, Pointer> mergedPointers = Maps.newMultiMap();
+
+    /**
+     * Number of edges ever added to this PFG.
+     */
+    private final AtomicInteger edges = new AtomicInteger();
+
+    /**
+     * Number of edges added since last collapse.
+     */
+    private final AtomicInteger newEdges = new AtomicInteger();
+
+    PointerFlowGraph() {
+        this(false);
+    }
+
+    /**
+     * @param concurrent whether edges can be added to this PFG
+     *                   by multiple threads simultaneously.
+     */
+    PointerFlowGraph(boolean concurrent) {
+        successors = concurrent ?
+                new MapSetMultiMap<>(Maps.newConcurrentMap(), Sets::newConcurrentSet) :
+                Maps.newMultiMap();
+        indexedSuccessors = null;
+        pointers = null;
+    }
+
+    /**
+     * Creates an indexed PFG.
+     *
+     * @param pointers function from indexes to pointers.
+     */
+    PointerFlowGraph(IntFunction<Pointer> pointers) {
+        successors = null;
+        indexedSuccessors = new IntSuccessors();
+        this.pointers = pointers;
+    }
 
     /**
      * Adds an edge (source -> target) to this PFG.
@@ -45,13 +133,191 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        if (indexedSuccessors != null) {
+            if (indexedSuccessors.add(source.getIndex(), target.getIndex())) {
+                edges.incrementAndGet();
+                newEdges.incrementAndGet();
+                return true;
+            } else {
+                return false;
+            }
+        }
+        Pointer sourceRep = getRep(source);
+        Pointer targetRep = getRep(target);
+        if (sourceRep == targetRep) {
+            // edge inside a collapsed cycle
+            return false;
+        }
+        if (successors.put(sourceRep, targetRep)) {
+            edges.incrementAndGet();
+            newEdges.incrementAndGet();
+            return true;
+        } else {
+            return false;
+        }
     }
 
     /**
      * @return successors of given pointer in the PFG.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+        if (indexedSuccessors != null) {
+            int index = pointer.getIndex();
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Pointer> iterator() {
+                    PrimitiveIterator.OfInt succs = indexedSuccessors.iterator(index);
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return succs.hasNext();
+                        }
+
+                        @Override
+                        public Pointer next() {
+                            return pointers.apply(succs.nextInt());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return indexedSuccessors.size(index);
+                }
+            };
+        }
+        return successors.get(getRep(pointer));
+    }
+
+    /**
+     * Performs given action for each successor of given pointer.
+     * For an indexed PFG, this walks the successor indexes directly,
+     * and obtains each successor only when it is passed to the action.
+     */
+    void forEachSuccOf(Pointer pointer, Consumer<Pointer> action) {
+        if (indexedSuccessors != null) {
+            indexedSuccessors.forEach(pointer.getIndex(),
+                    succ -> action.accept(pointers.apply(succ)));
+        } else {
+            successors.get(getRep(pointer)).forEach(action);
+        }
+    }
+
+    /**
+     * @return the representative of given pointer. If the pointer
+     * has not been merged, returns the pointer itself.
+     */
+    Pointer getRep(Pointer pointer) {
+        return reps.getOrDefault(pointer, pointer);
+    }
+
+    /**
+     * @return all pointers which are merged with given pointer,
+     * including the pointer itself.
+     */
+    Set<Pointer> getMergedPointers(Pointer pointer) {
+        Set<Pointer> merged = mergedPointers.get(getRep(pointer));
+        return merged.isEmpty() ? Set.of(pointer) : merged;
+    }
+
+    /**
+     * @return the number of pointers which have been merged into
+     * other pointers.
+     */
+    int getNumberOfMergedPointers() {
+        return reps.size();
+    }
+
+    /**
+     * @return the number of edges ever added to this PFG.
+     */
+    int getNumberOfEdges() {
+        return edges.get();
+    }
+
+    /**
+     * @return the number of edges added since last collapse.
+     */
+    int getNumberOfNewEdges() {
+        return newEdges.get();
+    }
+
+    /**
+     * Finds the cycles of this PFG via {@link SCC}, and merges the
+     * pointers on each cycle into one representative. The caller is
+     * responsible for merging the points-to sets of the merged pointers.
+     *
+     * @return representatives of the cycles that are collapsed by this call.
+     */
+    List<Pointer> collapseCycles() {
+        if (indexedSuccessors != null) {
+            throw new UnsupportedOperationException(
+                    "Indexed PFG does not support cycle elimination");
+        }
+        newEdges.set(0);
+        List<Pointer> newReps = new ArrayList<>();
+        for (List<Pointer> component : new SCC<>(toGraph()).getTrueComponents()) {
+            if (component.size() > 1) {
+                Pointer rep = component.get(0);
+                component.forEach(node -> merge(node, rep));
+                // drop the edges inside the collapsed cycle
+                for (Pointer succ : List.copyOf(successors.get(rep))) {
+                    if (getRep(succ) == rep) {
+                        successors.remove(rep, succ);
+                    }
+                }
+                newReps.add(rep);
+            }
+        }
+        return newReps;
+    }
+
+    /**
+     * @return a snapshot of this PFG, whose nodes are representatives.
+     */
+    Graph<Pointer> toGraph() {
+        SimpleGraph<Pointer> graph = new SimpleGraph<>();
+        if (indexedSuccessors != null) {
+            for (int i = 0; i < indexedSuccessors.getSourceBound(); ++i) {
+                if (indexedSuccessors.size(i) > 0) {
+                    Pointer source = pointers.apply(i);
+                    graph.addNode(source);
+                    indexedSuccessors.forEach(i, succ -> {
+                        Pointer target = pointers.apply(succ);
+                        graph.addNode(target);
+                        graph.addEdge(source, target);
+                    });
+                }
+            }
+            return graph;
+        }
+        successors.forEach((source, target) -> {
+            Pointer targetRep = getRep(target);
+            graph.addNode(source);
+            graph.addNode(targetRep);
+            graph.addEdge(source, targetRep);
+        });
+        return graph;
+    }
+
+    /**
+     * Merges given node into given representative.
+     * Both node and rep must be representatives.
+     */
+    private void merge(Pointer node, Pointer rep) {
+        if (node == rep) {
+            mergedPointers.put(rep, rep);
+            return;
+        }
+        // move the pointers merged into node
+        Set<Pointer> merged = mergedPointers.get(node);
+        for (Pointer p : merged.isEmpty() ? Set.of(node) : List.copyOf(merged)) {
+            reps.put(p, rep);
+            mergedPointers.put(rep, p);
+        }
+        mergedPointers.removeAll(node);
+        // move the out edges of node to rep
+        successors.putAll(rep, successors.get(node));
+        successors.removeAll(node);
     }
 }
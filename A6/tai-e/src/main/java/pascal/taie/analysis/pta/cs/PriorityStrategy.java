@@ -0,0 +1,85 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Processes the entries in the order of the priorities of their pointers,
+ * entries of smaller priority values first. The entries of the same
+ * priority are processed in the order they are added.
+ */
+abstract class PriorityStrategy implements WorkListStrategy {
+
+    private static final Comparator<Item> COMPARATOR = Comparator
+            .comparingLong(Item::priority)
+            .thenComparingLong(Item::order);
+
+    private PriorityQueue<Item> queue = new PriorityQueue<>(COMPARATOR);
+
+    /**
+     * Counter for the order in which the entries are added.
+     */
+    private long order = 0;
+
+    @Override
+    public void add(WorkList.Entry entry) {
+        queue.add(new Item(entry, getPriority(entry.pointer()), order++));
+    }
+
+    @Override
+    public WorkList.Entry poll() {
+        Item item = queue.poll();
+        return item == null ? null : item.entry();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * @return the priority of given pointer.
+     */
+    protected abstract long getPriority(Pointer pointer);
+
+    /**
+     * Recomputes the priorities of all held entries.
+     * Subclasses call this method after the priorities of pointers change.
+     */
+    protected void updatePriorities() {
+        List<Item> items = new ArrayList<>(queue.size());
+        queue.forEach(item -> items.add(new Item(item.entry(),
+                getPriority(item.entry().pointer()), item.order())));
+        queue = new PriorityQueue<>(Math.max(1, items.size()), COMPARATOR);
+        queue.addAll(items);
+    }
+
+    private record Item(WorkList.Entry entry, long priority, long order) {
+    }
+}
@@ -32,6 +32,8 @@ import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArenaCSManager;
+import pascal.taie.analysis.pta.core.cs.element.ArrayBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
@@ -43,29 +45,45 @@ import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.core.cs.element.StaticField;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.DegradableSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.plugin.ResultProcessor;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
-import pascal.taie.ir.stmt.Copy;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.LoadArray;
-import pascal.taie.ir.stmt.LoadField;
-import pascal.taie.ir.stmt.New;
-import pascal.taie.ir.stmt.StmtVisitor;
 import pascal.taie.ir.stmt.StoreArray;
-import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    /**
+     * The heap usage is checked after every such number of propagations.
+     */
+    private static final int MEMORY_CHECK_INTERVAL = 1000;
+
     private final AnalysisOptions options;
 
     private final HeapModel heapModel;
@@ -80,6 +98,60 @@ class Solver {
 
     private WorkList workList;
 
+    private PointsToSetFactory ptsFactory;
+
+    /**
+     * Filters the objects propagated to pointers by their declared types,
+     * null if type filtering is disabled.
+     */
+    private TypeFilter typeFilter;
+
+    /**
+     * Degrades the heaviest methods under memory pressure,
+     * null if the context selector is not degradable.
+     */
+    private MemoryGuard memoryGuard;
+
+    /**
+     * Creates the memory guard of a degradable context selector.
+     */
+    private Function<DegradableSelector, MemoryGuard> memoryGuardFactory;
+
+    /**
+     * Whether instance fields are field-based, i.e., the field
+     * of all base objects are represented by one pointer.
+     */
+    private boolean fieldBased;
+
+    /**
+     * Statement summaries of the reachable methods.
+     */
+    private final Map<JMethod, MethodSummary> summaries = Maps.newMap();
+
+    /**
+     * PFG cycles are collapsed after every such number of new PFG edges,
+     * 0 means no cycle elimination.
+     */
+    private int collapseInterval;
+
+    /**
+     * Number of threads, the work-list entries are processed
+     * in parallel if it is greater than 1.
+     */
+    private int threads;
+
+    /**
+     * Entries added during the parallel phases of a round, which are
+     * moved to the work list at the end of the phases. null if the
+     * solver is not in a parallel phase.
+     */
+    private Queue<WorkList.Entry> addedEntries;
+
+    /**
+     * Number of work-list entries propagated by the solver.
+     */
+    private int propagations;
+
     private PointerAnalysisResult result;
 
     Solver(AnalysisOptions options, HeapModel heapModel,
@@ -87,24 +159,131 @@ class Solver {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.memoryGuardFactory = selector -> new MemoryGuard(
+                selector, options.getInt("memory-threshold"));
+    }
+
+    /**
+     * Sets the factory of the memory guard, e.g., to simulate
+     * memory pressure in tests. It must be set before solving.
+     */
+    void setMemoryGuardFactory(
+            Function<DegradableSelector, MemoryGuard> memoryGuardFactory) {
+        this.memoryGuardFactory = memoryGuardFactory;
     }
 
     void solve() {
-        initialize();
+        initialize(null);
+        if (threads > 1) {
+            analyzeInParallel();
+        } else {
+            analyze();
+        }
+    }
+
+    /**
+     * Solves incrementally on the state of a previous run. The facts of
+     * the previous run that may depend on the changed methods have been
+     * invalidated by the state, and the others are restored directly,
+     * so that only the methods connected to invalid facts are processed
+     * again, and only the affected region is re-propagated. The previous
+     * solver must use the same heap model and context selector as this
+     * one. Incremental solving is sequential.
+     */
+    void solve(SolverState previous) {
+        initialize(previous);
         analyze();
     }
 
-    private void initialize() {
-        csManager = new MapBasedCSManager();
+    /**
+     * Solves incrementally on the state saved in given file by a previous
+     * run, or from scratch if the file does not contain a state of current
+     * program and options, and then saves the state of this solver
+     * to the file for the next run.
+     */
+    void solveIncrementally(Path file) {
+        String key = SolverState.makeKey(options);
+        SolverState previous = SolverState.load(
+                file, key, heapModel, contextSelector);
+        if (previous != null) {
+            solve(previous);
+        } else {
+            solve();
+        }
+        new SolverStateWriter(heapModel, csManager, callGraph, pointerFlowGraph)
+                .write(file, key);
+        logger.info("Saved solver state to {}", file);
+    }
+
+    /**
+     * @param previous the state of the previous run to be restored,
+     *                 or null if not solving incrementally.
+     */
+    private void initialize(@Nullable SolverState previous) {
+        threads = options.get("threads") != null ? options.getInt("threads") : 1;
+        csManager = makeCSManager(
+                PointsToSetFactory.Kind.of(options.getString("pts")));
+        ptsFactory = csManager.getPointsToSetFactory();
+        fieldBased = options.getBooleanOrDefault("field-based", false);
+        collapseInterval = options.get("collapse-cycles") != null ?
+                options.getInt("collapse-cycles") : 0;
+        if (options.getBooleanOrDefault("type-filter", false)) {
+            if (collapseInterval > 0) {
+                // the pointers on a PFG cycle may have different
+                // points-to sets after type filtering
+                throw new ConfigException(
+                        "Type filtering does not support PFG cycle elimination");
+            }
+            typeFilter = new TypeFilter(World.get().getTypeSystem(),
+                    ptsFactory, threads > 1);
+        }
+        if (contextSelector instanceof DegradableSelector selector) {
+            memoryGuard = memoryGuardFactory.apply(selector);
+        }
         callGraph = new CSCallGraph(csManager);
-        pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        if (csManager instanceof ArenaCSManager arena) {
+            if (collapseInterval > 0) {
+                throw new ConfigException(
+                        "Arena CS manager does not support PFG cycle elimination");
+            }
+            pointerFlowGraph = new PointerFlowGraph(arena::getPointer);
+        } else {
+            pointerFlowGraph = new PointerFlowGraph(threads > 1);
+        }
+        WorkListStrategy strategy = WorkListStrategy.of(
+                options.getString("worklist"), pointerFlowGraph);
+        workList = options.getBooleanOrDefault("coalesce-worklist", false) ?
+                new WorkList(strategy, ptsFactory) : new WorkList(strategy);
+        List<CSMethod> reprocessed = previous != null ?
+                previous.restore(csManager, callGraph, pointerFlowGraph) :
+                List.of();
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
         CSMethod csMethod = csManager.getCSMethod(defContext, main);
         callGraph.addEntryMethod(csMethod);
         addReachable(csMethod);
+        reprocessed.forEach(this::reprocess);
+    }
+
+    /**
+     * Creates the CS manager specified by option "cs-manager".
+     */
+    private CSManager makeCSManager(PointsToSetFactory.Kind ptsKind) {
+        String kind = options.getString("cs-manager");
+        if (kind == null || kind.equals("map")) {
+            return new MapBasedCSManager(ptsKind, threads > 1);
+        } else if (kind.equals("array") || kind.equals("arena")) {
+            if (threads > 1) {
+                throw new ConfigException(
+                        "CS manager " + kind + " does not support parallel solving");
+            }
+            return kind.equals("array") ? new ArrayBasedCSManager(ptsKind) :
+                    new ArenaCSManager(ptsKind,
+                            options.getBooleanOrDefault("off-heap", false));
+        } else {
+            throw new ConfigException("Unknown CS manager: " + kind);
+        }
     }
 
     /**
@@ -113,80 +292,66 @@ class Solver {
     private void addReachable(CSMethod csMethod) {
         if (!callGraph.contains(csMethod)){
             callGraph.addReachableMethod(csMethod);
-            csMethod.getMethod().getIR().getStmts().forEach(stmt -> stmt.accept(new StmtProcessor(csMethod)));
+            MethodSummary summary = summaries.computeIfAbsent(
+                    csMethod.getMethod(), m -> new MethodSummary(m, heapModel));
+            processSummary(csMethod, summary);
         }
 
     }
 
     /**
-     * Processes the statements in context-sensitive new reachable methods.
+     * Processes the statements of a reachable method restored from the
+     * previous run again, including the accesses and call sites on the
+     * restored objects of its variables. The existing PFG and call edges
+     * are ignored, and the missing facts are added to the work list.
      */
-    private class StmtProcessor implements StmtVisitor<Void> {
-
-        private final CSMethod csMethod;
-
-        private final Context context;
-
-        private StmtProcessor(CSMethod csMethod) {
-            this.csMethod = csMethod;
-            this.context = csMethod.getContext();
+    private void reprocess(CSMethod csMethod) {
+        processSummary(csMethod, summaries.computeIfAbsent(
+                csMethod.getMethod(), m -> new MethodSummary(m, heapModel)));
+        Context context = csMethod.getContext();
+        for (Var var : csMethod.getMethod().getIR().getVars()) {
+            if (!var.getLoadFields().isEmpty() || !var.getStoreFields().isEmpty() ||
+                    !var.getLoadArrays().isEmpty() || !var.getStoreArrays().isEmpty() ||
+                    !var.getInvokes().isEmpty()) {
+                CSVar csVar = csManager.getCSVar(context, var);
+                for (CSObj o : csVar.getPointsToSet()) {
+                    processFieldsAndArrays(csVar, o);
+                    processCall(csVar, o);
+                }
+            }
         }
+    }
 
-
-        @Override
-        public Void visit(New stmt) {
-            Pointer node = csManager.getCSVar(context, stmt.getLValue());
-            Obj new_obj = heapModel.getObj(stmt);
-            Context obj_context = contextSelector.selectHeapContext(csMethod, new_obj);
-            var new_obj_ctx = csManager.getCSObj(obj_context, new_obj);
-            PointsToSet pts = PointsToSetFactory.make(new_obj_ctx);
-            workList.addEntry(node, pts);
-            return StmtVisitor.super.visit(stmt);
+    /**
+     * Processes the statements in context-sensitive new reachable methods
+     * by instantiating the summary of the method in the context.
+     */
+    private void processSummary(CSMethod csMethod, MethodSummary summary) {
+        Context context = csMethod.getContext();
+        for (int i = 0; i < summary.newVars.length; ++i) {
+            Obj obj = summary.newObjs[i];
+            Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
+            addEntry(csManager.getCSVar(context, summary.newVars[i]),
+                    ptsFactory.make(csManager.getCSObj(heapContext, obj)));
         }
-
-        @Override
-        public Void visit(Copy stmt) {
-            addPFGEdge(
-                    csManager.getCSVar(context, stmt.getRValue()),
-                    csManager.getCSVar(context, stmt.getLValue())
-            );
-            return StmtVisitor.super.visit(stmt);
+        for (int i = 0; i < summary.copySources.length; ++i) {
+            addPFGEdge(csManager.getCSVar(context, summary.copySources[i]),
+                    csManager.getCSVar(context, summary.copyTargets[i]));
         }
-
-
-        @Override
-        public Void visit(Invoke stmt){
-            //We can only deal with static method in
-            if (stmt.isStatic()){
-                var callee = resolveCallee(null, stmt);
-                var csCallSite = csManager.getCSCallSite(context, stmt);
-                var ct = contextSelector.selectContext(csCallSite, callee);
-                var csCallee = csManager.getCSMethod(ct, callee);
-                processCallAndRet(csCallSite, csCallee);
-            }
-            return StmtVisitor.super.visit(stmt);
+        for (int i = 0; i < summary.loadFields.length; ++i) {
+            addPFGEdge(csManager.getStaticField(summary.loadFields[i]),
+                    csManager.getCSVar(context, summary.loadTargets[i]));
         }
-
-        @Override
-        public Void visit(LoadField stmt) {
-            if (stmt.isStatic()){
-                addPFGEdge(
-                        csManager.getStaticField(stmt.getFieldRef().resolve()),
-                            csManager.getCSVar(context, stmt.getLValue())
-                );
-            }
-            return StmtVisitor.super.visit(stmt);
+        for (int i = 0; i < summary.storeFields.length; ++i) {
+            addPFGEdge(csManager.getCSVar(context, summary.storeSources[i]),
+                    csManager.getStaticField(summary.storeFields[i]));
         }
-
-        @Override
-        public Void visit(StoreField stmt) {
-            if (stmt.isStatic()){
-                addPFGEdge(
-                        csManager.getCSVar(context, stmt.getRValue()),
-                        csManager.getStaticField(stmt.getFieldRef().resolve())
-                );
-            }
-            return StmtVisitor.super.visit(stmt);
+        for (int i = 0; i < summary.staticInvokes.length; ++i) {
+            JMethod callee = summary.staticCallees[i];
+            CSCallSite csCallSite = csManager.getCSCallSite(
+                    context, summary.staticInvokes[i]);
+            Context calleeContext = contextSelector.selectContext(csCallSite, callee);
+            processCallAndRet(csCallSite, csManager.getCSMethod(calleeContext, callee));
         }
     }
 
@@ -230,71 +395,268 @@ class Solver {
      */
     private void addPFGEdge(Pointer source, Pointer target) {
         if (pointerFlowGraph.addEdge(source, target)){
-            if (!source.getPointsToSet().isEmpty()){
-                workList.addEntry(target, source.getPointsToSet());
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()){
+                if (threads > 1) {
+                    // pt(source) may be modified by another thread
+                    // when the entry is propagated, thus add a snapshot
+                    PointsToSet snapshot = ptsFactory.make();
+                    snapshot.addAll(pts);
+                    pts = snapshot;
+                }
+                addEntry(target, pts);
             }
         }
     }
 
+    /**
+     * Adds an entry to the work list, or to {@link #addedEntries}
+     * in the parallel phases.
+     */
+    private void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        if (addedEntries != null) {
+            addedEntries.add(new WorkList.Entry(pointer, pointsToSet));
+        } else {
+            workList.addEntry(pointer, pointsToSet);
+        }
+    }
+
     /**
      * Processes work-list entries until the work-list is empty.
      */
     private void analyze() {
         while (!workList.isEmpty()){
+            if (collapseInterval > 0 &&
+                    pointerFlowGraph.getNumberOfNewEdges() >= collapseInterval) {
+                collapseCycles();
+            }
+            if (memoryGuard != null && propagations % MEMORY_CHECK_INTERVAL == 0) {
+                memoryGuard.check(callGraph);
+            }
             var entry = workList.pollEntry();
             var delta = propagate(entry.pointer(), entry.pointsToSet());
-            if (entry.pointer() instanceof CSVar varPtr){
-                var x = varPtr.getVar();
-                var ctx = varPtr.getContext();
-                for(var o: delta){
-                    //load
-                    x.getLoadFields().forEach(loadstmt -> {
-                        addPFGEdge(
-                                        csManager.getInstanceField(o, loadstmt.getFieldAccess().getFieldRef().resolve()),
-                                        csManager.getCSVar(ctx, loadstmt.getLValue())
-                                );
-                    });
-                    //store
-                    x.getStoreFields().forEach(storestmt -> {
-                        addPFGEdge(
-                           csManager.getCSVar(ctx, storestmt.getRValue()),
-                           csManager.getInstanceField(o, storestmt.getFieldAccess().getFieldRef().resolve())
-                        );
-                    });
-                    //load array
-                    x.getLoadArrays().forEach(loadArray -> {
-                                addPFGEdge(
-                                        csManager.getArrayIndex(o),
-                                        csManager.getCSVar(ctx, loadArray.getLValue())
-                                );
-
-                    });
-                    //store array
-                    x.getStoreArrays().forEach(storeArray -> {
-                      addPFGEdge(
-                              csManager.getCSVar(ctx, storeArray.getRValue()),
-                              csManager.getArrayIndex(o)
-                      );
-                    });
-                    //process call
-                    processCall(varPtr, o);
+            ++propagations;
+            if (collapseInterval > 0) {
+                // pointers merged on a PFG cycle share the points-to set,
+                // so the delta is processed for each of them
+                for (Pointer p : pointerFlowGraph.getMergedPointers(entry.pointer())) {
+                    processDelta(p, delta);
                 }
+            } else {
+                processDelta(entry.pointer(), delta);
+            }
+        }
+        logStatistics();
+    }
+
+    /**
+     * Processes instance field and array accesses and instance calls
+     * on given pointer if it is a variable whose points-to set changed.
+     */
+    private void processDelta(Pointer pointer, PointsToSet delta) {
+        if (pointer instanceof CSVar varPtr) {
+            for (CSObj o : delta) {
+                processFieldsAndArrays(varPtr, o);
+                processCall(varPtr, o);
             }
         }
     }
 
+    /**
+     * Processes work-list entries with multiple threads until
+     * the work-list is empty. The entries are processed in rounds,
+     * and each round consists of three phases:
+     * <ol>
+     *     <li>propagates all entries in the work list in parallel.
+     *     The entries of the pointers that share a points-to set are
+     *     propagated by the same thread, so each points-to set is
+     *     modified by only one thread.</li>
+     *     <li>processes the instance field and array accesses on the
+     *     variables whose points-to sets changed in parallel.</li>
+     *     <li>processes the instance calls on the variables sequentially,
+     *     as building IR of new reachable methods and resolving callees
+     *     are not thread-safe.</li>
+     * </ol>
+     * The points-to sets are only modified in the first phase.
+     */
+    private void analyzeInParallel() {
+        logger.info("Solving with {} threads", threads);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            while (!workList.isEmpty()) {
+                if (collapseInterval > 0 &&
+                        pointerFlowGraph.getNumberOfNewEdges() >= collapseInterval) {
+                    collapseCycles();
+                }
+                if (memoryGuard != null) {
+                    memoryGuard.check(callGraph);
+                }
+                Map<Pointer, List<WorkList.Entry>> groups = new LinkedHashMap<>();
+                while (!workList.isEmpty()) {
+                    var entry = workList.pollEntry();
+                    groups.computeIfAbsent(pointerFlowGraph.getRep(entry.pointer()),
+                            unused -> new ArrayList<>()).add(entry);
+                    ++propagations;
+                }
+                addedEntries = new ConcurrentLinkedQueue<>();
+                Queue<VarDelta> varDeltas = new ConcurrentLinkedQueue<>();
+                pool.submit(() -> groups.values().parallelStream().forEach(entries -> {
+                    for (var entry : entries) {
+                        var delta = propagate(entry.pointer(), entry.pointsToSet());
+                        if (delta.isEmpty()) {
+                            continue;
+                        }
+                        if (collapseInterval > 0) {
+                            for (Pointer p : pointerFlowGraph.getMergedPointers(entry.pointer())) {
+                                if (p instanceof CSVar varPtr) {
+                                    varDeltas.add(new VarDelta(varPtr, delta));
+                                }
+                            }
+                        } else if (entry.pointer() instanceof CSVar varPtr) {
+                            varDeltas.add(new VarDelta(varPtr, delta));
+                        }
+                    }
+                })).join();
+                List<VarDelta> changedVars = new ArrayList<>(varDeltas);
+                pool.submit(() -> changedVars.parallelStream().forEach(varDelta -> {
+                    for (CSObj o : varDelta.delta()) {
+                        processFieldsAndArrays(varDelta.var(), o);
+                    }
+                })).join();
+                Queue<WorkList.Entry> entries = addedEntries;
+                addedEntries = null;
+                entries.forEach(e -> workList.addEntry(e.pointer(), e.pointsToSet()));
+                for (VarDelta varDelta : changedVars) {
+                    if (!varDelta.var().getVar().getInvokes().isEmpty()) {
+                        for (CSObj o : varDelta.delta()) {
+                            processCall(varDelta.var(), o);
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        logStatistics();
+    }
+
+    private void logStatistics() {
+        logger.info("Work list: max length {}, {} merged entries",
+                workList.getMaxLength(), workList.getMergeCount());
+        if (collapseInterval > 0) {
+            logger.info("{} pointers are merged by PFG cycle elimination",
+                    pointerFlowGraph.getNumberOfMergedPointers());
+        }
+        if (typeFilter != null) {
+            logger.info("{} objects are filtered by declared types",
+                    typeFilter.getNumberOfFilteredObjects());
+        }
+        if (memoryGuard != null) {
+            Set<JMethod> degraded = ((DegradableSelector) contextSelector)
+                    .getDegradedMethods();
+            logger.info("{} methods are degraded under memory pressure",
+                    degraded.size());
+            degraded.forEach(m -> logger.info("Degraded: {}", m));
+        }
+    }
+
+    /**
+     * Points-to set delta of a variable in a round of parallel solving.
+     */
+    private record VarDelta(CSVar var, PointsToSet delta) {
+    }
+
+    /**
+     * Collapses the cycles of PFG. The pointers on each cycle
+     * share a single points-to set, which is the union of their
+     * previous points-to sets. Each merged variable only processes
+     * the objects that are new to it, and the union is added to the
+     * successors of the cycle once, instead of being propagated to
+     * the cycle again and processed for every merged variable.
+     */
+    private void collapseCycles() {
+        for (Pointer rep : pointerFlowGraph.collapseCycles()) {
+            Set<Pointer> merged = pointerFlowGraph.getMergedPointers(rep);
+            PointsToSet union = ptsFactory.make();
+            merged.forEach(p -> union.addAll(p.getPointsToSet()));
+            PointsToSet shared = ptsFactory.make();
+            shared.addAll(union);
+            for (Pointer p : merged) {
+                PointsToSet previous = p.getPointsToSet();
+                p.setPointsToSet(shared);
+                if (p instanceof CSVar varPtr) {
+                    for (CSObj o : union) {
+                        if (!previous.contains(o)) {
+                            processFieldsAndArrays(varPtr, o);
+                            processCall(varPtr, o);
+                        }
+                    }
+                }
+            }
+            pointerFlowGraph.forEachSuccOf(rep, s -> addEntry(s, union));
+        }
+    }
+
+    /**
+     * Processes instance field and array accesses on given variable
+     * when it points to a new object.
+     */
+    private void processFieldsAndArrays(CSVar varPtr, CSObj o) {
+        var x = varPtr.getVar();
+        var ctx = varPtr.getContext();
+        //load
+        x.getLoadFields().forEach(loadstmt -> {
+            addPFGEdge(
+                    getInstanceField(o, loadstmt.getFieldAccess().getFieldRef().resolve()),
+                    csManager.getCSVar(ctx, loadstmt.getLValue())
+            );
+        });
+        //store
+        x.getStoreFields().forEach(storestmt -> {
+            addPFGEdge(
+                    csManager.getCSVar(ctx, storestmt.getRValue()),
+                    getInstanceField(o, storestmt.getFieldAccess().getFieldRef().resolve())
+            );
+        });
+        //load array
+        x.getLoadArrays().forEach(loadArray -> {
+            addPFGEdge(
+                    csManager.getArrayIndex(o),
+                    csManager.getCSVar(ctx, loadArray.getLValue())
+            );
+        });
+        //store array
+        x.getStoreArrays().forEach(storeArray -> {
+            addPFGEdge(
+                    csManager.getCSVar(ctx, storeArray.getRValue()),
+                    csManager.getArrayIndex(o)
+            );
+        });
+    }
+
+    /**
+     * @return the pointer of field of base object. If instance fields
+     * are field-based, the field of all objects is a single pointer,
+     * i.e., the static field pointer of the field.
+     */
+    private Pointer getInstanceField(CSObj base, JField field) {
+        return fieldBased ? csManager.getStaticField(field) :
+                csManager.getInstanceField(base, field);
+    }
+
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
+     * If type filtering is enabled, only the objects that can be held
+     * by the declared type of pointer are propagated.
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        var delta = PointsToSetFactory.make();
-        pointsToSet.getObjects().stream().filter(x -> !pointer.getPointsToSet().contains(x)).forEach(delta::addObject);
+        if (typeFilter != null) {
+            pointsToSet = typeFilter.filter(pointer, pointsToSet);
+        }
+        var delta = pointer.getPointsToSet().addAllDiff(pointsToSet);
         if (!delta.isEmpty()){
-            delta.objects().forEach(x -> pointer.getPointsToSet().addObject(x));
-            for (var s: pointerFlowGraph.getSuccsOf(pointer)){
-                workList.addEntry(s, delta);
-            }
+            pointerFlowGraph.forEachSuccOf(pointer, s -> addEntry(s, delta));
         }
         return delta;
     }
@@ -311,9 +673,9 @@ class Solver {
                     var csCallSite = csManager.getCSCallSite(recv.getContext(), callSite);
                     var callee = resolveCallee(recvObj, callSite);
                     var csCallee = csManager.getCSMethod(contextSelector.selectContext(csCallSite, recvObj, callee), callee);
-                    workList.addEntry(
+                    addEntry(
                             csManager.getCSVar(csCallee.getContext(), callee.getIR().getThis()),
-                            PointsToSetFactory.make(recvObj)
+                            ptsFactory.make(recvObj)
                     );
                     processCallAndRet(csCallSite, csCallee);
                 }
@@ -336,6 +698,13 @@ class Solver {
     PointerAnalysisResult getResult() {
         if (result == null) {
             result = new PointerAnalysisResultImpl(csManager, callGraph);
+            result.storeResult(ResultProcessor.WORK_LIST_STRATEGY,
+                    workList.getStrategy().getName());
+            result.storeResult(ResultProcessor.PROPAGATIONS, propagations);
+            if (contextSelector instanceof DegradableSelector selector) {
+                result.storeResult(ResultProcessor.DEGRADED_METHODS,
+                        Set.copyOf(selector.getDegradedMethods()));
+            }
         }
         return result;
     }
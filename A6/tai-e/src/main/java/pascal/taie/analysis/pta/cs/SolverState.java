@@ -0,0 +1,1032 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.Options;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * State of a finished {@link Solver}, i.e., its CS elements with points-to
+ * sets, pointer flow graph and CS call graph, which is saved to a file by
+ * {@link SolverStateWriter}, and loaded by a later run, e.g., a CI run in
+ * another process, to solve the changed program incrementally.
+ * <p>
+ * A state is loaded only if its key matches, see {@link #makeKey}, thus
+ * the application classes and their members are unchanged, and only the
+ * bodies of application methods may be changed. The changed methods are
+ * found by the fingerprints of their IR. On loading, the facts that may
+ * depend on the changed methods are invalidated: besides the variables of
+ * the changed methods, the pointers that are reachable from invalid
+ * pointers on PFG, or through field/array accesses and calls on invalid
+ * variables, and the methods called by invalid methods. The valid facts,
+ * i.e., the points-to sets of valid pointers, the PFG edges between them,
+ * and the call edges between valid CS methods, are restored to the
+ * elements of current program by {@link #restore}, without propagating
+ * them again. The incremental solver then only processes the restored
+ * methods whose facts involve invalid ones, and the invalid region.
+ * <p>
+ * The layout of a state file is:
+ * <pre>
+ * magic (int), version (int)
+ * strings:      count, (length, UTF-8 bytes)*
+ * fingerprints: count, (method, fingerprint (long))*
+ * objects:      count, (method, index of allocation statement)*
+ * contexts:     count, (length, element*)*
+ * CS objects:   count, (context, object)*
+ * CS methods:   count, (context, method)*
+ * pointers:     count, (kind, descriptor, points-to set, #succs, succ*)*
+ * call edges:   count, (caller CS method, index of call site, callee CS method)*
+ * </pre>
+ * All numbers except the header and fingerprints are unsigned
+ * variable-length integers. Methods, fields and types are ids of their
+ * signatures in the string table, the first string of which is the key.
+ * The method of an object without allocation site, e.g., a mock object,
+ * is 0, and such object is not restored.
+ * A context element is a kind ({@link #CALL_SITE_ELEMENT},
+ * {@link #OBJECT_ELEMENT} or {@link #TYPE_ELEMENT}) followed by the call
+ * site (method, index of call site), object or type respectively.
+ * The descriptor of a pointer depends on its kind: context, method and
+ * index of variable for {@link #VAR}, field for {@link #STATIC_FIELD},
+ * base CS object and field for {@link #INSTANCE_FIELD}, and array CS object
+ * for {@link #ARRAY_INDEX}. A points-to set is the number of CS objects
+ * followed by their ascending ids, each stored as the difference from
+ * its predecessor. The successors of a pointer merged on a PFG cycle
+ * include the representative of the cycle, and vice versa.
+ */
+class SolverState {
+
+    private static final Logger logger = LogManager.getLogger(SolverState.class);
+
+    static final int MAGIC = 0x54505353; // "TPSS"
+
+    static final int VERSION = 1;
+
+    static final int CALL_SITE_ELEMENT = 0;
+
+    static final int OBJECT_ELEMENT = 1;
+
+    static final int TYPE_ELEMENT = 2;
+
+    static final int VAR = 0;
+
+    static final int STATIC_FIELD = 1;
+
+    static final int INSTANCE_FIELD = 2;
+
+    static final int ARRAY_INDEX = 3;
+
+    /**
+     * The options that affect the objects and points-to sets.
+     */
+    private static final List<String> KEY_OPTIONS = List.of(
+            "heap-model", "field-based", "type-filter",
+            "merge-string-constants", "merge-string-objects",
+            "merge-string-builders", "merge-exception-objects");
+
+    /**
+     * Initial value of 64-bit FNV-1a hash.
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /**
+     * Contexts and objects of the CS objects, null if a CS object
+     * cannot be restored, e.g., it is allocated in a changed method.
+     */
+    private Context[] csObjContexts;
+
+    private Obj[] csObjObjs;
+
+    /**
+     * Valid CS methods, i.e., their contexts and methods, and the CS methods
+     * to be processed again. The context of an invalid CS method is null.
+     */
+    private Context[] csMethodContexts;
+
+    private JMethod[] csMethodMethods;
+
+    private BitSet reprocessedMethods;
+
+    /**
+     * Valid pointers with their points-to sets (ids of the restored
+     * CS objects) and successors. An invalid pointer is null.
+     */
+    private RestoredPointer[] pointers;
+
+    private int[][] pointsToSets;
+
+    private int[][] succs;
+
+    /**
+     * Valid call edges, i.e., the ids of callers and callees,
+     * and the call sites in current program.
+     */
+    private int[] callers;
+
+    private Invoke[] callSites;
+
+    private int[] callees;
+
+    private int numberOfChangedMethods;
+
+    private int numberOfInvalidPointers;
+
+    private int numberOfInvalidMethods;
+
+    private SolverState() {
+    }
+
+    /**
+     * Makes the key of the solver states of current program analyzed with
+     * given options. The key consists of the main method, the context
+     * sensitivity, the options that affect objects and points-to sets,
+     * the Java version of the library, and a hash of the application
+     * class hierarchy, i.e., the application classes, their super types
+     * and the signatures of their members.
+     */
+    static String makeKey(AnalysisOptions options) {
+        Options worldOptions = World.get().getOptions();
+        StringBuilder key = new StringBuilder()
+                .append(World.get().getMainMethod())
+                .append(";cs:").append(options.getString("cs"));
+        for (String option : KEY_OPTIONS) {
+            key.append(';').append(option).append(':').append(options.get(option));
+        }
+        key.append(";java:").append(worldOptions.getJavaVersion())
+                .append(";pp:").append(worldOptions.isPrependJVM())
+                .append(";app:").append(String.format("%016x",
+                        hashApplicationClasses(World.get().getClassHierarchy())));
+        return key.toString();
+    }
+
+    private static long hashApplicationClasses(ClassHierarchy hierarchy) {
+        long hash = FNV_OFFSET;
+        for (JClass c : hierarchy.applicationClasses()
+                .sorted(Comparator.comparing(JClass::getName)).toList()) {
+            hash = hash(hash, c.getName());
+            JClass superClass = c.getSuperClass();
+            hash = hash(hash, superClass != null ? superClass.getName() : "");
+            for (String name : c.getInterfaces().stream()
+                    .map(JClass::getName).sorted().toList()) {
+                hash = hash(hash, name);
+            }
+            for (String field : c.getDeclaredFields().stream()
+                    .map(JField::getSignature).sorted().toList()) {
+                hash = hash(hash, field);
+            }
+            for (String method : c.getDeclaredMethods().stream()
+                    .map(JMethod::getSignature).sorted().toList()) {
+                hash = hash(hash, method);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return the fingerprint of the IR of given method, i.e., a hash of
+     * its variables and statements. The line numbers are excluded, so that
+     * the methods only moved in the source file are unchanged.
+     */
+    static long fingerprint(JMethod method) {
+        IR ir = method.getIR();
+        long hash = FNV_OFFSET;
+        for (Var var : ir.getVars()) {
+            hash = hash(hash, var.getName() + ':' + var.getType());
+        }
+        for (Stmt stmt : ir) {
+            hash = hash(hash, stmt.toString());
+        }
+        return hash;
+    }
+
+    /**
+     * Continues 64-bit FNV-1a hash with given string and a terminator.
+     */
+    private static long hash(long hash, String s) {
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= '\n';
+        hash *= 0x100000001b3L;
+        return hash;
+    }
+
+    /**
+     * Loads the state of a previous run from given file, and invalidates
+     * the facts that may depend on the methods changed since that run.
+     *
+     * @param file            the state file.
+     * @param key             the expected key of the state.
+     * @param heapModel       the heap model to create the objects of
+     *                        current program.
+     * @param contextSelector the context selector of the incremental solver,
+     *                        which creates the contexts of current program.
+     * @return the state, or null if the file does not exist, or it is not
+     * a state of current version with given key, or it does not match
+     * current program.
+     * @throws AnalysisException if failed to read the file.
+     */
+    @Nullable
+    static SolverState load(Path file, String key, HeapModel heapModel,
+                            ContextSelector contextSelector) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.info("Ignoring {}: not a solver state of version {}",
+                        file, VERSION);
+                return null;
+            }
+            String[] strings = new String[readVarInt(in)];
+            for (int i = 0; i < strings.length; ++i) {
+                byte[] bytes = new byte[readVarInt(in)];
+                in.readFully(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            if (!strings[0].equals(key)) {
+                logger.info("Ignoring {}: solver state of \"{}\", expected \"{}\"",
+                        file, strings[0], key);
+                return null;
+            }
+            SolverState state = new SolverState();
+            new Loader(strings, heapModel, contextSelector).load(in, state);
+            logger.info("Loaded solver state from {}: {} methods changed, " +
+                            "{} pointers and {} CS methods invalidated", file,
+                    state.numberOfChangedMethods, state.numberOfInvalidPointers,
+                    state.numberOfInvalidMethods);
+            return state;
+        } catch (StaleStateException e) {
+            logger.info("Ignoring {}: {}", file, e.getMessage());
+            return null;
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to load solver state " + file, e);
+        }
+    }
+
+    int getNumberOfChangedMethods() {
+        return numberOfChangedMethods;
+    }
+
+    int getNumberOfInvalidPointers() {
+        return numberOfInvalidPointers;
+    }
+
+    int getNumberOfInvalidMethods() {
+        return numberOfInvalidMethods;
+    }
+
+    /**
+     * Restores the valid facts of the previous run to the elements of the
+     * incremental solver: the points-to sets of valid pointers are set
+     * directly, and the PFG edges between valid pointers, the reachable
+     * valid CS methods and the call edges between them are added without
+     * going through the work list.
+     *
+     * @return the restored CS methods which must be processed again, i.e.,
+     * those with invalid variables, and those whose statements connect
+     * valid pointers or methods to invalid ones. Their facts that only
+     * involve valid ones are already restored.
+     */
+    List<CSMethod> restore(CSManager csManager, CSCallGraph callGraph,
+                           PointerFlowGraph pointerFlowGraph) {
+        CSObj[] csObjs = new CSObj[csObjObjs.length];
+        for (int i = 0; i < csObjs.length; ++i) {
+            if (csObjObjs[i] != null) {
+                csObjs[i] = csManager.getCSObj(csObjContexts[i], csObjObjs[i]);
+            }
+        }
+        Pointer[] restored = new Pointer[pointers.length];
+        for (int i = 0; i < pointers.length; ++i) {
+            RestoredPointer p = pointers[i];
+            if (p != null) {
+                restored[i] = switch (p.kind()) {
+                    case VAR -> csManager.getCSVar(p.context(), p.var());
+                    case STATIC_FIELD -> csManager.getStaticField(p.field());
+                    case INSTANCE_FIELD -> csManager.getInstanceField(
+                            csObjs[p.base()], p.field());
+                    default -> csManager.getArrayIndex(csObjs[p.base()]);
+                };
+                PointsToSet pts = restored[i].getPointsToSet();
+                for (int id : pointsToSets[i]) {
+                    pts.addObject(csObjs[id]);
+                }
+            }
+        }
+        for (int i = 0; i < pointers.length; ++i) {
+            if (restored[i] != null) {
+                for (int succ : succs[i]) {
+                    if (restored[succ] != null) {
+                        pointerFlowGraph.addEdge(restored[i], restored[succ]);
+                    }
+                }
+            }
+        }
+        CSMethod[] csMethods = new CSMethod[csMethodMethods.length];
+        List<CSMethod> reprocessed = new ArrayList<>();
+        for (int i = 0; i < csMethods.length; ++i) {
+            if (csMethodContexts[i] != null) {
+                csMethods[i] = csManager.getCSMethod(
+                        csMethodContexts[i], csMethodMethods[i]);
+                callGraph.addReachableMethod(csMethods[i]);
+                if (reprocessedMethods.get(i)) {
+                    reprocessed.add(csMethods[i]);
+                }
+            }
+        }
+        for (int i = 0; i < callers.length; ++i) {
+            CSMethod caller = csMethods[callers[i]];
+            CSCallSite csCallSite = csManager.getCSCallSite(
+                    caller.getContext(), callSites[i]);
+            callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(callSites[i]),
+                    csCallSite, csMethods[callees[i]]));
+        }
+        return reprocessed;
+    }
+
+    static void writeVarInt(DataOutput out, int i) throws IOException {
+        while ((i & ~0x7f) != 0) {
+            out.writeByte((i & 0x7f) | 0x80);
+            i >>>= 7;
+        }
+        out.writeByte(i);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int i = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            i |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * A valid pointer of the previous run, identified by the elements of
+     * current program: the variable and context of a CS variable, the field
+     * of a static field, the base CS object (id) and field of an instance
+     * field, or the array CS object (id) of an array index.
+     */
+    private record RestoredPointer(int kind, @Nullable Var var,
+                                   @Nullable Context context,
+                                   @Nullable JField field, int base) {
+    }
+
+    /**
+     * Thrown when a state file does not match current program.
+     */
+    private static class StaleStateException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private StaleStateException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Reads a state file, invalidates the facts that depend on the changed
+     * methods, and restores the valid points-to sets.
+     */
+    private static class Loader {
+
+        private final String[] strings;
+
+        private final HeapModel heapModel;
+
+        private final ContextSelector contextSelector;
+
+        private final ClassHierarchy hierarchy;
+
+        private final TypeSystem typeSystem;
+
+        private final Map<String, Integer> stringIds = Maps.newMap();
+
+        /**
+         * Ids of the changed methods in the string table.
+         */
+        private final BitSet changedMethods = new BitSet();
+
+        private final JMethod[] methods;
+
+        private int[] objMethods;
+
+        private int[] objStmts;
+
+        /**
+         * Elements of each context, where each element is its kind followed
+         * by the ids (method and index of call site, object or type).
+         */
+        private int[][] contexts;
+
+        private int[] csObjContexts;
+
+        private int[] csObjObjs;
+
+        private int[] csMethodContexts;
+
+        private int[] csMethodMethods;
+
+        /**
+         * Kinds and descriptors of the pointers.
+         */
+        private int[] kinds;
+
+        private int[] descriptors0;
+
+        private int[] descriptors1;
+
+        private int[] descriptors2;
+
+        private int[][] pts;
+
+        private int[][] succs;
+
+        /**
+         * Callers, indexes of call sites and callees of the call edges.
+         */
+        private int[] edgeCallers;
+
+        private int[] edgeCallSites;
+
+        private int[] edgeCallees;
+
+        /**
+         * Indexes of the pointers and CS methods by their descriptors.
+         */
+        private final Map<List<Integer>, Integer> varPointers = Maps.newMap();
+
+        private final Map<Integer, Integer> staticFieldPointers = Maps.newMap();
+
+        private final Map<List<Integer>, Integer> instanceFieldPointers = Maps.newMap();
+
+        private final Map<Integer, Integer> arrayPointers = Maps.newMap();
+
+        private final Map<List<Integer>, Integer> csMethodIds = Maps.newMap();
+
+        /**
+         * Map from each CS method to its variables.
+         */
+        private final MultiMap<Integer, Integer> varsOf = Maps.newMultiMap();
+
+        /**
+         * Map from each CS method to its callees.
+         */
+        private final MultiMap<Integer, Integer> calleesOf = Maps.newMultiMap();
+
+        /**
+         * Map from (CS method, index of call site) to the callees.
+         */
+        private final MultiMap<List<Integer>, Integer> calleesAt = Maps.newMultiMap();
+
+        private final BitSet invalidPointers = new BitSet();
+
+        private final BitSet invalidMethods = new BitSet();
+
+        private final Queue<Integer> pointerQueue = new ArrayDeque<>();
+
+        private final Queue<Integer> methodQueue = new ArrayDeque<>();
+
+        private Loader(String[] strings, HeapModel heapModel,
+                       ContextSelector contextSelector) {
+            this.strings = strings;
+            this.heapModel = heapModel;
+            this.contextSelector = contextSelector;
+            this.hierarchy = World.get().getClassHierarchy();
+            this.typeSystem = World.get().getTypeSystem();
+            this.methods = new JMethod[strings.length];
+            for (int i = 0; i < strings.length; ++i) {
+                stringIds.put(strings[i], i);
+            }
+        }
+
+        private void load(DataInputStream in, SolverState state) throws IOException {
+            readFingerprints(in);
+            readElements(in);
+            readPointers(in);
+            readCallEdges(in);
+            invalidate();
+            restore(state);
+            state.numberOfChangedMethods = changedMethods.cardinality();
+            state.numberOfInvalidPointers = invalidPointers.cardinality();
+            state.numberOfInvalidMethods = invalidMethods.cardinality();
+        }
+
+        private void readFingerprints(DataInputStream in) throws IOException {
+            for (int i = readVarInt(in); i > 0; --i) {
+                int methodId = readVarInt(in);
+                long fingerprint = in.readLong();
+                JMethod method = hierarchy.getMethod(strings[methodId]);
+                if (method == null || fingerprint(method) != fingerprint) {
+                    changedMethods.set(methodId);
+                }
+            }
+        }
+
+        private void readElements(DataInputStream in) throws IOException {
+            int count = readVarInt(in);
+            objMethods = new int[count];
+            objStmts = new int[count];
+            for (int i = 0; i < count; ++i) {
+                objMethods[i] = readVarInt(in);
+                objStmts[i] = readVarInt(in);
+            }
+            contexts = new int[readVarInt(in)][];
+            for (int i = 0; i < contexts.length; ++i) {
+                int[] elems = new int[3 * readVarInt(in)];
+                int n = 0;
+                for (int j = 0; j < elems.length; j += 3) {
+                    int kind = readVarInt(in);
+                    elems[n++] = kind;
+                    elems[n++] = readVarInt(in);
+                    if (kind == CALL_SITE_ELEMENT) {
+                        elems[n++] = readVarInt(in);
+                    }
+                }
+                contexts[i] = Arrays.copyOf(elems, n);
+            }
+            count = readVarInt(in);
+            csObjContexts = new int[count];
+            csObjObjs = new int[count];
+            for (int i = 0; i < count; ++i) {
+                csObjContexts[i] = readVarInt(in);
+                csObjObjs[i] = readVarInt(in);
+            }
+            count = readVarInt(in);
+            csMethodContexts = new int[count];
+            csMethodMethods = new int[count];
+            for (int i = 0; i < count; ++i) {
+                csMethodContexts[i] = readVarInt(in);
+                csMethodMethods[i] = readVarInt(in);
+                csMethodIds.put(List.of(csMethodContexts[i], csMethodMethods[i]), i);
+            }
+        }
+
+        private void readPointers(DataInputStream in) throws IOException {
+            int count = readVarInt(in);
+            kinds = new int[count];
+            descriptors0 = new int[count];
+            descriptors1 = new int[count];
+            descriptors2 = new int[count];
+            pts = new int[count][];
+            succs = new int[count][];
+            for (int i = 0; i < count; ++i) {
+                int kind = kinds[i] = readVarInt(in);
+                descriptors0[i] = readVarInt(in);
+                switch (kind) {
+                    case VAR -> {
+                        descriptors1[i] = readVarInt(in);
+                        descriptors2[i] = readVarInt(in);
+                        List<Integer> csMethod = List.of(descriptors0[i], descriptors1[i]);
+                        varPointers.put(List.of(descriptors0[i], descriptors1[i],
+                                descriptors2[i]), i);
+                        Integer csMethodId = csMethodIds.get(csMethod);
+                        if (csMethodId != null) {
+                            varsOf.put(csMethodId, i);
+                        }
+                    }
+                    case STATIC_FIELD -> staticFieldPointers.put(descriptors0[i], i);
+                    case INSTANCE_FIELD -> {
+                        descriptors1[i] = readVarInt(in);
+                        instanceFieldPointers.put(
+                                List.of(descriptors0[i], descriptors1[i]), i);
+                    }
+                    case ARRAY_INDEX -> arrayPointers.put(descriptors0[i], i);
+                    default -> throw new StaleStateException(
+                            "unknown kind of pointer: " + kind);
+                }
+                int[] ids = pts[i] = new int[readVarInt(in)];
+                int last = 0;
+                for (int j = 0; j < ids.length; ++j) {
+                    last += readVarInt(in);
+                    ids[j] = last;
+                }
+                int[] s = succs[i] = new int[readVarInt(in)];
+                for (int j = 0; j < s.length; ++j) {
+                    s[j] = readVarInt(in);
+                }
+            }
+        }
+
+        private void readCallEdges(DataInputStream in) throws IOException {
+            int count = readVarInt(in);
+            edgeCallers = new int[count];
+            edgeCallSites = new int[count];
+            edgeCallees = new int[count];
+            for (int i = 0; i < count; ++i) {
+                int caller = edgeCallers[i] = readVarInt(in);
+                int callSite = edgeCallSites[i] = readVarInt(in);
+                int callee = edgeCallees[i] = readVarInt(in);
+                calleesOf.put(caller, callee);
+                calleesAt.put(List.of(caller, callSite), callee);
+            }
+        }
+
+        /**
+         * Computes the invalid pointers and CS methods.
+         */
+        private void invalidate() {
+            for (int i = 0; i < csMethodMethods.length; ++i) {
+                if (changedMethods.get(csMethodMethods[i])) {
+                    invalidateMethod(i);
+                }
+            }
+            while (!pointerQueue.isEmpty() || !methodQueue.isEmpty()) {
+                while (!methodQueue.isEmpty()) {
+                    int method = methodQueue.poll();
+                    varsOf.get(method).forEach(this::invalidatePointer);
+                    calleesOf.get(method).forEach(this::invalidateMethod);
+                }
+                while (!pointerQueue.isEmpty()) {
+                    int pointer = pointerQueue.poll();
+                    for (int succ : succs[pointer]) {
+                        invalidatePointer(succ);
+                    }
+                    // the accesses in the changed methods are covered by
+                    // the invalid variables and callees of the methods
+                    if (kinds[pointer] == VAR &&
+                            !changedMethods.get(descriptors1[pointer])) {
+                        invalidateAccesses(pointer);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Invalidates the pointers and CS methods whose facts depend on
+         * the objects pointed by given variable. The variable is in an
+         * unchanged method, thus its accesses in current program are
+         * the same as in the previous run.
+         */
+        private void invalidateAccesses(int pointer) {
+            int context = descriptors0[pointer];
+            int methodId = descriptors1[pointer];
+            Var var = getVar(methodId, descriptors2[pointer]);
+            for (LoadField load : var.getLoadFields()) {
+                invalidateVar(context, methodId, load.getLValue());
+            }
+            for (LoadArray load : var.getLoadArrays()) {
+                invalidateVar(context, methodId, load.getLValue());
+            }
+            for (int obj : pts[pointer]) {
+                for (StoreField store : var.getStoreFields()) {
+                    Integer field = stringIds.get(
+                            store.getFieldRef().resolve().getSignature());
+                    if (field != null) {
+                        invalidatePointer(instanceFieldPointers.get(List.of(obj, field)));
+                        // the instance fields are static field pointers
+                        // if they are field-based
+                        invalidatePointer(staticFieldPointers.get(field));
+                    }
+                }
+                if (!var.getStoreArrays().isEmpty()) {
+                    invalidatePointer(arrayPointers.get(obj));
+                }
+            }
+            Integer csMethod = csMethodIds.get(List.of(context, methodId));
+            if (csMethod != null) {
+                for (Invoke callSite : var.getInvokes()) {
+                    calleesAt.get(List.of(csMethod, callSite.getIndex()))
+                            .forEach(this::invalidateMethod);
+                }
+            }
+        }
+
+        private void invalidateVar(int context, int methodId, Var var) {
+            invalidatePointer(varPointers.get(
+                    List.of(context, methodId, var.getIndex())));
+        }
+
+        private void invalidatePointer(@Nullable Integer pointer) {
+            if (pointer != null && !invalidPointers.get(pointer)) {
+                invalidPointers.set(pointer);
+                pointerQueue.add(pointer);
+            }
+        }
+
+        private void invalidateMethod(int method) {
+            if (!invalidMethods.get(method)) {
+                invalidMethods.set(method);
+                methodQueue.add(method);
+            }
+        }
+
+        /**
+         * Restores the valid elements and facts to the elements of current
+         * program, and finds the CS methods to be processed again.
+         */
+        private void restore(SolverState state) {
+            Obj[] objs = new Obj[objMethods.length];
+            for (int i = 0; i < objs.length; ++i) {
+                if (objMethods[i] != 0 && isUnchanged(objMethods[i])) {
+                    Stmt stmt = getStmt(objMethods[i], objStmts[i]);
+                    if (!(stmt instanceof New allocSite)) {
+                        throw new StaleStateException(
+                                stmt + " is not an allocation site");
+                    }
+                    objs[i] = heapModel.getObj(allocSite);
+                }
+            }
+            Context[] restoredContexts = new Context[contexts.length];
+            for (int i = 0; i < contexts.length; ++i) {
+                restoredContexts[i] = restoreContext(contexts[i], objs);
+            }
+            state.csObjContexts = new Context[csObjObjs.length];
+            state.csObjObjs = new Obj[csObjObjs.length];
+            for (int i = 0; i < csObjObjs.length; ++i) {
+                Context context = restoredContexts[csObjContexts[i]];
+                Obj obj = objs[csObjObjs[i]];
+                if (context != null && obj != null) {
+                    state.csObjContexts[i] = context;
+                    state.csObjObjs[i] = obj;
+                }
+            }
+            state.csMethodContexts = new Context[csMethodMethods.length];
+            state.csMethodMethods = new JMethod[csMethodMethods.length];
+            for (int i = 0; i < csMethodMethods.length; ++i) {
+                Context context = restoredContexts[csMethodContexts[i]];
+                if (!invalidMethods.get(i) && context != null &&
+                        isUnchanged(csMethodMethods[i])) {
+                    state.csMethodContexts[i] = context;
+                    state.csMethodMethods[i] = getMethod(csMethodMethods[i]);
+                }
+            }
+            state.pointers = new RestoredPointer[kinds.length];
+            state.pointsToSets = new int[kinds.length][];
+            state.succs = succs;
+            for (int i = 0; i < kinds.length; ++i) {
+                if (!invalidPointers.get(i)) {
+                    state.pointers[i] = restorePointer(i, restoredContexts, state);
+                }
+                if (state.pointers[i] != null) {
+                    // the objects that cannot be restored are only pointed
+                    // to by invalid pointers, as they are allocated in
+                    // changed methods or their callees
+                    state.pointsToSets[i] = Arrays.stream(pts[i])
+                            .filter(id -> state.csObjObjs[id] != null)
+                            .toArray();
+                }
+            }
+            state.reprocessedMethods = findReprocessedMethods(state);
+            // the call edges of the methods to be processed again are not
+            // restored, so that processing their call sites adds the PFG
+            // edges of the arguments and return values again
+            List<Integer> validEdges = new ArrayList<>();
+            for (int i = 0; i < edgeCallers.length; ++i) {
+                int caller = edgeCallers[i];
+                if (state.csMethodContexts[caller] != null &&
+                        !state.reprocessedMethods.get(caller) &&
+                        state.csMethodContexts[edgeCallees[i]] != null) {
+                    validEdges.add(i);
+                }
+            }
+            state.callers = new int[validEdges.size()];
+            state.callSites = new Invoke[validEdges.size()];
+            state.callees = new int[validEdges.size()];
+            for (int i = 0; i < validEdges.size(); ++i) {
+                int edge = validEdges.get(i);
+                state.callers[i] = edgeCallers[edge];
+                state.callees[i] = edgeCallees[edge];
+                Stmt stmt = getStmt(csMethodMethods[edgeCallers[edge]],
+                        edgeCallSites[edge]);
+                if (!(stmt instanceof Invoke callSite)) {
+                    throw new StaleStateException(stmt + " is not a call site");
+                }
+                state.callSites[i] = callSite;
+            }
+        }
+
+        /**
+         * @return the pointer of current program that is identified by
+         * the descriptor of given pointer, or null if it is absent.
+         */
+        @Nullable
+        private RestoredPointer restorePointer(
+                int i, Context[] restoredContexts, SolverState state) {
+            switch (kinds[i]) {
+                case VAR -> {
+                    Context context = restoredContexts[descriptors0[i]];
+                    return context != null && isUnchanged(descriptors1[i]) ?
+                            new RestoredPointer(VAR, getVar(descriptors1[i],
+                                    descriptors2[i]), context, null, -1) : null;
+                }
+                case STATIC_FIELD -> {
+                    JField field = hierarchy.getField(strings[descriptors0[i]]);
+                    return field != null ?
+                            new RestoredPointer(STATIC_FIELD, null, null, field, -1) : null;
+                }
+                case INSTANCE_FIELD -> {
+                    int base = descriptors0[i];
+                    JField field = hierarchy.getField(strings[descriptors1[i]]);
+                    return state.csObjObjs[base] != null && field != null ?
+                            new RestoredPointer(INSTANCE_FIELD, null, null, field, base) :
+                            null;
+                }
+                default -> {
+                    int base = descriptors0[i];
+                    return state.csObjObjs[base] != null ?
+                            new RestoredPointer(ARRAY_INDEX, null, null, null, base) :
+                            null;
+                }
+            }
+        }
+
+        /**
+         * Finds the valid CS methods to be processed again. Each PFG edge
+         * is created by a statement of the CS method of one of its variable
+         * endpoints (e.g., the caller for the edges of arguments and return
+         * values), and each call edge by a statement of its caller. Thus, the
+         * methods are those with invalid variables, those of the variables
+         * of the edges that are not restored, and the callers of the call
+         * edges that are not restored.
+         */
+        private BitSet findReprocessedMethods(SolverState state) {
+            BitSet methods = new BitSet();
+            for (int i = 0; i < kinds.length; ++i) {
+                if (state.pointers[i] == null) {
+                    markMethodOf(i, methods);
+                }
+                for (int succ : succs[i]) {
+                    if (state.pointers[i] == null || state.pointers[succ] == null) {
+                        markMethodOf(i, methods);
+                        markMethodOf(succ, methods);
+                    }
+                }
+            }
+            for (int i = 0; i < edgeCallers.length; ++i) {
+                if (state.csMethodContexts[edgeCallees[i]] == null) {
+                    methods.set(edgeCallers[i]);
+                }
+            }
+            // only the restored methods are processed again,
+            // and the others are processed when they are reached
+            for (int i = methods.nextSetBit(0); i >= 0; i = methods.nextSetBit(i + 1)) {
+                if (state.csMethodContexts[i] == null) {
+                    methods.clear(i);
+                }
+            }
+            return methods;
+        }
+
+        private void markMethodOf(int pointer, BitSet methods) {
+            if (kinds[pointer] == VAR) {
+                Integer csMethod = csMethodIds.get(
+                        List.of(descriptors0[pointer], descriptors1[pointer]));
+                if (csMethod != null) {
+                    methods.set(csMethod);
+                }
+            }
+        }
+
+        /**
+         * @return the context of current program that consists of given
+         * elements, or null if any element is in a changed method.
+         */
+        @Nullable
+        private Context restoreContext(int[] elems, Obj[] objs) {
+            Object[] elements = new Object[elems.length];
+            int n = 0;
+            for (int i = 0; i < elems.length; ) {
+                int kind = elems[i++];
+                Object elem = switch (kind) {
+                    case CALL_SITE_ELEMENT -> {
+                        int methodId = elems[i++];
+                        int index = elems[i++];
+                        if (!isUnchanged(methodId)) {
+                            yield null;
+                        }
+                        Stmt stmt = getStmt(methodId, index);
+                        if (!(stmt instanceof Invoke)) {
+                            throw new StaleStateException(stmt + " is not a call site");
+                        }
+                        yield stmt;
+                    }
+                    case OBJECT_ELEMENT -> objs[elems[i++]];
+                    case TYPE_ELEMENT -> typeSystem.getType(strings[elems[i++]]);
+                    default -> throw new StaleStateException(
+                            "unknown kind of context element: " + kind);
+                };
+                if (elem == null) {
+                    return null;
+                }
+                elements[n++] = elem;
+            }
+            Context empty = contextSelector.getEmptyContext();
+            return n == 0 ? empty :
+                    TrieContext.extend(empty, Arrays.copyOf(elements, n));
+        }
+
+        private boolean isUnchanged(int methodId) {
+            return !changedMethods.get(methodId) && getMethod(methodId) != null;
+        }
+
+        @Nullable
+        private JMethod getMethod(int id) {
+            if (methods[id] == null) {
+                methods[id] = hierarchy.getMethod(strings[id]);
+            }
+            return methods[id];
+        }
+
+        private Stmt getStmt(int methodId, int index) {
+            IR ir = getIR(methodId);
+            if (index >= ir.getStmts().size()) {
+                throw new StaleStateException(
+                        ir.getMethod() + " does not have statement " + index);
+            }
+            return ir.getStmt(index);
+        }
+
+        private Var getVar(int methodId, int index) {
+            IR ir = getIR(methodId);
+            if (index >= ir.getVars().size()) {
+                throw new StaleStateException(
+                        ir.getMethod() + " does not have variable " + index);
+            }
+            return ir.getVar(index);
+        }
+
+        private IR getIR(int methodId) {
+            JMethod method = getMethod(methodId);
+            if (method == null) {
+                throw new StaleStateException(
+                        "method " + strings[methodId] + " is absent");
+            }
+            return method.getIR();
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static pascal.taie.analysis.pta.cs.SolverState.writeVarInt;
+
+/**
+ * Writes the state of a finished {@link Solver} to a file in the format
+ * described in {@link SolverState}.
+ * <p>
+ * Each object is identified by an allocation site that is mapped to it
+ * by the heap model. The objects that are not allocated by any reachable
+ * allocation site, e.g., the mock objects, are written without allocation
+ * sites, thus are not restored. This is sound, as the incremental solver
+ * re-creates such objects.
+ */
+class SolverStateWriter {
+
+    private final HeapModel heapModel;
+
+    private final CSManager csManager;
+
+    private final CSCallGraph callGraph;
+
+    private final PointerFlowGraph pointerFlowGraph;
+
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    /**
+     * Ids of the objects in the state, with their allocation sites
+     * (null if an object has no allocation site).
+     */
+    private final Map<Obj, Integer> objIds = Maps.newMap();
+
+    private final List<New> allocSites = new ArrayList<>();
+
+    private final Map<Context, Integer> contextIds = new LinkedHashMap<>();
+
+    /**
+     * Map from the indexes of the CS objects to their ids in the state.
+     */
+    private final Map<Integer, Integer> csObjIds = Maps.newMap();
+
+    private final Map<CSMethod, Integer> csMethodIds = new LinkedHashMap<>();
+
+    /**
+     * Map from the indexes of the pointers to their ids in the state.
+     */
+    private final Map<Integer, Integer> pointerIds = Maps.newMap();
+
+    SolverStateWriter(HeapModel heapModel, CSManager csManager,
+                      CSCallGraph callGraph, PointerFlowGraph pointerFlowGraph) {
+        this.heapModel = heapModel;
+        this.csManager = csManager;
+        this.callGraph = callGraph;
+        this.pointerFlowGraph = pointerFlowGraph;
+    }
+
+    /**
+     * Writes the state with given key to given file.
+     *
+     * @throws AnalysisException if failed to write the file.
+     */
+    void write(Path file, String key) {
+        getStringId(key);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            writeBody(new DataOutputStream(body));
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.writeInt(SolverState.MAGIC);
+                out.writeInt(SolverState.VERSION);
+                writeVarInt(out, strings.size());
+                for (String s : strings.keySet()) {
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    writeVarInt(out, bytes.length);
+                    out.write(bytes);
+                }
+                body.writeTo(out);
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to save solver state " + file, e);
+        }
+    }
+
+    private void writeBody(DataOutputStream out) throws IOException {
+        List<JMethod> methods = callGraph.reachableMethods()
+                .map(CSMethod::getMethod)
+                .distinct()
+                .toList();
+        List<JMethod> appMethods = methods.stream()
+                .filter(m -> m.getDeclaringClass().isApplication())
+                .toList();
+        writeVarInt(out, appMethods.size());
+        for (JMethod method : appMethods) {
+            writeVarInt(out, getStringId(method.getSignature()));
+            out.writeLong(SolverState.fingerprint(method));
+        }
+        for (JMethod method : methods) {
+            for (Stmt stmt : method.getIR()) {
+                if (stmt instanceof New allocSite) {
+                    objIds.computeIfAbsent(heapModel.getObj(allocSite), o -> {
+                        allocSites.add(allocSite);
+                        return allocSites.size() - 1;
+                    });
+                }
+            }
+        }
+        ByteArrayOutputStream elements = new ByteArrayOutputStream();
+        writeElements(new DataOutputStream(elements));
+        // the objects without allocation sites are known after
+        // the CS objects and contexts are written
+        writeVarInt(out, allocSites.size());
+        for (New allocSite : allocSites) {
+            if (allocSite != null) {
+                writeVarInt(out, getStringId(allocSite.getContainer().getSignature()));
+                writeVarInt(out, allocSite.getIndex());
+            } else {
+                writeVarInt(out, 0);
+                writeVarInt(out, 0);
+            }
+        }
+        elements.writeTo(out);
+        writePointers(out);
+        List<Edge<CSCallSite, CSMethod>> edges = callGraph.edges().toList();
+        writeVarInt(out, edges.size());
+        for (Edge<CSCallSite, CSMethod> edge : edges) {
+            writeVarInt(out, getCSMethodId(edge.getCallSite().getContainer()));
+            writeVarInt(out, edge.getCallSite().getCallSite().getIndex());
+            writeVarInt(out, getCSMethodId(edge.getCallee()));
+        }
+    }
+
+    /**
+     * Writes the contexts, CS objects and CS methods.
+     */
+    private void writeElements(DataOutputStream out) throws IOException {
+        List<CSObj> csObjs = new ArrayList<>();
+        for (CSObj csObj : csManager.getObjects()) {
+            csObjIds.put(csObj.getIndex(), csObjs.size());
+            csObjs.add(csObj);
+            getContextId(csObj.getContext());
+        }
+        callGraph.reachableMethods().forEach(m -> {
+            getCSMethodId(m);
+            getContextId(m.getContext());
+        });
+        csManager.getCSVars().forEach(v -> getContextId(v.getContext()));
+        writeVarInt(out, contextIds.size());
+        for (Context context : contextIds.keySet()) {
+            writeVarInt(out, context.getLength());
+            for (int i = 0; i < context.getLength(); ++i) {
+                writeContextElement(out, context.getElementAt(i));
+            }
+        }
+        writeVarInt(out, csObjs.size());
+        for (CSObj csObj : csObjs) {
+            writeVarInt(out, contextIds.get(csObj.getContext()));
+            writeVarInt(out, getObjId(csObj.getObject()));
+        }
+        writeVarInt(out, csMethodIds.size());
+        for (CSMethod csMethod : csMethodIds.keySet()) {
+            writeVarInt(out, contextIds.get(csMethod.getContext()));
+            writeVarInt(out, getStringId(csMethod.getMethod().getSignature()));
+        }
+    }
+
+    private void writeContextElement(DataOutputStream out, Object elem)
+            throws IOException {
+        if (elem instanceof Invoke callSite) {
+            writeVarInt(out, SolverState.CALL_SITE_ELEMENT);
+            writeVarInt(out, getStringId(callSite.getContainer().getSignature()));
+            writeVarInt(out, callSite.getIndex());
+        } else if (elem instanceof Obj obj) {
+            writeVarInt(out, SolverState.OBJECT_ELEMENT);
+            writeVarInt(out, getObjId(obj));
+        } else {
+            writeVarInt(out, SolverState.TYPE_ELEMENT);
+            writeVarInt(out, getStringId(((Type) elem).getName()));
+        }
+    }
+
+    private void writePointers(DataOutputStream out) throws IOException {
+        List<Pointer> pointers = new ArrayList<>();
+        csManager.getCSVars().forEach(p -> addPointer(pointers, p));
+        csManager.getStaticFields().forEach(p -> addPointer(pointers, p));
+        csManager.getInstanceFields().forEach(p -> addPointer(pointers, p));
+        csManager.getArrayIndexes().forEach(p -> addPointer(pointers, p));
+        writeVarInt(out, pointers.size());
+        for (Pointer pointer : pointers) {
+            if (pointer instanceof CSVar csVar) {
+                writeVarInt(out, SolverState.VAR);
+                writeVarInt(out, contextIds.get(csVar.getContext()));
+                writeVarInt(out, getStringId(csVar.getVar().getMethod().getSignature()));
+                writeVarInt(out, csVar.getVar().getIndex());
+            } else if (pointer instanceof StaticField staticField) {
+                writeVarInt(out, SolverState.STATIC_FIELD);
+                writeVarInt(out, getStringId(staticField.getField().getSignature()));
+            } else if (pointer instanceof InstanceField instanceField) {
+                writeVarInt(out, SolverState.INSTANCE_FIELD);
+                writeVarInt(out, csObjIds.get(instanceField.getBase().getIndex()));
+                writeVarInt(out, getStringId(instanceField.getField().getSignature()));
+            } else {
+                writeVarInt(out, SolverState.ARRAY_INDEX);
+                writeVarInt(out, csObjIds.get(((ArrayIndex) pointer).getArray().getIndex()));
+            }
+            int[] ids = pointer.getPointsToSet().objects()
+                    .mapToInt(o -> csObjIds.get(o.getIndex()))
+                    .sorted()
+                    .toArray();
+            writeVarInt(out, ids.length);
+            int last = 0;
+            for (int id : ids) {
+                writeVarInt(out, id - last);
+                last = id;
+            }
+            List<Integer> succs = getSuccsOf(pointer);
+            writeVarInt(out, succs.size());
+            for (int succ : succs) {
+                writeVarInt(out, succ);
+            }
+        }
+    }
+
+    private void addPointer(List<Pointer> pointers, Pointer pointer) {
+        pointerIds.put(pointer.getIndex(), pointers.size());
+        pointers.add(pointer);
+    }
+
+    /**
+     * @return ids of the successors of given pointer. The pointers merged
+     * on a PFG cycle share the successors of their representative, thus
+     * the edges between them and the representative are written instead.
+     */
+    private List<Integer> getSuccsOf(Pointer pointer) {
+        Pointer rep = pointerFlowGraph.getRep(pointer);
+        Set<Integer> succs = new LinkedHashSet<>();
+        if (rep.getIndex() != pointer.getIndex()) {
+            succs.add(pointerIds.get(rep.getIndex()));
+        } else {
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                succs.add(pointerIds.get(succ.getIndex()));
+            }
+            for (Pointer merged : pointerFlowGraph.getMergedPointers(pointer)) {
+                if (merged.getIndex() != pointer.getIndex()) {
+                    succs.add(pointerIds.get(merged.getIndex()));
+                }
+            }
+        }
+        return List.copyOf(succs);
+    }
+
+    private int getObjId(Obj obj) {
+        return objIds.computeIfAbsent(obj, o -> {
+            allocSites.add(null);
+            return allocSites.size() - 1;
+        });
+    }
+
+    private int getContextId(Context context) {
+        return contextIds.computeIfAbsent(context, c -> contextIds.size());
+    }
+
+    private int getCSMethodId(CSMethod csMethod) {
+        return csMethodIds.computeIfAbsent(csMethod, m -> csMethodIds.size());
+    }
+
+    private int getStringId(String s) {
+        return strings.computeIfAbsent(s, k -> strings.size());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.TopoSorter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Processes the entries in the topological order of their pointers
+ * in the PFG, so that a pointer is processed after its predecessors.
+ * The pointers on a cycle have the same rank.
+ * <p>
+ * As the PFG grows during the analysis, the ranks are recomputed
+ * whenever the number of PFG edges doubles.
+ */
+class TopologicalStrategy extends PriorityStrategy {
+
+    /**
+     * Ranks are not computed until the PFG has this number of edges.
+     */
+    private static final int MIN_EDGES = 64;
+
+    private final PointerFlowGraph pointerFlowGraph;
+
+    /**
+     * Map from each pointer (representative) to its topological rank.
+     */
+    private Map<Pointer, Integer> ranks = Map.of();
+
+    /**
+     * Number of PFG edges when the ranks were computed.
+     */
+    private int rankedEdges = 0;
+
+    TopologicalStrategy(PointerFlowGraph pointerFlowGraph) {
+        this.pointerFlowGraph = pointerFlowGraph;
+    }
+
+    @Override
+    public WorkList.Entry poll() {
+        int edges = pointerFlowGraph.getNumberOfEdges();
+        if (edges >= MIN_EDGES && edges >= 2 * rankedEdges) {
+            computeRanks();
+            rankedEdges = edges;
+            updatePriorities();
+        }
+        return super.poll();
+    }
+
+    private void computeRanks() {
+        List<MergedNode<Pointer>> sorted = new TopoSorter<>(
+                new MergedSCCGraph<>(pointerFlowGraph.toGraph())).get();
+        ranks = Maps.newMap();
+        for (int i = 0; i < sorted.size(); ++i) {
+            for (Pointer pointer : sorted.get(i).getNodes()) {
+                ranks.put(pointer, i);
+            }
+        }
+    }
+
+    @Override
+    protected long getPriority(Pointer pointer) {
+        // pointers that are not ranked yet come first
+        return ranks.getOrDefault(pointerFlowGraph.getRep(pointer), -1);
+    }
+
+    @Override
+    public String getName() {
+        return "topo";
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.MapMapTwoKeyMap;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filters the objects propagated to a pointer by the declared type
+ * of the pointer, i.e., only the objects whose types are subtypes of
+ * the declared type are kept. The results of subtype checks are cached
+ * for each pair of (object type, declared type).
+ */
+class TypeFilter {
+
+    private final TypeSystem typeSystem;
+
+    private final PointsToSetFactory ptsFactory;
+
+    /**
+     * Map from (object type, declared type) to whether the object type
+     * is a subtype of the declared type.
+     */
+    private final TwoKeyMap<Type, Type, Boolean> subtypes;
+
+    /**
+     * Number of objects that have been filtered out.
+     */
+    private final LongAdder filtered = new LongAdder();
+
+    TypeFilter(TypeSystem typeSystem, PointsToSetFactory ptsFactory,
+               boolean concurrent) {
+        this.typeSystem = typeSystem;
+        this.ptsFactory = ptsFactory;
+        this.subtypes = concurrent ?
+                new MapMapTwoKeyMap<>(Maps.newConcurrentMap(), Maps::newConcurrentMap) :
+                Maps.newTwoKeyMap();
+    }
+
+    /**
+     * @return the objects in pts that can be held by given pointer.
+     * If all objects pass the filter, pts itself is returned.
+     */
+    PointsToSet filter(Pointer pointer, PointsToSet pts) {
+        Type declaredType = pointer.getType();
+        if (!(declaredType instanceof ReferenceType)) {
+            return pts;
+        }
+        if (pts.objects().allMatch(o -> canHold(declaredType, o))) {
+            return pts;
+        }
+        PointsToSet result = ptsFactory.make();
+        for (CSObj o : pts) {
+            if (canHold(declaredType, o)) {
+                result.addObject(o);
+            } else {
+                filtered.increment();
+            }
+        }
+        return result;
+    }
+
+    private boolean canHold(Type declaredType, CSObj o) {
+        return isSubtype(o.getObject().getType(), declaredType);
+    }
+
+    private boolean isSubtype(Type objType, Type declaredType) {
+        Boolean result = subtypes.get(objType, declaredType);
+        if (result == null) {
+            result = typeSystem.isSubtype(declaredType, objType);
+            subtypes.put(objType, declaredType, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return number of objects that have been filtered out.
+     */
+    long getNumberOfFilteredObjects() {
+        return filtered.sum();
+    }
+}
@@ -24,22 +24,90 @@ package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
-import java.util.ArrayDeque;
-import java.util.Queue;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * In coalescing mode, the work list keeps at most one pending entry
+ * for each pointer, and the points-to sets added for a pending pointer
+ * are merged into its pending entry.
  */
 class WorkList {
 
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    private final WorkListStrategy strategy;
+
+    /**
+     * Factory for creating the merged points-to sets in coalescing mode,
+     * null if coalescing is disabled.
+     */
+    private final PointsToSetFactory ptsFactory;
+
+    /**
+     * Map from pending pointers to their pending points-to sets.
+     */
+    private final Map<Pointer, PointsToSet> pending = Maps.newMap();
+
+    /**
+     * Pending pointers whose points-to sets are created by this work list,
+     * so that further points-to sets can be merged into them in place.
+     * Other pending points-to sets may be referenced by the pointers
+     * or other entries, thus they are copied before merging.
+     */
+    private final Set<Pointer> owned = Sets.newSet();
+
+    private int maxLength = 0;
+
+    private int mergeCount = 0;
+
+    /**
+     * Constructs a non-coalescing work list.
+     */
+    WorkList(WorkListStrategy strategy) {
+        this(strategy, null);
+    }
+
+    /**
+     * Constructs a work list that coalesces the entries of the same pointer
+     * if ptsFactory is not null.
+     *
+     * @param strategy decides the order of processing the entries.
+     *                 In coalescing mode, the pending points-to sets are kept
+     *                 in this work list, and the strategy orders the pointers.
+     */
+    WorkList(WorkListStrategy strategy, PointsToSetFactory ptsFactory) {
+        this.strategy = strategy;
+        this.ptsFactory = ptsFactory;
+    }
 
     /**
      * Adds an entry to the work list.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        if (ptsFactory == null) {
+            strategy.add(new Entry(pointer, pointsToSet));
+        } else {
+            PointsToSet pts = pending.get(pointer);
+            if (pts == null) {
+                strategy.add(new Entry(pointer, null));
+                pending.put(pointer, pointsToSet);
+            } else {
+                if (owned.add(pointer)) {
+                    PointsToSet merged = ptsFactory.make();
+                    merged.addAll(pts);
+                    pending.put(pointer, merged);
+                    pts = merged;
+                }
+                pts.addAll(pointsToSet);
+                ++mergeCount;
+            }
+        }
+        maxLength = Math.max(maxLength, size());
     }
 
     /**
@@ -47,14 +115,49 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Entry entry = strategy.poll();
+        if (ptsFactory == null || entry == null) {
+            return entry;
+        } else {
+            Pointer pointer = entry.pointer();
+            owned.remove(pointer);
+            return new Entry(pointer, pending.remove(pointer));
+        }
     }
 
     /**
      * @return true if the work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return size() == 0;
+    }
+
+    /**
+     * @return the number of entries in the work list.
+     */
+    int size() {
+        return strategy.size();
+    }
+
+    /**
+     * @return the strategy of this work list.
+     */
+    WorkListStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return the maximum number of entries ever held by the work list.
+     */
+    int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * @return the number of entries that are merged into pending entries.
+     */
+    int getMergeCount() {
+        return mergeCount;
     }
 
     /**
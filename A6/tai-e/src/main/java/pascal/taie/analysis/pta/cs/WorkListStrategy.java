@@ -0,0 +1,73 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.config.ConfigException;
+
+/**
+ * Strategy that decides the order in which the entries of
+ * {@link WorkList} are processed.
+ */
+interface WorkListStrategy {
+
+    /**
+     * Adds an entry to this strategy.
+     */
+    void add(WorkList.Entry entry);
+
+    /**
+     * Retrieves and removes the next entry to be processed,
+     * or returns null if there is no entry.
+     */
+    WorkList.Entry poll();
+
+    /**
+     * @return the number of entries held by this strategy.
+     */
+    int size();
+
+    /**
+     * @return the name of this strategy, which is used in option "worklist".
+     */
+    String getName();
+
+    /**
+     * Creates the strategy of given name.
+     *
+     * @param name             name of the strategy, null for the default one.
+     * @param pointerFlowGraph the PFG that the strategy may inspect.
+     */
+    static WorkListStrategy of(String name, PointerFlowGraph pointerFlowGraph) {
+        if (name == null) {
+            return new FIFOStrategy();
+        }
+        return switch (name) {
+            case "fifo" -> new FIFOStrategy();
+            case "lifo" -> new LIFOStrategy();
+            case "topo" -> new TopologicalStrategy(pointerFlowGraph);
+            case "lrf" -> new LRFStrategy();
+            default -> throw new ConfigException(
+                    "Unknown work list strategy: " + name);
+        };
+    }
+}
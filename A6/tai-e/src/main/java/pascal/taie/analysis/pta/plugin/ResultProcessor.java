@@ -28,6 +28,7 @@ import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
 
@@ -45,6 +46,7 @@ import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
@@ -67,6 +69,22 @@ public class ResultProcessor {
      */
     private static final String SEP = " -> ";
 
+    /**
+     * Key of the name of work-list strategy stored in the result.
+     */
+    public static final String WORK_LIST_STRATEGY = "work-list-strategy";
+
+    /**
+     * Key of the number of work-list propagations stored in the result.
+     */
+    public static final String PROPAGATIONS = "propagations";
+
+    /**
+     * Key of the set of methods degraded under memory pressure
+     * stored in the result.
+     */
+    public static final String DEGRADED_METHODS = "degraded-methods";
+
     private static final DecimalFormat formatter = new DecimalFormat("#,####");
 
     public static void process(AnalysisOptions options,
@@ -80,7 +98,22 @@ public class ResultProcessor {
         switch (action) {
             case "dump" -> dumpPointsToSet(result, file);
             case "compare" -> comparePointsToSet(result, file);
+            case "stream-dump" -> {
+                logger.info("Dumping sorted points-to set to {} ...", file);
+                SortedDump.dump(result, Path.of(requireFile(action, file)));
+            }
+            case "stream-compare" -> {
+                logger.info("Comparing points-to set with sorted {} ...", file);
+                SortedDump.compare(result, Path.of(requireFile(action, file)));
+            }
+        }
+    }
+
+    private static String requireFile(String action, String file) {
+        if (file == null) {
+            throw new ConfigException("Action " + action + " requires option file");
         }
+        return file;
     }
 
     private static void printStatistics(PointerAnalysisResult result) {
@@ -111,6 +144,17 @@ public class ResultProcessor {
                 format(reachableInsens), format(reachableSens));
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#call graph edges:",
                 format(callEdgeInsens), format(callEdgeSens));
+        String strategy = result.getResult(WORK_LIST_STRATEGY, (String) null);
+        if (strategy != null) {
+            int propagations = result.getResult(PROPAGATIONS, 0);
+            System.out.printf("%-30s%s (%s)%n", "#propagations:",
+                    format(propagations), strategy);
+        }
+        Set<?> degraded = result.getResult(DEGRADED_METHODS, (Set<?>) null);
+        if (degraded != null) {
+            System.out.printf("%-30s%s%n", "#degraded methods:",
+                    format(degraded.size()));
+        }
         System.out.println("----------------------------------------");
     }
 
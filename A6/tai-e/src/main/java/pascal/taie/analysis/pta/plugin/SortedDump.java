@@ -0,0 +1,285 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin;
+
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Streams;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Dumps and compares points-to sets in a sorted streaming format,
+ * which keeps only a bounded window of the dump in memory.
+ * <p>
+ * Each line of the dump is "key pointer -> points-to set", where the
+ * key (in hexadecimal) consists of the kind of the pointer (variable,
+ * static field, instance field or array index) in the high 32 bits,
+ * and the hash code of the string of the pointer in the low 32 bits.
+ * The lines are sorted by the keys, which are stable across runs.
+ * The lines of the same key, i.e., pointers with colliding hash codes,
+ * are unordered. Only the keys are held when sorting the pointers, and
+ * each line is built when it is written, thus a result can be compared
+ * with a sorted dump by a merge-join of their lines.
+ * <p>
+ * The dump files whose names end with ".gz" are compressed by gzip.
+ */
+final class SortedDump {
+
+    private static final String SEP = " -> ";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SortedDump() {
+    }
+
+    /**
+     * Dumps the points-to sets in the result to given file.
+     */
+    static void dump(PointerAnalysisResult result, Path file) {
+        try (Writer out = newWriter(file)) {
+            Iterator<String> lines = lines(result);
+            while (lines.hasNext()) {
+                out.write(lines.next());
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to dump points-to set to " + file, e);
+        }
+    }
+
+    /**
+     * Compares the points-to sets in the result with given sorted dump.
+     */
+    static void compare(PointerAnalysisResult result, Path expected) {
+        try (BufferedReader in = newReader(expected)) {
+            List<String> mismatches = compare(lines(result), in.lines().iterator());
+            if (!mismatches.isEmpty()) {
+                throw new AnalysisException("Mismatches of points-to set\n" +
+                        String.join("\n", mismatches));
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new AnalysisException("Failed to read points-to set from " + expected, e);
+        }
+    }
+
+    /**
+     * Merge-joins two sorted sequences of dump lines. Only the lines
+     * of the current key are held in memory.
+     *
+     * @return the mismatches of the points-to sets.
+     */
+    private static List<String> compare(Iterator<String> given, Iterator<String> expected) {
+        List<String> mismatches = new ArrayList<>();
+        KeyGroups givenGroups = new KeyGroups(given);
+        KeyGroups expectedGroups = new KeyGroups(expected);
+        while (givenGroups.hasNext() || expectedGroups.hasNext()) {
+            long givenKey = givenGroups.peekKey();
+            long expectedKey = expectedGroups.peekKey();
+            Map<String, String> givenPts = givenKey <= expectedKey ?
+                    givenGroups.next() : Map.of();
+            Map<String, String> expectedPts = expectedKey <= givenKey ?
+                    expectedGroups.next() : Map.of();
+            givenPts.forEach((pointer, pts) -> {
+                String expectedSet = expectedPts.get(pointer);
+                if (!pts.equals(expectedSet)) {
+                    mismatches.add(String.format("%s, expected: %s, given: %s",
+                            pointer, expectedSet, pts));
+                }
+            });
+            expectedPts.forEach((pointer, pts) -> {
+                if (!givenPts.containsKey(pointer)) {
+                    mismatches.add(String.format("%s, expected: %s, given: null",
+                            pointer, pts));
+                }
+            });
+        }
+        return mismatches;
+    }
+
+    /**
+     * @return the sorted dump lines of the result, which are built lazily.
+     */
+    private static Iterator<String> lines(PointerAnalysisResult result) {
+        List<Collection<? extends Pointer>> kinds = List.of(
+                result.getCSVars(),
+                result.getStaticFields(),
+                result.getInstanceFields(),
+                result.getArrayIndexes());
+        return new Iterator<>() {
+
+            private int kind = -1;
+
+            private Pointer[] pointers = new Pointer[0];
+
+            /**
+             * Hash code (with flipped sign bit) of each pointer in the
+             * high 32 bits, and the index of the pointer in the low 32 bits.
+             */
+            private long[] order = new long[0];
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == order.length && kind + 1 < kinds.size()) {
+                    sortKind(kinds.get(++kind));
+                }
+                return next < order.length;
+            }
+
+            private void sortKind(Collection<? extends Pointer> ptrs) {
+                pointers = ptrs.toArray(new Pointer[0]);
+                order = new long[pointers.length];
+                for (int i = 0; i < pointers.length; ++i) {
+                    int hash = pointers[i].toString().hashCode();
+                    // flipping the sign bit makes the signed order of
+                    // the packed values agree with the unsigned order of hashes
+                    order[i] = ((long) (hash ^ Integer.MIN_VALUE) << 32) | i;
+                }
+                Arrays.sort(order);
+                next = 0;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long packed = order[next++];
+                Pointer p = pointers[(int) packed];
+                int hash = (int) (packed >>> 32) ^ Integer.MIN_VALUE;
+                long key = ((long) kind << 32) | Integer.toUnsignedLong(hash);
+                return Long.toHexString(key) + ' ' + p + SEP +
+                        Streams.toString(p.getPointsToSet().objects());
+            }
+        };
+    }
+
+    /**
+     * Groups consecutive dump lines of the same key.
+     */
+    private static class KeyGroups {
+
+        private final Iterator<String> lines;
+
+        private String pending;
+
+        private KeyGroups(Iterator<String> lines) {
+            this.lines = lines;
+            advance();
+        }
+
+        private void advance() {
+            pending = null;
+            while (lines.hasNext() && pending == null) {
+                String line = lines.next();
+                if (line.contains(SEP)) {
+                    pending = line;
+                }
+            }
+        }
+
+        private boolean hasNext() {
+            return pending != null;
+        }
+
+        /**
+         * @return the key of next group, or {@link Long#MAX_VALUE}
+         * if there is no next group.
+         */
+        private long peekKey() {
+            return pending != null ? keyOf(pending) : Long.MAX_VALUE;
+        }
+
+        /**
+         * @return map from pointers to points-to sets in next group.
+         */
+        private Map<String, String> next() {
+            long key = peekKey();
+            Map<String, String> group = new LinkedHashMap<>();
+            while (pending != null && keyOf(pending) == key) {
+                int start = pending.indexOf(' ') + 1;
+                int sep = pending.indexOf(SEP, start);
+                group.put(pending.substring(start, sep),
+                        pending.substring(sep + SEP.length()));
+                advance();
+            }
+            return group;
+        }
+
+        private static long keyOf(String line) {
+            return Long.parseLong(line, 0, line.indexOf(' '), 16);
+        }
+    }
+
+    private static Writer newWriter(Path file) throws IOException {
+        OutputStream out = Channels.newOutputStream(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+        if (isGzip(file)) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static BufferedReader newReader(Path file) throws IOException {
+        InputStream in = Channels.newInputStream(
+                FileChannel.open(file, StandardOpenOption.READ));
+        if (isGzip(file)) {
+            in = new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        return new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static boolean isGzip(Path file) {
+        return file.getFileName().toString().endsWith(".gz");
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set represented by a sparse bit set over the indexes
+ * of {@link CSObj}. Only the non-empty 64-bit words are stored, and they
+ * are sorted by their positions, thus union and difference of two
+ * such sets are computed word by word instead of object by object.
+ */
+class BitPointsToSet implements PointsToSet {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final int[] EMPTY_KEYS = {};
+
+    private static final long[] EMPTY_WORDS = {};
+
+    /**
+     * Maps indexes back to the CS objects.
+     */
+    private final IntFunction<CSObj> objects;
+
+    /**
+     * Positions of the non-empty words, in ascending order.
+     */
+    private int[] keys = EMPTY_KEYS;
+
+    /**
+     * Non-empty words, words[i] is the word at position keys[i].
+     */
+    private long[] words = EMPTY_WORDS;
+
+    /**
+     * Number of non-empty words.
+     */
+    private int length;
+
+    /**
+     * Number of objects in this set.
+     */
+    private int size;
+
+    BitPointsToSet(IntFunction<CSObj> objects) {
+        this.objects = objects;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        int index = obj.getIndex();
+        int key = index >>> ADDRESS_BITS_PER_WORD;
+        long bit = 1L << index;
+        int pos = Arrays.binarySearch(keys, 0, length, key);
+        if (pos >= 0) {
+            if ((words[pos] & bit) != 0) {
+                return false;
+            }
+            words[pos] |= bit;
+        } else {
+            insertWord(-pos - 1, key, bit);
+        }
+        ++size;
+        return true;
+    }
+
+    private void insertWord(int pos, int key, long word) {
+        if (length == keys.length) {
+            int capacity = Math.max(4, length << 1);
+            keys = Arrays.copyOf(keys, capacity);
+            words = Arrays.copyOf(words, capacity);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, length - pos);
+        System.arraycopy(words, pos, words, pos + 1, length - pos);
+        keys[pos] = key;
+        words[pos] = word;
+        ++length;
+    }
+
+    private void appendWord(int key, long word) {
+        insertWord(length, key, word);
+        size += Long.bitCount(word);
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        if (pts instanceof BitPointsToSet other) {
+            return union(other);
+        }
+        boolean changed = false;
+        for (CSObj o : pts) {
+            changed |= addObject(o);
+        }
+        return changed;
+    }
+
+    /**
+     * Word-level union.
+     */
+    private boolean union(BitPointsToSet other) {
+        // first pass: count new objects and the words absent in this set
+        int added = 0;
+        int absentWords = 0;
+        for (int i = 0, j = 0; j < other.length; ) {
+            if (i < length && keys[i] < other.keys[j]) {
+                ++i;
+            } else if (i < length && keys[i] == other.keys[j]) {
+                added += Long.bitCount(other.words[j++] & ~words[i++]);
+            } else {
+                added += Long.bitCount(other.words[j++]);
+                ++absentWords;
+            }
+        }
+        if (added == 0) {
+            return false;
+        }
+        mergeWords(other, absentWords);
+        size += added;
+        return true;
+    }
+
+    /**
+     * ORs the words of other into this set. Does not update {@link #size}.
+     *
+     * @param absentWords number of the words of other whose positions
+     *                    are absent in this set
+     */
+    private void mergeWords(BitPointsToSet other, int absentWords) {
+        if (absentWords == 0) {
+            // all words of other are present, merge in place
+            for (int i = 0, j = 0; j < other.length; ++i) {
+                if (keys[i] == other.keys[j]) {
+                    words[i] |= other.words[j++];
+                }
+            }
+        } else {
+            int newLength = length + absentWords;
+            int[] newKeys = new int[newLength];
+            long[] newWords = new long[newLength];
+            int i = 0, j = 0, k = 0;
+            while (i < length || j < other.length) {
+                if (j == other.length ||
+                        (i < length && keys[i] < other.keys[j])) {
+                    newKeys[k] = keys[i];
+                    newWords[k++] = words[i++];
+                } else if (i == length || other.keys[j] < keys[i]) {
+                    newKeys[k] = other.keys[j];
+                    newWords[k++] = other.words[j++];
+                } else {
+                    newKeys[k] = keys[i];
+                    newWords[k++] = words[i++] | other.words[j++];
+                }
+            }
+            keys = newKeys;
+            words = newWords;
+            length = newLength;
+        }
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        if (!(pts instanceof BitPointsToSet other)) {
+            BitPointsToSet diff = null;
+            for (CSObj o : pts) {
+                if (addObject(o)) {
+                    if (diff == null) {
+                        diff = new BitPointsToSet(objects);
+                    }
+                    diff.addObject(o);
+                }
+            }
+            return diff != null ? diff : PointsToSetFactory.emptySet();
+        }
+        // word-level merge, the words of present positions are updated
+        // in place, and the new words are collected in diff
+        BitPointsToSet diff = null;
+        int absentWords = 0;
+        for (int i = 0, j = 0; j < other.length; ) {
+            if (i < length && keys[i] < other.keys[j]) {
+                ++i;
+            } else if (i < length && keys[i] == other.keys[j]) {
+                long word = other.words[j++] & ~words[i];
+                if (word != 0) {
+                    words[i] |= word;
+                    diff = appendWord(diff, keys[i], word);
+                }
+                ++i;
+            } else {
+                diff = appendWord(diff, other.keys[j], other.words[j]);
+                ++j;
+                ++absentWords;
+            }
+        }
+        if (diff == null) {
+            return PointsToSetFactory.emptySet();
+        }
+        if (absentWords > 0) {
+            mergeWords(diff, absentWords);
+        }
+        size += diff.size;
+        return diff;
+    }
+
+    private BitPointsToSet appendWord(BitPointsToSet set, int key, long word) {
+        if (set == null) {
+            set = new BitPointsToSet(objects);
+        }
+        set.appendWord(key, word);
+        return set;
+    }
+
+    @Override
+    public PointsToSet difference(PointsToSet pts) {
+        BitPointsToSet result = new BitPointsToSet(objects);
+        if (pts instanceof BitPointsToSet other) {
+            // word-level difference
+            for (int i = 0, j = 0; i < length; ++i) {
+                while (j < other.length && other.keys[j] < keys[i]) {
+                    ++j;
+                }
+                long word = words[i];
+                if (j < other.length && other.keys[j] == keys[i]) {
+                    word &= ~other.words[j];
+                }
+                if (word != 0) {
+                    result.appendWord(keys[i], word);
+                }
+            }
+        } else {
+            for (CSObj o : this) {
+                if (!pts.contains(o)) {
+                    result.addObject(o);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        int index = obj.getIndex();
+        int pos = Arrays.binarySearch(keys, 0, length,
+                index >>> ADDRESS_BITS_PER_WORD);
+        return pos >= 0 && (words[pos] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj csObj &&
+                        BitPointsToSet.this.contains(csObj);
+            }
+
+            @Override
+            public Iterator<CSObj> iterator() {
+                return BitPointsToSet.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return getObjects().stream();
+    }
+
+    @Override
+    public Iterator<CSObj> iterator() {
+        return new Iterator<>() {
+
+            /**
+             * Position of current word.
+             */
+            private int pos = 0;
+
+            /**
+             * Bits of current word that have not been visited.
+             */
+            private long word = length > 0 ? words[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    if (++pos >= length) {
+                        return false;
+                    }
+                    word = words[pos];
+                }
+                return true;
+            }
+
+            @Override
+            public CSObj next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bit = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                return objects.apply(
+                        (keys[pos] << ADDRESS_BITS_PER_WORD) + bit);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+}
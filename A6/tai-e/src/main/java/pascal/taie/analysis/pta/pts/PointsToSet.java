@@ -49,6 +49,21 @@ public interface PointsToSet extends Iterable<CSObj> {
      */
     boolean addAll(PointsToSet pts);
 
+    /**
+     * Adds all objects in given pts to this set, and computes the
+     * difference of pts and this set in the same pass.
+     *
+     * @return the objects that are newly added to this set, or
+     * {@link PointsToSetFactory#emptySet()} if this set does not change.
+     */
+    PointsToSet addAllDiff(PointsToSet pts);
+
+    /**
+     * @return a new points-to set that consists of the objects in this set
+     * but not in given pts. Neither this set nor pts is modified.
+     */
+    PointsToSet difference(PointsToSet pts);
+
     /**
      * @return true if this set contains given object, otherwise false.
      */
@@ -23,28 +23,93 @@
 package pascal.taie.analysis.pta.pts;
 
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.collection.Sets;
 
 import java.util.Set;
-import java.util.function.Supplier;
+import java.util.function.IntFunction;
 
 /**
- * Provides static factory methods for {@link PointsToSet}.
+ * Creates {@link PointsToSet} of the kind given at construction.
  */
 public class PointsToSetFactory {
 
-    private static final Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
+    /**
+     * The shared immutable empty points-to set.
+     */
+    private static final PointsToSet EMPTY = new DelegatePointsToSet(Set.of());
+
+    private final Kind kind;
+
+    /**
+     * Maps indexes back to the CS objects, used by bit-set based
+     * points-to sets.
+     */
+    private final IntFunction<CSObj> objects;
 
-    public static PointsToSet make() {
-        return new DelegatePointsToSet(setFactory.get());
+    /**
+     * @param kind    kind of the points-to sets created by this factory
+     * @param objects function that returns the CS object with given index
+     */
+    public PointsToSetFactory(Kind kind, IntFunction<CSObj> objects) {
+        this.kind = kind;
+        this.objects = objects;
+    }
+
+    public PointsToSet make() {
+        return switch (kind) {
+            case HYBRID -> new DelegatePointsToSet(Sets.newHybridSet());
+            case BIT -> new BitPointsToSet(objects);
+        };
     }
 
     /**
      * Convenient method for making one-element points-to set.
      */
-    public static PointsToSet make(CSObj obj) {
+    public PointsToSet make(CSObj obj) {
         PointsToSet set = make();
         set.addObject(obj);
         return set;
     }
+
+    /**
+     * @return the shared immutable empty points-to set. Adding objects
+     * to it throws {@link UnsupportedOperationException}.
+     */
+    public static PointsToSet emptySet() {
+        return EMPTY;
+    }
+
+    /**
+     * Kinds of points-to sets.
+     */
+    public enum Kind {
+
+        /**
+         * Hash-based sets which switch from array to hash table as they grow.
+         */
+        HYBRID,
+
+        /**
+         * Sparse bit sets indexed by {@link CSObj#getIndex()}.
+         */
+        BIT;
+
+        /**
+         * @return the kind for given option value, {@link #HYBRID}
+         * if the value is null.
+         * @throws ConfigException if the value is not a valid kind
+         */
+        public static Kind of(String name) {
+            if (name == null) {
+                return HYBRID;
+            }
+            return switch (name) {
+                case "hybrid" -> HYBRID;
+                case "bit" -> BIT;
+                default -> throw new ConfigException(
+                        "Unexpected kind of points-to set: " + name);
+            };
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.toolkit.mahjong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.NewObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds type-consistent objects based on a context-insensitive
+ * pointer analysis, in the spirit of Mahjong (PLDI'17).
+ * <p>
+ * Two objects are type-consistent if they have the same type, and the
+ * objects reachable from them via the same field path in the field
+ * points-to graph (FPG) have the same types. Merging such objects
+ * does not lose precision of type-dependent clients, e.g., call graph
+ * construction and type casts.
+ * <p>
+ * Mahjong decides type-consistency by the equivalence of the automata
+ * of the FPG. This implementation partitions the objects by their
+ * types and then refines the partition until each block is closed
+ * under the FPG edges (i.e., bisimulation), which is a finer relation,
+ * thus it merges no more objects than Mahjong, and is cheaper.
+ */
+public class Mahjong {
+
+    private static final Logger logger = LogManager.getLogger(Mahjong.class);
+
+    /**
+     * Label of the edges from arrays to their elements in the FPG.
+     */
+    private static final String ARRAY_ELEMENT = "[*]";
+
+    private final PointerAnalysisResult pta;
+
+    public Mahjong(PointerAnalysisResult pta) {
+        this.pta = pta;
+    }
+
+    /**
+     * @return groups of allocation sites whose objects are type-consistent.
+     * Each group has at least two allocation sites.
+     */
+    public List<List<New>> mergeTypeConsistentObjects() {
+        List<Obj> objs = List.copyOf(pta.getObjects());
+        Map<Obj, Integer> ids = Maps.newMap(objs.size());
+        objs.forEach(obj -> ids.put(obj, ids.size()));
+        // edges of FPG: object -> (sorted) label -> successors
+        List<Map<String, int[]>> fpg = new ArrayList<>(objs.size());
+        objs.forEach(obj -> fpg.add(new TreeMap<>()));
+        pta.getInstanceFields().forEach(field -> addEdges(fpg, ids,
+                field.getBase(), field.getField().getSignature(), field));
+        pta.getArrayIndexes().forEach(array -> addEdges(fpg, ids,
+                array.getArray(), ARRAY_ELEMENT, array));
+        // initial blocks: one for each type, and a singleton for each
+        // object that is not allocated by a new statement
+        int[] blocks = new int[objs.size()];
+        Map<Object, Integer> initial = Maps.newMap();
+        for (int i = 0; i < objs.size(); ++i) {
+            Obj obj = objs.get(i);
+            Type type = obj.getType();
+            blocks[i] = initial.computeIfAbsent(
+                    obj instanceof NewObj ? type : obj, unused -> initial.size());
+        }
+        int nBlocks = initial.size();
+        while (true) {
+            Map<List<Object>, Integer> signatures = Maps.newMap();
+            int[] newBlocks = new int[objs.size()];
+            for (int i = 0; i < objs.size(); ++i) {
+                newBlocks[i] = signatures.computeIfAbsent(
+                        signatureOf(i, blocks, fpg), unused -> signatures.size());
+            }
+            blocks = newBlocks;
+            if (signatures.size() == nBlocks) {
+                break;
+            }
+            nBlocks = signatures.size();
+        }
+        // collect the blocks with multiple allocation sites
+        Map<Integer, List<New>> groups = new TreeMap<>();
+        for (int i = 0; i < objs.size(); ++i) {
+            if (objs.get(i) instanceof NewObj newObj) {
+                groups.computeIfAbsent(blocks[i], unused -> new ArrayList<>())
+                        .add(newObj.getAllocation());
+            }
+        }
+        List<List<New>> result = new ArrayList<>();
+        groups.values().forEach(group -> {
+            if (group.size() > 1) {
+                group.sort(Comparator.comparing(New::toString));
+                result.add(group);
+            }
+        });
+        logger.info("Mahjong merges {} allocation sites into {} objects",
+                result.stream().mapToInt(List::size).sum(), result.size());
+        return result;
+    }
+
+    private static void addEdges(List<Map<String, int[]>> fpg, Map<Obj, Integer> ids,
+                                 CSObj base, String label, Pointer pointer) {
+        int[] succs = pointer.getPointsToSet()
+                .objects()
+                .map(CSObj::getObject)
+                .mapToInt(ids::get)
+                .toArray();
+        fpg.get(ids.get(base.getObject())).merge(label, succs, (s1, s2) -> {
+            int[] merged = Arrays.copyOf(s1, s1.length + s2.length);
+            System.arraycopy(s2, 0, merged, s1.length, s2.length);
+            return merged;
+        });
+    }
+
+    /**
+     * @return the signature of object i, i.e., its block and, for each
+     * label of its out edges, the blocks of the successors.
+     */
+    private static List<Object> signatureOf(
+            int i, int[] blocks, List<Map<String, int[]>> fpg) {
+        List<Object> signature = new ArrayList<>();
+        signature.add(blocks[i]);
+        fpg.get(i).forEach((label, succs) -> {
+            signature.add(label);
+            signature.add(Arrays.stream(succs)
+                    .map(succ -> blocks[succ])
+                    .distinct()
+                    .sorted()
+                    .boxed()
+                    .toList());
+        });
+        return signature;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.toolkit.zipper;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Object flow graph built on a context-insensitive pointer analysis result.
+ * The nodes are variables and instance fields (of abstract objects),
+ * and the edges represent the flows of objects through assignments,
+ * field/array accesses, parameter passing and returns.
+ * <p>
+ * Besides, for each instance field of an object, there is an edge
+ * from the field to the variable that holds the object at its allocation
+ * site, which represents that the value stored in the field flows out of
+ * a method along with the (wrapper) object.
+ */
+class ObjectFlowGraph {
+
+    /**
+     * Nodes of object flow graph.
+     */
+    sealed interface Node permits VarNode, FieldNode {
+    }
+
+    record VarNode(Var var) implements Node {
+    }
+
+    /**
+     * Instance field of an object, or the elements of an array object
+     * if field is null.
+     */
+    record FieldNode(Obj base, @Nullable JField field) implements Node {
+    }
+
+    private final MultiMap<Node, Node> succs = Maps.newMultiMap();
+
+    private final MultiMap<Node, Node> preds = Maps.newMultiMap();
+
+    private final Map<Var, VarNode> varNodes = Maps.newMap();
+
+    private final Map<Obj, Map<JField, FieldNode>> fieldNodes = Maps.newMap();
+
+    /**
+     * Map from an object to the variable that holds the object
+     * at its allocation site.
+     */
+    private final Map<Obj, Var> allocVars = Maps.newMap();
+
+    ObjectFlowGraph(PointerAnalysisResult pta) {
+        pta.getObjects().forEach(obj -> {
+            if (obj.getAllocation() instanceof New newStmt) {
+                allocVars.put(obj, newStmt.getLValue());
+            }
+        });
+        CallGraph<Invoke, JMethod> callGraph = pta.getCallGraph();
+        callGraph.reachableMethods().forEach(method -> {
+            IR ir = method.getIR();
+            for (Stmt stmt : ir) {
+                if (stmt instanceof Copy copy) {
+                    addEdge(getVarNode(copy.getRValue()), getVarNode(copy.getLValue()));
+                } else if (stmt instanceof Invoke invoke) {
+                    addCallEdges(invoke, callGraph.getCalleesOf(invoke));
+                }
+            }
+            for (Var base : ir.getVars()) {
+                addFieldEdges(base, pta.getPointsToSet(base));
+            }
+        });
+    }
+
+    private void addCallEdges(Invoke invoke, Set<JMethod> callees) {
+        List<Var> args = invoke.getInvokeExp().getArgs();
+        Var lhs = invoke.getLValue();
+        for (JMethod callee : callees) {
+            IR calleeIR = callee.getIR();
+            for (int i = 0; i < args.size(); ++i) {
+                addEdge(getVarNode(args.get(i)), getVarNode(calleeIR.getParam(i)));
+            }
+            if (lhs != null) {
+                for (Var ret : calleeIR.getReturnVars()) {
+                    addEdge(getVarNode(ret), getVarNode(lhs));
+                }
+            }
+        }
+    }
+
+    private void addFieldEdges(Var base, Set<Obj> pts) {
+        for (Obj obj : pts) {
+            base.getLoadFields().forEach(load -> addEdge(
+                    getFieldNode(obj, load.getFieldRef().resolve()),
+                    getVarNode(load.getLValue())));
+            base.getStoreFields().forEach(store -> addStoreEdge(
+                    getVarNode(store.getRValue()),
+                    getFieldNode(obj, store.getFieldRef().resolve())));
+            base.getLoadArrays().forEach(load -> addEdge(
+                    getFieldNode(obj, null), getVarNode(load.getLValue())));
+            base.getStoreArrays().forEach(store -> addStoreEdge(
+                    getVarNode(store.getRValue()), getFieldNode(obj, null)));
+        }
+    }
+
+    private void addStoreEdge(VarNode source, FieldNode target) {
+        addEdge(source, target);
+        Var allocVar = allocVars.get(target.base());
+        if (allocVar != null) {
+            addEdge(target, getVarNode(allocVar));
+        }
+    }
+
+    private void addEdge(Node source, Node target) {
+        if (succs.put(source, target)) {
+            preds.put(target, source);
+        }
+    }
+
+    VarNode getVarNode(Var var) {
+        return varNodes.computeIfAbsent(var, VarNode::new);
+    }
+
+    private FieldNode getFieldNode(Obj base, @Nullable JField field) {
+        return fieldNodes.computeIfAbsent(base, unused -> Maps.newMap())
+                .computeIfAbsent(field, f -> new FieldNode(base, f));
+    }
+
+    Set<Node> getSuccsOf(Node node) {
+        return succs.get(node);
+    }
+
+    Set<Node> getPredsOf(Node node) {
+        return preds.get(node);
+    }
+}
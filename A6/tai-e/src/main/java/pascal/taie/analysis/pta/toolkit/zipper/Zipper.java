@@ -0,0 +1,152 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.toolkit.zipper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultEx;
+import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultExImpl;
+import pascal.taie.analysis.pta.toolkit.zipper.ObjectFlowGraph.Node;
+import pascal.taie.analysis.pta.toolkit.zipper.ObjectFlowGraph.VarNode;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Selects precision-critical methods in the style of Zipper, i.e.,
+ * the methods where context sensitivity is needed to avoid merging
+ * the object flows of different receiver objects of the same type.
+ * <p>
+ * For each type T, the methods of T are the methods invoked on the objects
+ * of T, and the methods invoked on the objects allocated in them.
+ * The values flow into T through the receivers and parameters of the
+ * methods invoked on T (IN nodes), and flow out through the return
+ * variables of the methods of T (OUT nodes). A method is precision-critical
+ * if it contains a variable on a path from an IN node to an OUT node on
+ * the object flow graph, where the path only goes through the variables
+ * of the methods of T.
+ */
+public class Zipper {
+
+    private static final Logger logger = LogManager.getLogger(Zipper.class);
+
+    private final PointerAnalysisResultEx pta;
+
+    private final ObjectFlowGraph ofg;
+
+    /**
+     * @param pta the context-insensitive pointer analysis result.
+     */
+    public Zipper(PointerAnalysisResult pta) {
+        this.pta = new PointerAnalysisResultExImpl(pta);
+        this.ofg = new ObjectFlowGraph(pta);
+    }
+
+    /**
+     * @return the precision-critical methods.
+     */
+    public Set<JMethod> selectPrecisionCriticalMethods() {
+        MultiMap<Type, Obj> objsOfType = Maps.newMultiMap();
+        pta.getBase().getObjects().forEach(o -> objsOfType.put(o.getType(), o));
+        Set<JMethod> criticalMethods = Sets.newSet();
+        objsOfType.forEachSet((type, objs) ->
+                criticalMethods.addAll(selectCriticalMethods(objs)));
+        logger.info("Zipper: {} precision-critical methods", criticalMethods.size());
+        return criticalMethods;
+    }
+
+    /**
+     * @param objs the objects of a type.
+     * @return the precision-critical methods for the type.
+     */
+    private Set<JMethod> selectCriticalMethods(Set<Obj> objs) {
+        Set<JMethod> invokedMethods = Sets.newSet();
+        objs.forEach(o -> invokedMethods.addAll(pta.getMethodsInvokedOn(o)));
+        if (invokedMethods.isEmpty()) {
+            return Set.of();
+        }
+        Set<JMethod> methods = Sets.newSet();
+        methods.addAll(invokedMethods);
+        invokedMethods.forEach(m -> pta.getObjectsAllocatedIn(m).forEach(o ->
+                methods.addAll(pta.getMethodsInvokedOn(o))));
+        Set<Node> inNodes = Sets.newSet();
+        for (JMethod method : invokedMethods) {
+            IR ir = method.getIR();
+            if (ir.getThis() != null) {
+                inNodes.add(ofg.getVarNode(ir.getThis()));
+            }
+            ir.getParams().forEach(p -> inNodes.add(ofg.getVarNode(p)));
+        }
+        Set<Node> outNodes = Sets.newSet();
+        for (JMethod method : methods) {
+            method.getIR().getReturnVars()
+                    .forEach(v -> outNodes.add(ofg.getVarNode(v)));
+        }
+        if (outNodes.isEmpty()) {
+            return Set.of();
+        }
+        Set<Node> forward = reach(inNodes, ofg::getSuccsOf, methods);
+        Set<Node> backward = reach(outNodes, ofg::getPredsOf, methods);
+        Set<JMethod> result = Sets.newSet();
+        for (Node node : forward) {
+            if (node instanceof VarNode varNode && backward.contains(node)) {
+                result.add(varNode.var().getMethod());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the nodes reachable from given nodes along given direction,
+     * only through the variables of given methods.
+     */
+    private static Set<Node> reach(Collection<Node> sources,
+                                   Function<Node, Set<Node>> next,
+                                   Set<JMethod> methods) {
+        Set<Node> visited = Sets.newSet();
+        visited.addAll(sources);
+        Deque<Node> workList = new ArrayDeque<>(sources);
+        while (!workList.isEmpty()) {
+            for (Node n : next.apply(workList.poll())) {
+                if ((!(n instanceof VarNode varNode) ||
+                        methods.contains(varNode.var().getMethod())) &&
+                        visited.add(n)) {
+                    workList.add(n);
+                }
+            }
+        }
+        return visited;
+    }
+}
@@ -24,6 +24,7 @@ package pascal.taie.language.classes;
 
 import pascal.taie.World;
 import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.language.annotation.Annotation;
 import pascal.taie.language.annotation.AnnotationHolder;
@@ -62,6 +63,11 @@ public class JMethod extends ClassMember {
 
     private IR ir;
 
+    /**
+     * Invoke statements in {@link #ir}, computed on first request.
+     */
+    private List<Invoke> invokes;
+
     public JMethod(JClass declaringClass, String name, Set<Modifier> modifiers,
                    List<Type> paramTypes, Type returnType, List<ClassType> exceptions,
                    AnnotationHolder annotationHolder,
@@ -163,6 +169,20 @@ public class JMethod extends ClassMember {
         return ir;
     }
 
+    /**
+     * @return the invoke statements in the IR of this method, in the order
+     * of their appearance. The list is computed once and then cached.
+     */
+    public List<Invoke> getInvokes() {
+        if (invokes == null) {
+            invokes = getIR().stmts()
+                    .filter(s -> s instanceof Invoke)
+                    .map(s -> (Invoke) s)
+                    .toList();
+        }
+        return invokes;
+    }
+
     /**
      * @return the {@link MethodRef} pointing to this method.
      */
@@ -25,6 +25,10 @@ package pascal.taie.analysis.pta;
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public class CSPTATest {
 
     static final String DIR = "cspta";
@@ -93,4 +97,143 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    @Test
+    public void testInstanceFieldBitSet() {
+        Tests.testCSPTA(DIR, "InstanceField", "pts:bit");
+    }
+
+    @Test
+    public void testTwoObjectBitSet() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "pts:bit");
+    }
+
+    @Test
+    public void testTwoObjectCollapseCycles() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "collapse-cycles:1");
+    }
+
+    @Test
+    public void testTwoObjectScaler() {
+        // Scaler selects 2-obj for all methods of the small program
+        Tests.testCSPTA(DIR, "TwoObject", "cs:scaler");
+    }
+
+    @Test
+    public void testTwoObjectTypeFilter() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "type-filter:true");
+    }
+
+    @Test
+    public void testTwoObjectCoalesceWorkList() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "coalesce-worklist:true");
+    }
+
+    @Test
+    public void testTwoObjectLIFO() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "worklist:lifo");
+    }
+
+    @Test
+    public void testTwoObjectTopo() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "worklist:topo",
+                "coalesce-worklist:true");
+    }
+
+    @Test
+    public void testTwoObjectLRF() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "worklist:lrf");
+    }
+
+    @Test
+    public void testTwoObjectParallel() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "threads:4");
+    }
+
+    @Test
+    public void testNewParallel() {
+        Tests.testCSPTA(DIR, "New", "threads:4");
+    }
+
+    @Test
+    public void testAssignParallel() {
+        Tests.testCSPTA(DIR, "Assign", "threads:4");
+    }
+
+    @Test
+    public void testStoreLoadParallel() {
+        Tests.testCSPTA(DIR, "StoreLoad", "threads:4");
+    }
+
+    @Test
+    public void testCallParallel() {
+        Tests.testCSPTA(DIR, "Call", "threads:4");
+    }
+
+    @Test
+    public void testInstanceFieldParallel() {
+        Tests.testCSPTA(DIR, "InstanceField", "threads:4");
+    }
+
+    @Test
+    public void testStaticFieldParallel() {
+        Tests.testCSPTA(DIR, "StaticField", "threads:4");
+    }
+
+    @Test
+    public void testArrayParallel() {
+        Tests.testCSPTA(DIR, "Array", "threads:4");
+    }
+
+    @Test
+    public void testOneCallParallel() {
+        Tests.testCSPTA(DIR, "OneCall", "cs:1-call", "threads:4");
+    }
+
+    @Test
+    public void testOneObjectParallel() {
+        Tests.testCSPTA(DIR, "OneObject", "cs:1-obj", "threads:4");
+    }
+
+    @Test
+    public void testOneTypeParallel() {
+        Tests.testCSPTA(DIR, "OneType", "cs:1-type", "threads:4");
+    }
+
+    @Test
+    public void testTwoCallParallel() {
+        Tests.testCSPTA(DIR, "TwoCall", "cs:2-call", "threads:4");
+    }
+
+    @Test
+    public void testTwoTypeParallel() {
+        Tests.testCSPTA(DIR, "TwoType", "cs:2-type", "threads:4");
+    }
+
+    @Test
+    public void testTwoCallArrayCSManager() {
+        Tests.testCSPTA(DIR, "TwoCall", "cs:2-call", "cs-manager:array");
+    }
+
+    @Test
+    public void testTwoCallArenaCSManager() {
+        Tests.testCSPTA(DIR, "TwoCall", "cs:2-call", "cs-manager:arena");
+    }
+
+    @Test
+    public void testTwoObjectArenaCSManagerOffHeap() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj",
+                "cs-manager:arena", "off-heap:true");
+    }
+
+    @Test
+    public void testTwoObjectStreamDump() throws IOException {
+        Path dump = Path.of("output", "TwoObject-cspta-sorted.txt.gz");
+        Files.createDirectories(dump.getParent());
+        // the parallel run is compared with the sorted dump of sequential run
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj",
+                "action:stream-dump", "file:" + dump);
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "threads:4",
+                "action:stream-compare", "file:" + dump);
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.Var;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DemandPointsToAnalysisTest {
+
+    @Test
+    public void testOneCall() {
+        SolverTests.buildWorld("OneCall");
+        AnalysisOptions options = SolverTests.makeOptions(Map.of("cs", "1-call"));
+        PointerAnalysisResult result = SolverTests.solve(options).getResult();
+        DemandPointsToAnalysis demand = new DemandPointsToAnalysis(options);
+        for (Var var : result.getVars()) {
+            assertEquals(var.toString(), toStrings(result.getPointsToSet(var)),
+                    toStrings(demand.getPointsToSet(var)));
+        }
+        assertEquals(0, demand.getNumberOfFallbacks());
+    }
+
+    @Test
+    public void testOneCallFallback() {
+        SolverTests.buildWorld("OneCall");
+        DemandPointsToAnalysis demand = new DemandPointsToAnalysis(
+                SolverTests.makeOptions(Map.of("cs", "1-call", "demand-budget", 1)));
+        Var x = World.get().getClassHierarchy()
+                .getMethod("<C: void m()>")
+                .getIR()
+                .getVars()
+                .stream()
+                .filter(v -> v.getName().equals("x"))
+                .findFirst()
+                .orElseThrow();
+        // falls back to the context-insensitive answer: {One, Two}
+        assertEquals(2, demand.getPointsToSet(x).size());
+        assertTrue(demand.getNumberOfFallbacks() > 0);
+    }
+
+    private static Set<String> toStrings(Set<Obj> objs) {
+        return Set.copyOf(objs.stream().map(Obj::toString).toList());
+    }
+}
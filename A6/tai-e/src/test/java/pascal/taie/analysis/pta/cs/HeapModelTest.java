@@ -0,0 +1,85 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Test;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.MergedObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the coarser heap abstractions are sound, i.e., each
+ * variable points to (the merged objects of) all objects that it
+ * points to with the allocation-site-based heap model.
+ */
+public class HeapModelTest {
+
+    @Test
+    public void testAllocationType() {
+        testHeapModel("TwoObject", Map.of("heap-model", "allocation-type"));
+    }
+
+    @Test
+    public void testMahjong() {
+        testHeapModel("TwoObject", Map.of("heap-model", "mahjong"));
+    }
+
+    @Test
+    public void testFieldBased() {
+        testHeapModel("StoreLoad", Map.of("field-based", true));
+    }
+
+    private static void testHeapModel(String main, Map<String, Object> heapOptions) {
+        SolverTests.buildWorld(main);
+        PointerAnalysisResult precise = SolverTests.solve(
+                SolverTests.makeOptions(Map.of())).getResult();
+        PointerAnalysisResult coarse = SolverTests.solve(
+                SolverTests.makeOptions(heapOptions)).getResult();
+        for (var var : precise.getVars()) {
+            Set<String> objs = coarse.getPointsToSet(var)
+                    .stream()
+                    .flatMap(HeapModelTest::expand)
+                    .collect(Collectors.toSet());
+            precise.getPointsToSet(var).forEach(obj ->
+                    assertTrue(var + " -> " + obj, objs.contains(obj.toString())));
+        }
+    }
+
+    /**
+     * @return the strings of the objects represented by given object.
+     */
+    private static Stream<String> expand(Obj obj) {
+        return obj instanceof MergedObj merged ?
+                Stream.concat(Stream.of(obj.toString()),
+                        merged.getAllocation().stream().map(Obj::toString)) :
+                Stream.of(obj.toString());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.config.AnalysisOptions;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that incremental solving on the state saved by a run on
+ * a program produces the same result as a full run on the edited
+ * program. The programs in directories v1 and v2 only differ in the
+ * body of one method. For a change local to a leaf method, incremental
+ * solving must also propagate fewer work-list entries than a full run.
+ */
+public class IncrementalSolverTest {
+
+    private static final String DIR = "src/test/resources/pta/incremental/";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testInstanceField() {
+        testIncremental("InstanceField", "ci");
+    }
+
+    @Test
+    public void testArray() {
+        testIncremental("Array", "ci");
+    }
+
+    @Test
+    public void testTwoCall() {
+        testIncremental("TwoCall", "2-call");
+    }
+
+    @Test
+    public void testTwoObject() {
+        testIncremental("TwoObject", "2-obj");
+    }
+
+    @Test
+    public void testTwoType() {
+        testIncremental("TwoType", "2-type");
+    }
+
+    @Test
+    public void testLocalized() {
+        Runs runs = testIncremental("Localized", "2-obj");
+        int incremental = runs.incremental().getResult()
+                .getResult(ResultProcessor.PROPAGATIONS);
+        int full = runs.full().getResult()
+                .getResult(ResultProcessor.PROPAGATIONS);
+        assertTrue("incremental run propagates " + incremental +
+                        " entries, full run propagates " + full,
+                incremental < full);
+    }
+
+    private Runs testIncremental(String main, String cs) {
+        Path file = folder.getRoot().toPath().resolve(main + ".state");
+        AnalysisOptions options = SolverTests.makeOptions(Map.of("cs", cs));
+        SolverTests.buildWorld(DIR + "v1", main);
+        new Solver(options, new AllocationSiteBasedModel(options),
+                CSPTA.getContextSelector(cs)).solveIncrementally(file);
+
+        SolverTests.buildWorld(DIR + "v2", main);
+        HeapModel heapModel = new AllocationSiteBasedModel(options);
+        ContextSelector contextSelector = CSPTA.getContextSelector(cs);
+        SolverState previous = SolverState.load(file,
+                SolverState.makeKey(options), heapModel, contextSelector);
+        assertNotNull(previous);
+        assertEquals(1, previous.getNumberOfChangedMethods());
+        assertTrue(previous.getNumberOfInvalidPointers() > 0);
+        Solver incremental = new Solver(options, heapModel, contextSelector);
+        incremental.solve(previous);
+        Solver full = new Solver(options, new AllocationSiteBasedModel(options),
+                CSPTA.getContextSelector(cs));
+        full.solve();
+        assertEquals(dump(full.getResult()), dump(incremental.getResult()));
+        return new Runs(incremental, full);
+    }
+
+    private record Runs(Solver incremental, Solver full) {
+    }
+
+    /**
+     * @return the non-empty points-to sets and call edges of given result
+     * in a comparable form.
+     */
+    private static Map<String, Object> dump(PointerAnalysisResult result) {
+        Map<String, Object> dump = new TreeMap<>();
+        Stream.<Collection<? extends Pointer>>of(result.getCSVars(),
+                        result.getStaticFields(), result.getInstanceFields(),
+                        result.getArrayIndexes())
+                .flatMap(Collection::stream)
+                .filter(p -> !p.getPointsToSet().isEmpty())
+                .forEach(p -> dump.put(p.toString(), new TreeSet<>(
+                        p.getPointsToSet().objects().map(Object::toString).toList())));
+        TreeSet<String> edges = new TreeSet<>();
+        result.getCSCallGraph().edges().forEach(edge -> edges.add(
+                edge.getCallSite() + " -> " + edge.getCallee()));
+        dump.put("call edges", edges);
+        TreeSet<String> methods = new TreeSet<>();
+        result.getCSCallGraph().reachableMethods()
+                .map(CSMethod::toString)
+                .forEach(methods::add);
+        dump.put("reachable methods", methods);
+        return dump;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Test;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.selector.DegradableSelector;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.config.AnalysisOptions;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the memory guard degrades methods when the heap usage
+ * exceeds the threshold, and is re-armed after the usage falls below
+ * the low-water mark or after the minimum interval. Also checks that
+ * degrading methods under memory pressure keeps the analysis sound,
+ * i.e., the (context-insensitive) points-to sets of variables are
+ * between those of the full analysis and the context-insensitive analysis.
+ * The heap usage and the clock are simulated, so the checks do not
+ * depend on garbage collections.
+ */
+public class MemoryGuardTest {
+
+    private static final long THRESHOLD = 100;
+
+    @Test
+    public void testDegradeAndRearm() {
+        SolverTests.buildWorld("TwoObject");
+        CSCallGraph callGraph = (CSCallGraph) SolverTests.solve(
+                        SolverTests.makeOptions(Map.of("cs", "2-obj")))
+                .getResult().getCSCallGraph();
+        DegradableSelector selector = new DegradableSelector("2-obj");
+        long[] usage = {0};
+        long[] time = {0};
+        MemoryGuard guard = new MemoryGuard(selector, THRESHOLD,
+                () -> usage[0], () -> time[0]);
+
+        // not measured again since the last check
+        usage[0] = -1;
+        assertEquals(0, guard.check(callGraph));
+        usage[0] = THRESHOLD;
+        assertEquals(0, guard.check(callGraph));
+        assertTrue(selector.getDegradedMethods().isEmpty());
+        usage[0] = THRESHOLD + 50;
+        int degraded = guard.check(callGraph);
+        assertTrue(degraded > 0);
+        assertEquals(degraded, selector.getDegradedMethods().size());
+
+        // disarmed until the usage falls below the low-water mark
+        assertEquals(0, guard.check(callGraph));
+        usage[0] = THRESHOLD - 5;
+        assertEquals(0, guard.check(callGraph));
+        usage[0] = THRESHOLD + 50;
+        assertEquals(0, guard.check(callGraph));
+        usage[0] = THRESHOLD - 20;
+        assertEquals(0, guard.check(callGraph));
+        usage[0] = THRESHOLD + 50;
+        assertTrue(guard.check(callGraph) > 0);
+
+        // disarmed until the minimum interval elapses
+        assertEquals(0, guard.check(callGraph));
+        time[0] += TimeUnit.SECONDS.toNanos(1);
+        assertTrue(guard.check(callGraph) > 0);
+    }
+
+    @Test
+    public void testTwoObject() {
+        testDegrade("TwoObject", "2-obj");
+    }
+
+    @Test
+    public void testTwoCall() {
+        testDegrade("TwoCall", "2-call");
+    }
+
+    @Test
+    public void testTwoType() {
+        testDegrade("TwoType", "2-type");
+    }
+
+    private static void testDegrade(String main, String cs) {
+        SolverTests.buildWorld(main);
+        Map<String, Set<String>> precise = SolverTests.getPointsToSets(
+                SolverTests.solve(SolverTests.makeOptions(Map.of("cs", cs))).getResult());
+        Map<String, Set<String>> imprecise = SolverTests.getPointsToSets(
+                SolverTests.solve(SolverTests.makeOptions(Map.of("cs", "ci"))).getResult());
+        PointerAnalysisResult result = solveUnderPressure(cs);
+        Set<?> degraded = result.getResult(ResultProcessor.DEGRADED_METHODS, Set.of());
+        assertFalse(degraded.isEmpty());
+        SolverTests.getPointsToSets(result).forEach((var, pts) -> {
+            assertTrue(pts.containsAll(precise.getOrDefault(var, Set.of())));
+            assertTrue(imprecise.getOrDefault(var, Set.of()).containsAll(pts));
+        });
+    }
+
+    /**
+     * Solves with a memory guard whose heap usage always exceeds the
+     * threshold, and which is re-armed at every check.
+     */
+    private static PointerAnalysisResult solveUnderPressure(String cs) {
+        AnalysisOptions options = SolverTests.makeOptions(
+                Map.of("cs", cs, "memory-threshold", 1));
+        HeapModel heapModel = CSPTA.makeHeapModel(options);
+        Solver solver = new Solver(options, heapModel,
+                CSPTA.makeContextSelector(options, heapModel));
+        long interval = TimeUnit.SECONDS.toNanos(1);
+        long[] time = {0};
+        solver.setMemoryGuardFactory(selector -> new MemoryGuard(selector,
+                THRESHOLD, () -> THRESHOLD + 1, () -> time[0] += interval));
+        solver.solve();
+        return solver.getResult();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.Main;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.config.AnalysisOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Static utility methods for testing {@link Solver} directly.
+ */
+final class SolverTests {
+
+    private SolverTests() {
+    }
+
+    /**
+     * Builds the world of a test program in the directory of cspta tests.
+     *
+     * @param main the main class of the test program.
+     */
+    static void buildWorld(String main) {
+        buildWorld("src/test/resources/pta/cspta", main);
+    }
+
+    /**
+     * Builds the world of a test program in given directory.
+     *
+     * @param dir  the class path of the test program.
+     * @param main the main class of the test program.
+     */
+    static void buildWorld(String dir, String main) {
+        Main.buildWorld("-pp", "-cp", dir, "-m", main);
+    }
+
+    /**
+     * @param options the options in addition to (or overriding)
+     *                the default heap options of cspta tests.
+     * @return the analysis options for the solver.
+     */
+    static AnalysisOptions makeOptions(Map<String, Object> options) {
+        Map<String, Object> result = new HashMap<>(Map.of(
+                "cs", "ci",
+                "merge-string-constants", false,
+                "merge-string-objects", true,
+                "merge-string-builders", true,
+                "merge-exception-objects", true));
+        result.putAll(options);
+        return new AnalysisOptions(result);
+    }
+
+    /**
+     * Solves the program with the heap model and context selector
+     * specified by given options.
+     */
+    static Solver solve(AnalysisOptions options) {
+        HeapModel heapModel = CSPTA.makeHeapModel(options);
+        Solver solver = new Solver(options, heapModel,
+                CSPTA.makeContextSelector(options, heapModel));
+        solver.solve();
+        return solver;
+    }
+
+    /**
+     * @return the (context-insensitive) points-to sets of the variables
+     * in given result in a comparable form.
+     */
+    static Map<String, Set<String>> getPointsToSets(PointerAnalysisResult result) {
+        Map<String, Set<String>> pts = new TreeMap<>();
+        result.getVars().forEach(var -> pts.put(var.getMethod() + "/" + var,
+                new TreeSet<>(result.getPointsToSet(var).stream()
+                        .map(Object::toString).toList())));
+        return pts;
+    }
+}
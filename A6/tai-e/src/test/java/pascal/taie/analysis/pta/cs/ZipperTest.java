@@ -0,0 +1,69 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Test;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.toolkit.zipper.Zipper;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that Zipper selects a strict subset of the reachable methods,
+ * and applying context sensitivity only to the selected methods keeps
+ * the (context-insensitive) points-to sets of variables.
+ */
+public class ZipperTest {
+
+    @Test
+    public void testTwoObject() {
+        testZipper("TwoObject", "2-obj");
+    }
+
+    private static void testZipper(String main, String cs) {
+        SolverTests.buildWorld(main);
+        AnalysisOptions options = SolverTests.makeOptions(Map.of("cs", cs));
+        PointerAnalysisResult preResult = CSPTA.runPreAnalysis(
+                options, CSPTA.makeHeapModel(options));
+        Set<JMethod> selected = new Zipper(preResult).selectPrecisionCriticalMethods();
+        assertFalse(selected.isEmpty());
+        assertTrue("Zipper should exclude some reachable methods",
+                preResult.getCallGraph().reachableMethods()
+                        .anyMatch(m -> !selected.contains(m)));
+        assertEquals(solve(cs, false), solve(cs, true));
+    }
+
+    private static Map<String, Set<String>> solve(String cs, boolean zipper) {
+        AnalysisOptions options = SolverTests.makeOptions(
+                Map.of("cs", cs, "zipper", zipper));
+        return SolverTests.getPointsToSets(SolverTests.solve(options).getResult());
+    }
+}
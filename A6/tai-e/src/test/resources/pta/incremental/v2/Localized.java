@@ -0,0 +1,57 @@
+interface Iterator {
+    Object next();
+}
+
+class Localized {
+    public static void main(String[] args) {
+        work();
+        Object x = leaf();
+    }
+
+    static void work() {
+        List l1 = new List();
+        l1.add(new A());
+        List l2 = new List();
+        l2.add(new B());
+        List l3 = new List();
+        l3.add(l1);
+        l3.add(l2);
+
+        Iterator i1 = l1.iterator();
+        Object o1 = i1.next();
+        Iterator i2 = l2.iterator();
+        Object o2 = i2.next();
+        Iterator i3 = l3.iterator();
+        Object o3 = i3.next();
+    }
+
+    static Object leaf() {
+        return new B();
+    }
+}
+
+class A {
+}
+
+class B {
+}
+
+class List {
+
+    Object element;
+
+    void add(Object e) {
+        this.element = e;
+    }
+
+    Iterator iterator() {
+        return new ListIterator();
+    }
+
+    class ListIterator implements Iterator {
+
+        public Object next() {
+            return element;
+        }
+    }
+}
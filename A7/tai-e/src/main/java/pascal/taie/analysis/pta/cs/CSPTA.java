@@ -27,7 +27,9 @@ import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.snapshot.Snapshots;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
@@ -35,6 +37,7 @@ import pascal.taie.util.Strings;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
 
 /**
  * Context-sensitive pointer analysis.
@@ -50,11 +53,21 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
-        solver.solve();
-        PointerAnalysisResult result = solver.getResult();
+        HeapModel heapModel = new AllocationSiteBasedModel(options);
+        String snapshot = options.getString("snapshot");
+        // the snapshot is reusable for the same program and analysis options
+        String key = snapshot != null ? Snapshots.makeKey(options) : null;
+        PointerAnalysisResult result = snapshot != null ?
+                Snapshots.load(Path.of(snapshot), heapModel, key) : null;
+        if (result == null) {
+            Solver solver = new Solver(options, heapModel,
+                    getContextSelector(options.getString("cs")));
+            solver.solve();
+            result = solver.getResult();
+            if (snapshot != null) {
+                Snapshots.save(result, heapModel, key, Path.of(snapshot));
+            }
+        }
         ResultProcessor.process(options, result);
         return result;
     }
@@ -0,0 +1,624 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.snapshot;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.AbstractResultHolder;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static pascal.taie.analysis.pta.snapshot.Snapshots.readVarInt;
+
+/**
+ * Pointer analysis result backed by a memory-mapped snapshot file,
+ * see {@link Snapshots} for the layout. Each section is indexed when
+ * it is first queried, and the strings, objects, contexts and
+ * points-to sets are decoded on demand.
+ * <p>
+ * The context-insensitive queries are answered from the mapped file
+ * directly. The context-sensitive elements are restored into a
+ * {@link CSManager} owned by this result when they are first queried.
+ */
+class SnapshotResult extends AbstractResultHolder
+        implements PointerAnalysisResult {
+
+    private final ByteBuffer buffer;
+
+    private final HeapModel heapModel;
+
+    private final ClassHierarchy hierarchy;
+
+    private final TypeSystem typeSystem;
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    /**
+     * Offsets and lengths of the encoded strings in the string table.
+     */
+    private final int[] stringOffsets;
+
+    private final int[] stringLengths;
+
+    private final String[] strings;
+
+    /**
+     * Allocation sites of the objects, i.e., ids of container methods
+     * and indexes of the allocation statements. null until indexed.
+     */
+    private int[] objMethods;
+
+    private int[] objStmts;
+
+    private Obj[] objs;
+
+    /**
+     * Offsets of the encoded contexts. null until indexed.
+     */
+    private int[] contextOffsets;
+
+    private Context[] contexts;
+
+    /**
+     * Contexts and objects of the CS objects. null until indexed.
+     */
+    private int[] csObjContexts;
+
+    private int[] csObjObjs;
+
+    private CSObj[] csObjs;
+
+    /**
+     * Offsets of the points-to sets of the pointers. null until indexed.
+     */
+    private Map<Var, Integer> varOffsets;
+
+    private Map<JField, Integer> staticFieldOffsets;
+
+    /**
+     * Map from (id of base CS object, field) to the offset of
+     * the points-to set of the instance field. null until indexed.
+     */
+    private TwoKeyMap<Integer, JField, Integer> instanceFieldOffsets;
+
+    /**
+     * Context-sensitive pointers restored to {@link #csManager}.
+     * null until queried.
+     */
+    private List<CSVar> csVars;
+
+    private List<StaticField> staticFields;
+
+    private List<InstanceField> instanceFields;
+
+    private List<ArrayIndex> arrayIndexes;
+
+    private CSCallGraph csCallGraph;
+
+    private CallGraph<Invoke, JMethod> callGraph;
+
+    SnapshotResult(ByteBuffer buffer, HeapModel heapModel) {
+        this.buffer = buffer;
+        this.heapModel = heapModel;
+        this.hierarchy = World.get().getClassHierarchy();
+        this.typeSystem = World.get().getTypeSystem();
+        ByteBuffer in = section(Snapshots.STRINGS);
+        int count = readVarInt(in);
+        stringOffsets = new int[count];
+        stringLengths = new int[count];
+        strings = new String[count];
+        for (int i = 0; i < count; ++i) {
+            stringLengths[i] = readVarInt(in);
+            stringOffsets[i] = in.position();
+            in.position(in.position() + stringLengths[i]);
+        }
+    }
+
+    /**
+     * @return the key of the snapshot.
+     */
+    String getKey() {
+        return getString(0);
+    }
+
+    /**
+     * @return a buffer positioned at the start of given section.
+     */
+    private ByteBuffer section(int section) {
+        return buffer.duplicate().position(buffer.getInt(8 + 4 * section));
+    }
+
+    private ByteBuffer at(int offset) {
+        return buffer.duplicate().position(offset);
+    }
+
+    private static AnalysisException stale(String what) {
+        return new AnalysisException(
+                "Pointer analysis snapshot does not match the program: " + what);
+    }
+
+    private String getString(int id) {
+        String s = strings[id];
+        if (s == null) {
+            byte[] bytes = new byte[stringLengths[id]];
+            at(stringOffsets[id]).get(bytes);
+            s = strings[id] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    private JMethod getMethod(int id) {
+        JMethod method = hierarchy.getMethod(getString(id));
+        if (method == null) {
+            throw stale("method " + getString(id) + " is absent");
+        }
+        return method;
+    }
+
+    private JField getField(int id) {
+        JField field = hierarchy.getField(getString(id));
+        if (field == null) {
+            throw stale("field " + getString(id) + " is absent");
+        }
+        return field;
+    }
+
+    private Stmt getStmt(int methodId, int index) {
+        IR ir = getMethod(methodId).getIR();
+        if (index >= ir.getStmts().size()) {
+            throw stale(ir.getMethod() + " does not have statement " + index);
+        }
+        return ir.getStmt(index);
+    }
+
+    /**
+     * Reads a call site, i.e., the container method and the index of
+     * the call site, at the position of given buffer.
+     */
+    private Invoke readCallSite(ByteBuffer in) {
+        int methodId = readVarInt(in);
+        Stmt stmt = getStmt(methodId, readVarInt(in));
+        if (stmt instanceof Invoke invoke) {
+            return invoke;
+        }
+        throw stale(stmt + " is not a call site");
+    }
+
+    private Var getVar(int methodId, int index) {
+        IR ir = getMethod(methodId).getIR();
+        if (index >= ir.getVars().size()) {
+            throw stale(ir.getMethod() + " does not have variable " + index);
+        }
+        return ir.getVar(index);
+    }
+
+    private void indexObjects() {
+        if (objs == null) {
+            ByteBuffer in = section(Snapshots.OBJECTS);
+            int count = readVarInt(in);
+            objMethods = new int[count];
+            objStmts = new int[count];
+            objs = new Obj[count];
+            for (int i = 0; i < count; ++i) {
+                objMethods[i] = readVarInt(in);
+                objStmts[i] = readVarInt(in);
+            }
+        }
+    }
+
+    private Obj getObj(int id) {
+        indexObjects();
+        Obj obj = objs[id];
+        if (obj == null) {
+            Stmt stmt = getStmt(objMethods[id], objStmts[id]);
+            if (!(stmt instanceof New allocSite)) {
+                throw stale(stmt + " is not an allocation site");
+            }
+            obj = objs[id] = heapModel.getObj(allocSite);
+        }
+        return obj;
+    }
+
+    private void indexContexts() {
+        if (contexts == null) {
+            ByteBuffer in = section(Snapshots.CONTEXTS);
+            int count = readVarInt(in);
+            contextOffsets = new int[count];
+            contexts = new Context[count];
+            for (int i = 0; i < count; ++i) {
+                contextOffsets[i] = in.position();
+                for (int j = readVarInt(in); j > 0; --j) {
+                    // a call site takes two numbers, other elements take one
+                    if (readVarInt(in) == Snapshots.CALL_SITE_ELEMENT) {
+                        readVarInt(in);
+                    }
+                    readVarInt(in);
+                }
+            }
+        }
+    }
+
+    private Context getContext(int id) {
+        indexContexts();
+        Context context = contexts[id];
+        if (context == null) {
+            ByteBuffer in = at(contextOffsets[id]);
+            Object[] elems = new Object[readVarInt(in)];
+            for (int i = 0; i < elems.length; ++i) {
+                int kind = readVarInt(in);
+                elems[i] = switch (kind) {
+                    case Snapshots.CALL_SITE_ELEMENT -> readCallSite(in);
+                    case Snapshots.OBJECT_ELEMENT -> getObj(readVarInt(in));
+                    case Snapshots.TYPE_ELEMENT ->
+                            typeSystem.getType(getString(readVarInt(in)));
+                    default -> throw new AnalysisException(
+                            "Unknown kind of context element: " + kind);
+                };
+            }
+            context = contexts[id] = ListContext.make(elems);
+        }
+        return context;
+    }
+
+    private void indexCSObjects() {
+        if (csObjs == null) {
+            ByteBuffer in = section(Snapshots.CS_OBJECTS);
+            int count = readVarInt(in);
+            csObjContexts = new int[count];
+            csObjObjs = new int[count];
+            csObjs = new CSObj[count];
+            for (int i = 0; i < count; ++i) {
+                csObjContexts[i] = readVarInt(in);
+                csObjObjs[i] = readVarInt(in);
+            }
+        }
+    }
+
+    private CSObj getCSObj(int id) {
+        indexCSObjects();
+        CSObj csObj = csObjs[id];
+        if (csObj == null) {
+            csObj = csObjs[id] = csManager.getCSObj(
+                    getContext(csObjContexts[id]), getObj(csObjObjs[id]));
+        }
+        return csObj;
+    }
+
+    /**
+     * Reads the ids of the CS objects in the points-to set at
+     * the position of given buffer.
+     */
+    private static int[] readIds(ByteBuffer in) {
+        int[] ids = new int[readVarInt(in)];
+        int last = 0;
+        for (int i = 0; i < ids.length; ++i) {
+            last += readVarInt(in);
+            ids[i] = last;
+        }
+        return ids;
+    }
+
+    /**
+     * Reads the points-to set at the position of given buffer,
+     * and adds its objects (without contexts) to result.
+     */
+    private void readObjects(ByteBuffer in, Set<Obj> result) {
+        indexCSObjects();
+        for (int id : readIds(in)) {
+            result.add(getObj(csObjObjs[id]));
+        }
+    }
+
+    /**
+     * Reads the points-to set at the position of given buffer into pts.
+     */
+    private void readPointsToSet(ByteBuffer in, PointsToSet pts) {
+        for (int id : readIds(in)) {
+            pts.addObject(getCSObj(id));
+        }
+    }
+
+    private Map<Var, Integer> getVarOffsets() {
+        if (varOffsets == null) {
+            ByteBuffer in = section(Snapshots.VARS);
+            int count = readVarInt(in);
+            varOffsets = Maps.newMap(count);
+            for (int i = 0; i < count; ++i) {
+                int methodId = readVarInt(in);
+                varOffsets.put(getVar(methodId, readVarInt(in)), in.position());
+                for (int j = readVarInt(in); j > 0; --j) {
+                    readVarInt(in); // context
+                    readIds(in);
+                }
+            }
+        }
+        return varOffsets;
+    }
+
+    private Map<JField, Integer> getStaticFieldOffsets() {
+        if (staticFieldOffsets == null) {
+            ByteBuffer in = section(Snapshots.STATIC_FIELDS);
+            int count = readVarInt(in);
+            staticFieldOffsets = Maps.newMap(count);
+            for (int i = 0; i < count; ++i) {
+                staticFieldOffsets.put(getField(readVarInt(in)), in.position());
+                readIds(in);
+            }
+        }
+        return staticFieldOffsets;
+    }
+
+    private TwoKeyMap<Integer, JField, Integer> getInstanceFieldOffsets() {
+        if (instanceFieldOffsets == null) {
+            ByteBuffer in = section(Snapshots.INSTANCE_FIELDS);
+            int count = readVarInt(in);
+            instanceFieldOffsets = Maps.newTwoKeyMap();
+            for (int i = 0; i < count; ++i) {
+                int base = readVarInt(in);
+                JField field = getField(readVarInt(in));
+                instanceFieldOffsets.put(base, field, in.position());
+                readIds(in);
+            }
+        }
+        return instanceFieldOffsets;
+    }
+
+    /**
+     * Applies action to the ids of the CS objects pointed to by
+     * given variable in all contexts.
+     */
+    private void forEachCSObjId(Var var, Consumer<Integer> action) {
+        Integer offset = getVarOffsets().get(var);
+        if (offset != null) {
+            ByteBuffer in = at(offset);
+            for (int i = readVarInt(in); i > 0; --i) {
+                readVarInt(in); // context
+                for (int id : readIds(in)) {
+                    action.accept(id);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(getVarOffsets().keySet());
+    }
+
+    @Override
+    public Collection<Obj> getObjects() {
+        indexCSObjects();
+        return IntStream.of(csObjObjs)
+                .distinct()
+                .mapToObj(this::getObj)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        indexCSObjects();
+        Set<Obj> pts = Sets.newHybridSet();
+        forEachCSObjId(var, id -> pts.add(getObj(csObjObjs[id])));
+        return Collections.unmodifiableSet(pts);
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        Set<Obj> pts = Sets.newHybridSet();
+        forEachCSObjId(base, id -> {
+            Integer offset = getInstanceFieldOffsets().get(id, field);
+            if (offset != null) {
+                readObjects(at(offset), pts);
+            }
+        });
+        return Collections.unmodifiableSet(pts);
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        Integer offset = getStaticFieldOffsets().get(field);
+        if (offset == null) {
+            return Set.of();
+        }
+        Set<Obj> pts = Sets.newHybridSet();
+        readObjects(at(offset), pts);
+        return Collections.unmodifiableSet(pts);
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> getCallGraph() {
+        if (callGraph == null) {
+            // removes the contexts of the context-sensitive call graph
+            CallGraph<CSCallSite, CSMethod> csCG = getCSCallGraph();
+            DefaultCallGraph cg = new DefaultCallGraph();
+            csCG.entryMethods()
+                    .map(CSMethod::getMethod)
+                    .forEach(cg::addEntryMethod);
+            csCG.reachableMethods()
+                    .map(CSMethod::getMethod)
+                    .forEach(cg::addReachableMethod);
+            csCG.edges().forEach(edge -> cg.addEdge(new Edge<>(edge.getKind(),
+                    edge.getCallSite().getCallSite(), edge.getCallee().getMethod())));
+            callGraph = cg;
+        }
+        return callGraph;
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        if (csVars == null) {
+            List<CSVar> list = new ArrayList<>();
+            ByteBuffer in = section(Snapshots.VARS);
+            for (int i = readVarInt(in); i > 0; --i) {
+                int methodId = readVarInt(in);
+                Var var = getVar(methodId, readVarInt(in));
+                for (int j = readVarInt(in); j > 0; --j) {
+                    CSVar csVar = csManager.getCSVar(getContext(readVarInt(in)), var);
+                    readPointsToSet(in, csVar.getPointsToSet());
+                    list.add(csVar);
+                }
+            }
+            csVars = Collections.unmodifiableList(list);
+        }
+        return csVars;
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        if (staticFields == null) {
+            List<StaticField> list = new ArrayList<>();
+            ByteBuffer in = section(Snapshots.STATIC_FIELDS);
+            for (int i = readVarInt(in); i > 0; --i) {
+                StaticField sfield = csManager.getStaticField(getField(readVarInt(in)));
+                readPointsToSet(in, sfield.getPointsToSet());
+                list.add(sfield);
+            }
+            staticFields = Collections.unmodifiableList(list);
+        }
+        return staticFields;
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        if (instanceFields == null) {
+            List<InstanceField> list = new ArrayList<>();
+            ByteBuffer in = section(Snapshots.INSTANCE_FIELDS);
+            for (int i = readVarInt(in); i > 0; --i) {
+                CSObj base = getCSObj(readVarInt(in));
+                InstanceField ifield = csManager.getInstanceField(
+                        base, getField(readVarInt(in)));
+                readPointsToSet(in, ifield.getPointsToSet());
+                list.add(ifield);
+            }
+            instanceFields = Collections.unmodifiableList(list);
+        }
+        return instanceFields;
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        if (arrayIndexes == null) {
+            List<ArrayIndex> list = new ArrayList<>();
+            ByteBuffer in = section(Snapshots.ARRAY_INDEXES);
+            for (int i = readVarInt(in); i > 0; --i) {
+                ArrayIndex arrayIndex = csManager.getArrayIndex(
+                        getCSObj(readVarInt(in)));
+                readPointsToSet(in, arrayIndex.getPointsToSet());
+                list.add(arrayIndex);
+            }
+            arrayIndexes = Collections.unmodifiableList(list);
+        }
+        return arrayIndexes;
+    }
+
+    @Override
+    public Collection<CSObj> getCSObjects() {
+        indexCSObjects();
+        return IntStream.range(0, csObjs.length)
+                .mapToObj(this::getCSObj)
+                .toList();
+    }
+
+    @Override
+    public Set<CSObj> getPointsToSet(CSVar var) {
+        // restores the points-to sets of the variables in this result
+        getCSVars();
+        return var.getPointsToSet().getObjects();
+    }
+
+    @Override
+    public CallGraph<CSCallSite, CSMethod> getCSCallGraph() {
+        if (csCallGraph == null) {
+            CSCallGraph cg = new CSCallGraph(csManager);
+            ByteBuffer in = section(Snapshots.CALL_GRAPH);
+            for (int i = readVarInt(in); i > 0; --i) {
+                cg.addEntryMethod(readCSMethod(in));
+            }
+            for (int i = readVarInt(in); i > 0; --i) {
+                cg.addReachableMethod(readCSMethod(in));
+            }
+            CallKind[] kinds = CallKind.values();
+            for (int i = readVarInt(in); i > 0; --i) {
+                CallKind kind = kinds[readVarInt(in)];
+                Context context = getContext(readVarInt(in));
+                CSCallSite csCallSite = csManager.getCSCallSite(
+                        context, readCallSite(in));
+                cg.addEdge(new Edge<>(kind, csCallSite, readCSMethod(in)));
+            }
+            csCallGraph = cg;
+        }
+        return csCallGraph;
+    }
+
+    /**
+     * Reads a CS method, i.e., the context and the method,
+     * at the position of given buffer.
+     */
+    private CSMethod readCSMethod(ByteBuffer in) {
+        Context context = getContext(readVarInt(in));
+        return csManager.getCSMethod(context, getMethod(readVarInt(in)));
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.snapshot;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static pascal.taie.analysis.pta.snapshot.Snapshots.writeVarInt;
+
+/**
+ * Writes a snapshot file, see {@link Snapshots} for the layout.
+ */
+class SnapshotWriter {
+
+    private final PointerAnalysisResult result;
+
+    private final HeapModel heapModel;
+
+    private final Map<String, Integer> stringIds = new LinkedHashMap<>();
+
+    private final Map<Obj, Integer> objIds = Maps.newMap();
+
+    private final List<Obj> objs = new ArrayList<>();
+
+    private final Map<Context, Integer> contextIds = Maps.newMap();
+
+    private final List<Context> contexts = new ArrayList<>();
+
+    private final Map<CSObj, Integer> csObjIds = Maps.newMap();
+
+    private final List<CSObj> csObjs = new ArrayList<>();
+
+    /**
+     * Allocation site of each object.
+     */
+    private final Map<Obj, New> allocSites = Maps.newMap();
+
+    SnapshotWriter(PointerAnalysisResult result, HeapModel heapModel, String key) {
+        this.result = result;
+        this.heapModel = heapModel;
+        getStringId(key);
+    }
+
+    void write(Path file) throws IOException {
+        result.getCallGraph().reachableMethods().forEach(method ->
+                method.getIR().forEach(stmt -> {
+                    if (stmt instanceof New newStmt) {
+                        allocSites.putIfAbsent(heapModel.getObj(newStmt), newStmt);
+                    }
+                }));
+        result.getCSObjects().forEach(this::getCSObjId);
+        byte[][] sections = new byte[Snapshots.SECTIONS][];
+        // the sections are written after the ones that refer to them,
+        // so that the referred strings, objects and contexts are all known
+        sections[Snapshots.VARS] = writeVars();
+        sections[Snapshots.STATIC_FIELDS] = writeStaticFields();
+        sections[Snapshots.INSTANCE_FIELDS] = writeInstanceFields();
+        sections[Snapshots.ARRAY_INDEXES] = writeArrayIndexes();
+        sections[Snapshots.CALL_GRAPH] = writeCallGraph();
+        sections[Snapshots.CS_OBJECTS] = writeCSObjects();
+        sections[Snapshots.CONTEXTS] = writeContexts();
+        sections[Snapshots.OBJECTS] = writeObjects();
+        sections[Snapshots.STRINGS] = writeStrings();
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(Snapshots.MAGIC);
+            out.writeInt(Snapshots.VERSION);
+            int offset = Snapshots.HEADER_SIZE;
+            for (byte[] section : sections) {
+                out.writeInt(offset);
+                offset += section.length;
+            }
+            for (byte[] section : sections) {
+                out.write(section);
+            }
+        }
+    }
+
+    private byte[] writeVars() throws IOException {
+        Section section = new Section();
+        MultiMap<Var, CSVar> csVars = Maps.newMultiMap();
+        result.getCSVars().forEach(csVar -> csVars.put(csVar.getVar(), csVar));
+        Set<Var> vars = csVars.keySet();
+        writeVarInt(section.out, vars.size());
+        for (Var var : vars) {
+            writeVarInt(section.out, getStringId(var.getMethod().getSignature()));
+            writeVarInt(section.out, var.getIndex());
+            Set<CSVar> varsOfContexts = csVars.get(var);
+            writeVarInt(section.out, varsOfContexts.size());
+            for (CSVar csVar : varsOfContexts) {
+                writeVarInt(section.out, getContextId(csVar.getContext()));
+                writePointsToSet(section.out, csVar.getPointsToSet());
+            }
+        }
+        return section.toByteArray();
+    }
+
+    private byte[] writeStaticFields() throws IOException {
+        Section section = new Section();
+        Collection<StaticField> sfields = result.getStaticFields();
+        writeVarInt(section.out, sfields.size());
+        for (StaticField sfield : sfields) {
+            writeVarInt(section.out, getStringId(sfield.getField().getSignature()));
+            writePointsToSet(section.out, sfield.getPointsToSet());
+        }
+        return section.toByteArray();
+    }
+
+    private byte[] writeInstanceFields() throws IOException {
+        Section section = new Section();
+        Collection<InstanceField> ifields = result.getInstanceFields();
+        writeVarInt(section.out, ifields.size());
+        for (InstanceField ifield : ifields) {
+            writeVarInt(section.out, getCSObjId(ifield.getBase()));
+            writeVarInt(section.out, getStringId(ifield.getField().getSignature()));
+            writePointsToSet(section.out, ifield.getPointsToSet());
+        }
+        return section.toByteArray();
+    }
+
+    private byte[] writeArrayIndexes() throws IOException {
+        Section section = new Section();
+        Collection<ArrayIndex> arrayIndexes = result.getArrayIndexes();
+        writeVarInt(section.out, arrayIndexes.size());
+        for (ArrayIndex arrayIndex : arrayIndexes) {
+            writeVarInt(section.out, getCSObjId(arrayIndex.getArray()));
+            writePointsToSet(section.out, arrayIndex.getPointsToSet());
+        }
+        return section.toByteArray();
+    }
+
+    private byte[] writeCallGraph() throws IOException {
+        Section section = new Section();
+        CallGraph<CSCallSite, CSMethod> callGraph = result.getCSCallGraph();
+        writeMethods(section.out, callGraph.entryMethods());
+        writeMethods(section.out, callGraph.reachableMethods());
+        List<Edge<CSCallSite, CSMethod>> edges = callGraph.edges().toList();
+        writeVarInt(section.out, edges.size());
+        for (Edge<CSCallSite, CSMethod> edge : edges) {
+            CSCallSite csCallSite = edge.getCallSite();
+            writeVarInt(section.out, edge.getKind().ordinal());
+            writeVarInt(section.out, getContextId(csCallSite.getContext()));
+            writeCallSite(section.out, csCallSite.getCallSite());
+            writeMethod(section.out, edge.getCallee());
+        }
+        return section.toByteArray();
+    }
+
+    private void writeMethods(DataOutputStream out, Stream<CSMethod> methods)
+            throws IOException {
+        List<CSMethod> list = methods.toList();
+        writeVarInt(out, list.size());
+        for (CSMethod csMethod : list) {
+            writeMethod(out, csMethod);
+        }
+    }
+
+    private void writeMethod(DataOutputStream out, CSMethod csMethod)
+            throws IOException {
+        writeVarInt(out, getContextId(csMethod.getContext()));
+        writeVarInt(out, getStringId(csMethod.getMethod().getSignature()));
+    }
+
+    private void writeCallSite(DataOutputStream out, Invoke callSite)
+            throws IOException {
+        writeVarInt(out, getStringId(callSite.getContainer().getSignature()));
+        writeVarInt(out, callSite.getIndex());
+    }
+
+    private byte[] writeCSObjects() throws IOException {
+        Section section = new Section();
+        writeVarInt(section.out, csObjs.size());
+        for (CSObj csObj : csObjs) {
+            writeVarInt(section.out, getContextId(csObj.getContext()));
+            writeVarInt(section.out, getObjId(csObj.getObject()));
+        }
+        return section.toByteArray();
+    }
+
+    private byte[] writeContexts() throws IOException {
+        Section section = new Section();
+        writeVarInt(section.out, contexts.size());
+        for (Context context : contexts) {
+            writeVarInt(section.out, context.getLength());
+            for (int i = 0; i < context.getLength(); ++i) {
+                Object elem = context.getElementAt(i);
+                if (elem instanceof Invoke callSite) {
+                    writeVarInt(section.out, Snapshots.CALL_SITE_ELEMENT);
+                    writeCallSite(section.out, callSite);
+                } else if (elem instanceof Obj obj) {
+                    writeVarInt(section.out, Snapshots.OBJECT_ELEMENT);
+                    writeVarInt(section.out, getObjId(obj));
+                } else if (elem instanceof Type type) {
+                    writeVarInt(section.out, Snapshots.TYPE_ELEMENT);
+                    writeVarInt(section.out, getStringId(type.getName()));
+                } else {
+                    throw new AnalysisException(
+                            "Cannot save context element " + elem + " in " + context);
+                }
+            }
+        }
+        return section.toByteArray();
+    }
+
+    private byte[] writeObjects() throws IOException {
+        Section section = new Section();
+        writeVarInt(section.out, objs.size());
+        for (Obj obj : objs) {
+            New allocSite = allocSites.get(obj);
+            if (allocSite == null) {
+                throw new AnalysisException(
+                        "Cannot save object without allocation site: " + obj);
+            }
+            writeVarInt(section.out,
+                    getStringId(allocSite.getContainer().getSignature()));
+            writeVarInt(section.out, allocSite.getIndex());
+        }
+        return section.toByteArray();
+    }
+
+    private byte[] writeStrings() throws IOException {
+        Section section = new Section();
+        writeVarInt(section.out, stringIds.size());
+        for (String s : stringIds.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(section.out, bytes.length);
+            section.out.write(bytes);
+        }
+        return section.toByteArray();
+    }
+
+    private void writePointsToSet(DataOutputStream out, PointsToSet pts)
+            throws IOException {
+        int[] ids = new int[pts.size()];
+        int i = 0;
+        for (CSObj csObj : pts) {
+            ids[i++] = getCSObjId(csObj);
+        }
+        Arrays.sort(ids);
+        writeVarInt(out, ids.length);
+        int last = 0;
+        for (int id : ids) {
+            writeVarInt(out, id - last);
+            last = id;
+        }
+    }
+
+    private int getStringId(String s) {
+        return stringIds.computeIfAbsent(s, unused -> stringIds.size());
+    }
+
+    private int getObjId(Obj obj) {
+        return objIds.computeIfAbsent(obj, o -> {
+            objs.add(o);
+            return objs.size() - 1;
+        });
+    }
+
+    private int getContextId(Context context) {
+        return contextIds.computeIfAbsent(context, c -> {
+            contexts.add(c);
+            return contexts.size() - 1;
+        });
+    }
+
+    private int getCSObjId(CSObj csObj) {
+        return csObjIds.computeIfAbsent(csObj, o -> {
+            csObjs.add(o);
+            return csObjs.size() - 1;
+        });
+    }
+
+    /**
+     * In-memory buffer of a section.
+     */
+    private static class Section {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        private byte[] toByteArray() throws IOException {
+            out.flush();
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.snapshot;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.Options;
+import pascal.taie.util.AnalysisException;
+
+import javax.annotation.Nullable;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Saves {@link PointerAnalysisResult} to a compact binary snapshot file,
+ * and loads the result from the snapshot without running the analysis.
+ * <p>
+ * A snapshot keeps the whole context-sensitive result, i.e., contexts,
+ * context-sensitive objects, points-to sets of variables, static fields,
+ * instance fields and array indexes, and the context-sensitive call
+ * graph. The context-insensitive queries are answered by projecting
+ * the context-sensitive facts. Methods, fields and types are referred
+ * to by their signatures (objects by their allocation sites), so that
+ * a snapshot can be loaded in another run on the same program. The
+ * layout of a snapshot file is:
+ * <pre>
+ * magic (int), version (int), offsets of the sections (int each)
+ * strings:         count, (length, UTF-8 bytes)*
+ * objects:         count, (method, index of allocation statement)*
+ * contexts:        count, (length, element*)*
+ * CS objects:      count, (context, object)*
+ * variables:       count, (method, index of variable,
+ *                          #contexts, (context, points-to set)*)*
+ * static fields:   count, (field, points-to set)*
+ * instance fields: count, (base CS object, field, points-to set)*
+ * array indexes:   count, (array CS object, points-to set)*
+ * call graph:      #entries, (context, method)*,
+ *                  #reachable methods, (context, method)*,
+ *                  #edges, (kind, context, caller, index of call site,
+ *                           callee context, callee)*
+ * </pre>
+ * All numbers except the header are unsigned variable-length integers.
+ * Methods, fields and types are ids of their signatures in the string
+ * table, the first string of which is the key of the snapshot.
+ * A context element is a kind ({@link #CALL_SITE_ELEMENT},
+ * {@link #OBJECT_ELEMENT} or {@link #TYPE_ELEMENT}) followed by the call
+ * site (method, index of call site), object id or type respectively.
+ * A points-to set is the number of CS objects followed by their
+ * ascending ids, each stored as the difference from its predecessor.
+ */
+public final class Snapshots {
+
+    private static final Logger logger = LogManager.getLogger(Snapshots.class);
+
+    static final int MAGIC = 0x54505441; // "TPTA"
+
+    static final int VERSION = 2;
+
+    static final int STRINGS = 0;
+
+    static final int OBJECTS = 1;
+
+    static final int CONTEXTS = 2;
+
+    static final int CS_OBJECTS = 3;
+
+    static final int VARS = 4;
+
+    static final int STATIC_FIELDS = 5;
+
+    static final int INSTANCE_FIELDS = 6;
+
+    static final int ARRAY_INDEXES = 7;
+
+    static final int CALL_GRAPH = 8;
+
+    static final int SECTIONS = 9;
+
+    static final int HEADER_SIZE = 4 * (2 + SECTIONS);
+
+    static final int CALL_SITE_ELEMENT = 0;
+
+    static final int OBJECT_ELEMENT = 1;
+
+    static final int TYPE_ELEMENT = 2;
+
+    /**
+     * The options that affect the objects created by the heap model.
+     */
+    private static final List<String> HEAP_OPTIONS = List.of(
+            "merge-string-constants", "merge-string-objects",
+            "merge-string-builders", "merge-exception-objects");
+
+    /**
+     * Initial value of 64-bit FNV-1a hash.
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private Snapshots() {
+    }
+
+    /**
+     * Makes the key of the snapshots of current program analyzed with
+     * given options. The key consists of the main method, the context
+     * sensitivity, the options of the heap model, and a fingerprint of
+     * the program, i.e., the Java version of the library and a hash of
+     * the class path (see {@link #hashClassPath}). Snapshots refer to
+     * statements by their indexes, thus a snapshot is loaded only if its
+     * key matches.
+     */
+    public static String makeKey(AnalysisOptions options) {
+        Options worldOptions = World.get().getOptions();
+        StringBuilder key = new StringBuilder()
+                .append(World.get().getMainMethod())
+                .append(";cs:").append(options.getString("cs"));
+        for (String option : HEAP_OPTIONS) {
+            key.append(';').append(option).append(':').append(options.get(option));
+        }
+        key.append(";java:").append(worldOptions.getJavaVersion())
+                .append(";pp:").append(worldOptions.isPrependJVM())
+                .append(";cp:").append(String.format("%016x",
+                        hashClassPath(worldOptions.getClassPath())));
+        return key.toString();
+    }
+
+    /**
+     * @return a hash of the files in given class path, which is computed
+     * from their metadata instead of their contents, thus the key is cheap
+     * to make on each run. An archive (.jar or .zip) is hashed by the
+     * names, sizes and CRCs of its entries, which are read from its
+     * central directory, and any other file is hashed by its size and
+     * last modified time.
+     */
+    private static long hashClassPath(@Nullable String classPath) {
+        long hash = FNV_OFFSET;
+        if (classPath == null) {
+            return hash;
+        }
+        for (String entry : classPath.split(File.pathSeparator)) {
+            Path root = Path.of(entry);
+            hash = hash(hash, entry.getBytes(StandardCharsets.UTF_8));
+            if (!Files.exists(root)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(root)) {
+                for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    hash = hash(hash, root.relativize(file).toString()
+                            .getBytes(StandardCharsets.UTF_8));
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(".jar") || name.endsWith(".zip")) {
+                        hash = hashArchive(hash, file);
+                    } else {
+                        hash = hash(hash, Files.size(file));
+                        hash = hash(hash, Files.getLastModifiedTime(file).toMillis());
+                    }
+                }
+            } catch (IOException e) {
+                throw new AnalysisException("Failed to read class path " + entry, e);
+            }
+        }
+        return hash;
+    }
+
+    private static long hashArchive(long hash, Path file) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                hash = hash(hash, entry.getName().getBytes(StandardCharsets.UTF_8));
+                hash = hash(hash, entry.getSize());
+                hash = hash(hash, entry.getCrc());
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Continues 64-bit FNV-1a hash with the 8 bytes of given value.
+     */
+    private static long hash(long hash, long value) {
+        for (int i = 0; i < 8; ++i) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Continues 64-bit FNV-1a hash with given bytes.
+     */
+    private static long hash(long hash, byte[] bytes) {
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Saves given result to a snapshot file.
+     *
+     * @param result    the result to be saved.
+     * @param heapModel the heap model that creates the objects in the result.
+     * @param key       the key that identifies the program and analysis
+     *                  configuration of the result, see {@link #makeKey}.
+     * @param file      the snapshot file.
+     * @throws AnalysisException if failed to write the file.
+     */
+    public static void save(PointerAnalysisResult result, HeapModel heapModel,
+                            String key, Path file) {
+        logger.info("Saving pointer analysis snapshot to {} ...", file);
+        try {
+            new SnapshotWriter(result, heapModel, key).write(file);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to save snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Loads the result from a snapshot file. The file is memory-mapped,
+     * and the points-to sets are decoded lazily when they are queried.
+     *
+     * @param file      the snapshot file.
+     * @param heapModel the heap model to create the objects in the result.
+     * @param key       the expected key of the snapshot.
+     * @return the result, or null if the file does not exist, or it is
+     * not a snapshot of current version with given key.
+     * @throws AnalysisException if failed to read the file.
+     */
+    @Nullable
+    public static PointerAnalysisResult load(Path file, HeapModel heapModel,
+                                             String key) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to load snapshot " + file, e);
+        }
+        if (buffer.limit() < HEADER_SIZE ||
+                buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            logger.info("Ignoring {}: not a pointer analysis snapshot of version {}",
+                    file, VERSION);
+            return null;
+        }
+        SnapshotResult result = new SnapshotResult(buffer, heapModel);
+        if (!result.getKey().equals(key)) {
+            logger.info("Ignoring {}: snapshot of \"{}\", expected \"{}\"",
+                    file, result.getKey(), key);
+            return null;
+        }
+        logger.info("Loaded pointer analysis snapshot from {}", file);
+        return result;
+    }
+
+    static void writeVarInt(DataOutput out, int i) throws IOException {
+        while ((i & ~0x7f) != 0) {
+            out.writeByte((i & 0x7f) | 0x80);
+            i >>>= 7;
+        }
+        out.writeByte(i);
+    }
+
+    static int readVarInt(ByteBuffer buffer) {
+        int i = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            i |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return i;
+            }
+        }
+    }
+}
@@ -22,10 +22,15 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
+import org.junit.Assert;
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
 import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public class InterCPAliasTest {
 
     private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/alias";
@@ -39,6 +44,41 @@ public class InterCPAliasTest {
         );
     }
 
+    /**
+     * Runs the analysis twice with a PTA snapshot: the first run solves
+     * the PTA, saves the snapshot and dumps the context-sensitive
+     * points-to sets, and the second run loads the snapshot and
+     * compares its points-to sets with the dumped ones.
+     */
+    void testSnapshot(String inputClass) throws IOException {
+        Path snapshot = Path.of("output", inputClass + "-cspta.snapshot");
+        Path pts = Path.of("output", inputClass + "-cspta-snapshot.txt");
+        Files.deleteIfExists(snapshot);
+        for (String action : new String[]{ "dump", "compare" }) {
+            Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                    "edge-refine:false;alias-aware:true;pta:cspta",
+                    "-a", "cspta=cs:2-obj;snapshot:" + snapshot +
+                            ";action:" + action + ";file:" + pts,
+                    "-a", "cg=algorithm:cspta");
+            Assert.assertTrue(Files.exists(snapshot));
+        }
+    }
+
+    @Test
+    public void testInstanceFieldSnapshot() throws IOException {
+        testSnapshot("InstanceField");
+    }
+
+    @Test
+    public void testArrayLoopsSnapshot() throws IOException {
+        testSnapshot("ArrayLoops");
+    }
+
+    @Test
+    public void testStaticFieldSnapshot() throws IOException {
+        testSnapshot("StaticField");
+    }
+
     @Test
     public void testArray() {
         test("Array");
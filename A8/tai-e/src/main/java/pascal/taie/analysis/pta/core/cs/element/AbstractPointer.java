@@ -26,8 +26,19 @@ import pascal.taie.analysis.pta.pts.PointsToSet;
 
 abstract class AbstractPointer implements Pointer {
 
+    private final int index;
+
     private PointsToSet pointsToSet;
 
+    AbstractPointer(int index) {
+        this.index = index;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
     @Override
     public PointsToSet getPointsToSet() {
         return pointsToSet;
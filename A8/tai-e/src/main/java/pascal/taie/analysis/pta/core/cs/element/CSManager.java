@@ -106,4 +106,10 @@ public interface CSManager {
      * @return all array index pointers.
      */
     Collection<ArrayIndex> getArrayIndexes();
+
+    /**
+     * @return the pointer whose index is given index.
+     * @see Pointer#getIndex()
+     */
+    Pointer getPointer(int index);
 }
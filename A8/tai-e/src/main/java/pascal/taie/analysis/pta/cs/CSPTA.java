@@ -22,6 +22,7 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
@@ -31,10 +32,12 @@ import pascal.taie.analysis.pta.plugin.ResultProcessor;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.Strings;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
 
 /**
  * Context-sensitive pointer analysis.
@@ -50,16 +53,37 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
+        PointerAnalysisResult result;
+        String entryMethods = options.getString("entry-methods");
+        if (entryMethods != null) {
+            result = new EntryGroupSolver(options, entryMethods).solve();
+        } else {
+            result = solve(options, List.of(World.get().getMainMethod()))
+                    .getResult();
+        }
+        ResultProcessor.process(options, result);
+        return result;
+    }
+
+    /**
+     * Analyzes the program from given entry methods with the configured
+     * context sensitivity. In sparse taint mode, taint objects are
+     * propagated over the result of the same analysis after it finishes,
+     * thus the returned result is always the one of the configured
+     * context sensitivity, in either taint mode, and sparse mode only
+     * saves the work of taint objects in the analysis.
+     *
+     * @return the solver that produces the result.
+     */
+    static Solver solve(AnalysisOptions options, List<JMethod> entryMethods) {
         Solver solver = new Solver(options,
                 new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
+                getContextSelector(options.getString("cs")), entryMethods);
         solver.solve();
-        PointerAnalysisResult result = solver.getResult();
-        ResultProcessor.process(options, result);
-        return result;
+        return solver;
     }
 
-    private static ContextSelector getContextSelector(String cs) {
+    static ContextSelector getContextSelector(String cs) {
         if (cs.equals("ci")) {
             return new CISelector();
         } else {
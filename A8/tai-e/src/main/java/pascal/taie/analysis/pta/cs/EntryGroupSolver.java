@@ -0,0 +1,183 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
+import pascal.taie.analysis.pta.plugin.taint.TaintPaths;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs taint analysis for independent entry methods, e.g., the request
+ * handlers of a service. The entry methods are partitioned into groups,
+ * and each group is analyzed by its own {@link Solver} on a thread pool.
+ * The solvers share only the immutable program representation in
+ * {@link World}, and the taint flows of all groups are merged at the end.
+ */
+class EntryGroupSolver {
+
+    private static final Logger logger = LogManager.getLogger(EntryGroupSolver.class);
+
+    private final AnalysisOptions options;
+
+    private final List<List<JMethod>> groups;
+
+    /**
+     * @param entryFile file that lists the signatures of entry methods,
+     *                  one per line. Blank lines and lines starting with
+     *                  '#' are ignored.
+     */
+    EntryGroupSolver(AnalysisOptions options, String entryFile) {
+        this.options = options;
+        List<JMethod> entries = readEntryMethods(entryFile);
+        int nGroups = options.get("entry-groups") != null ?
+                options.getInt("entry-groups") :
+                Runtime.getRuntime().availableProcessors();
+        nGroups = Math.max(1, Math.min(nGroups, entries.size()));
+        groups = new ArrayList<>(nGroups);
+        for (int i = 0; i < nGroups; ++i) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < entries.size(); ++i) {
+            groups.get(i % nGroups).add(entries.get(i));
+        }
+        if (nGroups > 1 && !comparesTaintFlowsOnly(options)) {
+            throw new ConfigException("Points-to sets of " + nGroups +
+                    " entry-method groups cannot be merged, use entry-groups:1" +
+                    " to dump or compare them");
+        }
+    }
+
+    /**
+     * @return true if the result processor only needs the taint flows,
+     * which are merged over all groups, i.e., the action is absent, or
+     * is compare with taint analysis enabled.
+     */
+    private static boolean comparesTaintFlowsOnly(AnalysisOptions options) {
+        String action = options.getString("action");
+        return action == null ||
+                (action.equals("compare") && options.getString("taint-config") != null);
+    }
+
+    private static List<JMethod> readEntryMethods(String entryFile) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Path.of(entryFile));
+        } catch (IOException e) {
+            throw new ConfigException("Failed to read entry methods from " + entryFile, e);
+        }
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        List<JMethod> entries = new ArrayList<>();
+        for (String line : lines) {
+            String methodSig = line.strip();
+            if (methodSig.isEmpty() || methodSig.startsWith("#")) {
+                continue;
+            }
+            JMethod method = hierarchy.getMethod(methodSig);
+            if (method == null) {
+                throw new ConfigException("Cannot find entry method '" + methodSig + "'");
+            }
+            entries.add(method);
+        }
+        if (entries.isEmpty()) {
+            throw new ConfigException("No entry methods in " + entryFile);
+        }
+        return entries;
+    }
+
+    /**
+     * Analyzes all groups and merges their taint flows.
+     *
+     * @return the result of the first group, whose taint flows are
+     * replaced by the merged ones. The points-to sets and call graphs
+     * of other groups are not merged, thus the constructor rejects
+     * the actions that need them when there are multiple groups.
+     * Likewise, the {@link TaintPaths} of the first group cannot witness
+     * the flows of other groups, thus they are dropped from the result
+     * when there are multiple groups.
+     */
+    PointerAnalysisResult solve() {
+        int threads = Math.min(groups.size(),
+                Runtime.getRuntime().availableProcessors());
+        logger.info("Analyzing {} groups of entry methods with {} threads",
+                groups.size(), threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Solver>> futures = new ArrayList<>(groups.size());
+            for (List<JMethod> group : groups) {
+                futures.add(pool.submit(() -> CSPTA.solve(options, group)));
+            }
+            Set<TaintFlow> taintFlows = new TreeSet<>();
+            PointerAnalysisResult first = null;
+            for (int i = 0; i < futures.size(); ++i) {
+                PointerAnalysisResult result = futures.get(i).get().getResult();
+                Set<TaintFlow> groupFlows = result.getResult(
+                        TaintAnalysiss.class.getName());
+                logger.info("Group {}: {} entry methods, {} reachable methods, {} taint flows",
+                        i, groups.get(i).size(),
+                        result.getCSCallGraph().getNumberOfMethods(),
+                        groupFlows.size());
+                taintFlows.addAll(groupFlows);
+                if (first == null) {
+                    first = result;
+                }
+            }
+            first.storeResult(TaintAnalysiss.class.getName(), taintFlows);
+            if (groups.size() > 1) {
+                first.clearResult(TaintPaths.class.getName());
+            }
+            return first;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new AnalysisException("Failed to analyze entry methods", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Interrupted while analyzing entry methods", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
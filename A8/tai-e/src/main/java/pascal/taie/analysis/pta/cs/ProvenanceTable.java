@@ -0,0 +1,109 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+/**
+ * Side table that records, for each pair of pointer and object, the
+ * pointer from which the object first flowed to the pointer.
+ * Pointers and objects are represented by their indexes, and the table
+ * is an open-addressing hash map from packed (pointer, object) keys to
+ * predecessor indexes, so that recording an edge allocates nothing.
+ */
+class ProvenanceTable {
+
+    /**
+     * Value representing absent entries.
+     */
+    static final int ABSENT = -1;
+
+    /**
+     * Key of empty slots. Actual keys are never 0 as pointer indexes
+     * are shifted by one when packed.
+     */
+    private static final long EMPTY = 0L;
+
+    private long[] keys = new long[1 << 10];
+
+    private int[] values = new int[keys.length];
+
+    private int size;
+
+    /**
+     * Records that obj flowed to pointer from pred, if no predecessor
+     * of (pointer, obj) has been recorded.
+     */
+    void putIfAbsent(int pointer, int obj, int pred) {
+        long key = key(pointer, obj);
+        int i = slot(keys, key);
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            values[i] = pred;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+    }
+
+    /**
+     * @return the recorded predecessor of (pointer, obj), or
+     * {@link #ABSENT} if there is none.
+     */
+    int get(int pointer, int obj) {
+        long key = key(pointer, obj);
+        int i = slot(keys, key);
+        return keys[i] == EMPTY ? ABSENT : values[i];
+    }
+
+    private static long key(int pointer, int obj) {
+        return ((long) (pointer + 1) << 32) | (obj & 0xffffffffL);
+    }
+
+    /**
+     * @return the slot of given key, or the empty slot where it would
+     * be inserted.
+     */
+    private static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        long h = key * 0x9e3779b97f4a7c15L;
+        int i = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[keys.length];
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != EMPTY) {
+                int j = slot(keys, oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
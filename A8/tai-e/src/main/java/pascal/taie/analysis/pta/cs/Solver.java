@@ -26,22 +26,18 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
-import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
-import pascal.taie.analysis.pta.core.cs.element.InstanceField;
 import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
-import pascal.taie.analysis.pta.core.cs.element.StaticField;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
@@ -49,19 +45,26 @@ import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
-import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.Copy;
 import pascal.taie.ir.stmt.Invoke;
-import pascal.taie.ir.stmt.LoadArray;
 import pascal.taie.ir.stmt.LoadField;
 import pascal.taie.ir.stmt.New;
 import pascal.taie.ir.stmt.StmtVisitor;
-import pascal.taie.ir.stmt.StoreArray;
 import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class Solver {
 
@@ -73,6 +76,8 @@ public class Solver {
 
     private final ContextSelector contextSelector;
 
+    private final List<JMethod> entryMethods;
+
     private CSManager csManager;
 
     private CSCallGraph callGraph;
@@ -83,13 +88,41 @@ public class Solver {
 
     private TaintAnalysiss taintAnalysis;
 
+    /**
+     * Records the first PFG edge that introduced each taint object
+     * to each pointer.
+     */
+    private ProvenanceTable provenance;
+
     private PointerAnalysisResult result;
 
+    /**
+     * Callees of virtual and interface calls resolved by this solver,
+     * by method reference and receiver type.
+     */
+    private final TwoKeyMap<MethodRef, Type, JMethod> dispatchCache =
+            Maps.newTwoKeyMap();
+
+    /**
+     * Callees of static and special calls resolved by this solver.
+     */
+    private final Map<MethodRef, JMethod> resolveCache = Maps.newMap();
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
+        this(options, heapModel, contextSelector,
+                List.of(World.get().getMainMethod()));
+    }
+
+    /**
+     * Creates a solver that analyzes the program from given entry methods.
+     */
+    Solver(AnalysisOptions options, HeapModel heapModel,
+           ContextSelector contextSelector, List<JMethod> entryMethods) {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.entryMethods = entryMethods;
     }
 
     public AnalysisOptions getOptions() {
@@ -116,19 +149,24 @@ public class Solver {
         pointerFlowGraph = new PointerFlowGraph();
         workList = new WorkList();
         taintAnalysis = new TaintAnalysiss(this);
-        // process program entry, i.e., main method
+        provenance = new ProvenanceTable();
+        // process program entries, i.e., main method by default
         Context defContext = contextSelector.getEmptyContext();
-        JMethod main = World.get().getMainMethod();
-        CSMethod csMethod = csManager.getCSMethod(defContext, main);
-        callGraph.addEntryMethod(csMethod);
-        addReachable(csMethod);
+        for (JMethod entry : entryMethods) {
+            CSMethod csMethod = csManager.getCSMethod(defContext, entry);
+            callGraph.addEntryMethod(csMethod);
+            addReachable(csMethod);
+        }
     }
 
     /**
      * Processes new reachable context-sensitive method.
      */
     private void addReachable(CSMethod csMethod) {
-        // TODO - finish me
+        if (callGraph.addReachableMethod(csMethod)) {
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            csMethod.getMethod().getIR().forEach(stmt -> stmt.accept(stmtProcessor));
+        }
     }
 
     /**
@@ -145,22 +183,99 @@ public class Solver {
             this.context = csMethod.getContext();
         }
 
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+        @Override
+        public Void visit(New stmt) {
+            Obj obj = heapModel.getObj(stmt);
+            Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
+            workList.addEntry(csManager.getCSVar(context, stmt.getLValue()),
+                    PointsToSetFactory.make(csManager.getCSObj(heapContext, obj)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                    csManager.getCSVar(context, stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(csManager.getStaticField(field),
+                        csManager.getCSVar(context, stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                        csManager.getStaticField(field));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                Context calleeContext = contextSelector.selectContext(csCallSite, callee);
+                processCallEdge(csCallSite,
+                        csManager.getCSMethod(calleeContext, callee));
+            }
+            return null;
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                workList.addEntry(target, pts, source);
+            }
+        }
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
      */
     private void analyze() {
-        // TODO - finish me
+        while (!workList.isEmpty()) {
+            WorkList.Entry entry = workList.pollEntry();
+            Pointer pointer = entry.pointer();
+            PointsToSet delta = propagate(pointer, entry.pointsToSet());
+            if (entry.source() != null && taintAnalysis.hasTaints()) {
+                recordProvenance(pointer, delta, entry.source());
+            }
+            if (pointer instanceof CSVar csVar && !delta.isEmpty()) {
+                Var var = csVar.getVar();
+                Context context = csVar.getContext();
+                for (CSObj obj : delta) {
+                    var.getStoreFields().forEach(store -> addPFGEdge(
+                            csManager.getCSVar(context, store.getRValue()),
+                            csManager.getInstanceField(obj, store.getFieldRef().resolve())));
+                    var.getLoadFields().forEach(load -> addPFGEdge(
+                            csManager.getInstanceField(obj, load.getFieldRef().resolve()),
+                            csManager.getCSVar(context, load.getLValue())));
+                    var.getStoreArrays().forEach(store -> addPFGEdge(
+                            csManager.getCSVar(context, store.getRValue()),
+                            csManager.getArrayIndex(obj)));
+                    var.getLoadArrays().forEach(load -> addPFGEdge(
+                            csManager.getArrayIndex(obj),
+                            csManager.getCSVar(context, load.getLValue())));
+                    processCall(csVar, obj);
+                }
+                taintAnalysis.onNewPointsToSet(csVar, delta);
+            }
+        }
     }
 
     /**
@@ -168,8 +283,40 @@ public class Solver {
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-        return null;
+        PointsToSet pts = pointer.getPointsToSet();
+        PointsToSet delta = PointsToSetFactory.make();
+        pointsToSet.objects()
+                .filter(pts::addObject)
+                .forEach(delta::addObject);
+        if (!delta.isEmpty()) {
+            pointerFlowGraph.getSuccsOf(pointer)
+                    .forEach(succ -> workList.addEntry(succ, delta, pointer));
+        }
+        return delta;
+    }
+
+    /**
+     * Records that the taint objects in delta are introduced to pointer
+     * by the edge "source -> pointer".
+     */
+    private void recordProvenance(Pointer pointer, PointsToSet delta, Pointer source) {
+        for (CSObj obj : delta) {
+            if (taintAnalysis.isTaint(obj.getObject())) {
+                provenance.putIfAbsent(pointer.getIndex(), obj.getIndex(),
+                        source.getIndex());
+            }
+        }
+    }
+
+    /**
+     * @return the source pointer of the first PFG edge that introduced
+     * given taint object to given pointer, or null if the taint object
+     * was introduced to the pointer directly, e.g., at a source call.
+     */
+    @Nullable
+    public Pointer getProvenance(Pointer pointer, CSObj taint) {
+        int pred = provenance.get(pointer.getIndex(), taint.getIndex());
+        return pred != ProvenanceTable.ABSENT ? csManager.getPointer(pred) : null;
     }
 
     /**
@@ -179,7 +326,85 @@ public class Solver {
      * @param recvObj set of new discovered objects pointed by the variable.
      */
     private void processCall(CSVar recv, CSObj recvObj) {
-        // TODO - finish me
+        for (Invoke callSite : recv.getVar().getInvokes()) {
+            JMethod callee = resolveCallee(recvObj, callSite);
+            if (callee == null) {
+                continue;
+            }
+            CSCallSite csCallSite = csManager.getCSCallSite(recv.getContext(), callSite);
+            Context calleeContext = contextSelector.selectContext(
+                    csCallSite, recvObj, callee);
+            CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+            workList.addEntry(
+                    csManager.getCSVar(calleeContext, callee.getIR().getThis()),
+                    PointsToSetFactory.make(recvObj), recv);
+            processCallEdge(csCallSite, csCallee);
+        }
+    }
+
+    /**
+     * Adds call edge "csCallSite -> csCallee" to the call graph, and if
+     * the edge is new, connects the arguments/return value of the call
+     * to the parameters/return variables of the callee.
+     */
+    private void processCallEdge(CSCallSite csCallSite, CSMethod csCallee) {
+        Invoke callSite = csCallSite.getCallSite();
+        Edge<CSCallSite, CSMethod> edge = new Edge<>(
+                CallGraphs.getCallKind(callSite), csCallSite, csCallee);
+        if (!callGraph.addEdge(edge)) {
+            return;
+        }
+        addReachable(csCallee);
+        Context callerContext = csCallSite.getContext();
+        Context calleeContext = csCallee.getContext();
+        IR ir = csCallee.getMethod().getIR();
+        List<Var> args = callSite.getInvokeExp().getArgs();
+        for (int i = 0; i < args.size(); ++i) {
+            addPFGEdge(csManager.getCSVar(callerContext, args.get(i)),
+                    csManager.getCSVar(calleeContext, ir.getParam(i)));
+        }
+        Var lhs = callSite.getLValue();
+        if (lhs != null) {
+            CSVar csLHS = csManager.getCSVar(callerContext, lhs);
+            ir.getReturnVars().forEach(ret ->
+                    addPFGEdge(csManager.getCSVar(calleeContext, ret), csLHS));
+        }
+        taintAnalysis.onNewCallEdge(edge);
+    }
+
+    /**
+     * Adds call edge "csCallSite -> csCallee" after the solver has finished,
+     * and analyzes the facts introduced by the edge. This lets the plugins
+     * that run on the finished analysis, e.g., sparse taint propagation,
+     * request the callees that have not been analyzed.
+     */
+    public void addCallEdge(CSCallSite csCallSite, CSMethod csCallee) {
+        processCallEdge(csCallSite, csCallee);
+        analyze();
+    }
+
+    /**
+     * Adds given objects to the points-to set of given pointer.
+     * This is the entry for the plugins to introduce new objects,
+     * e.g., taint objects, into pointer analysis.
+     */
+    public void addPointsTo(Pointer pointer, PointsToSet pointsToSet) {
+        workList.addEntry(pointer, pointsToSet);
+    }
+
+    /**
+     * Adds given objects, which flow from source, to the points-to set
+     * of given pointer.
+     */
+    public void addPointsTo(Pointer pointer, PointsToSet pointsToSet, Pointer source) {
+        workList.addEntry(pointer, pointsToSet, source);
+    }
+
+    /**
+     * @return successors of given pointer in the pointer flow graph.
+     */
+    public Set<Pointer> getSuccsOf(Pointer pointer) {
+        return pointerFlowGraph.getSuccsOf(pointer);
     }
 
     /**
@@ -190,9 +415,41 @@ public class Solver {
      * @param callSite the call site to be resolved.
      * @return the resolved callee.
      */
-    private JMethod resolveCallee(CSObj recv, Invoke callSite) {
-        Type type = recv != null ? recv.getObject().getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+    public JMethod resolveCallee(CSObj recv, Invoke callSite) {
+        MethodRef methodRef = callSite.getMethodRef();
+        if (callSite.isInterface() || callSite.isVirtual()) {
+            Type type = recv.getObject().getType();
+            JMethod callee = dispatchCache.get(methodRef, type);
+            if (callee == null) {
+                callee = resolveShared(type, callSite);
+                if (callee != null) {
+                    dispatchCache.put(methodRef, type, callee);
+                }
+            }
+            return callee;
+        }
+        JMethod callee = resolveCache.get(methodRef);
+        if (callee == null) {
+            callee = resolveShared(null, callSite);
+            if (callee != null) {
+                resolveCache.put(methodRef, callee);
+            }
+        }
+        return callee;
+    }
+
+    /**
+     * Resolves the callee via the class hierarchy, which caches dispatch
+     * results in maps that are not thread-safe. Solvers may run in
+     * parallel (see {@link EntryGroupSolver}), so the hierarchy is locked,
+     * and each solver caches the results to take the lock only once for
+     * each call it resolves.
+     */
+    private static JMethod resolveShared(Type type, Invoke callSite) {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        synchronized (hierarchy) {
+            return CallGraphs.resolveCallee(type, callSite);
+        }
     }
 
     public PointerAnalysisResult getResult() {
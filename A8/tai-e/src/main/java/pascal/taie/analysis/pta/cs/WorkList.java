@@ -25,6 +25,7 @@ package pascal.taie.analysis.pta.cs;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.Queue;
 
@@ -39,7 +40,15 @@ class WorkList {
      * Adds an entry to the work list.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        addEntry(pointer, pointsToSet, null);
+    }
+
+    /**
+     * Adds an entry whose points-to set flows from given source pointer.
+     */
+    void addEntry(Pointer pointer, PointsToSet pointsToSet,
+                  @Nullable Pointer source) {
+        entries.add(new Entry(pointer, pointsToSet, source));
     }
 
     /**
@@ -59,8 +68,11 @@ class WorkList {
 
     /**
      * Represents entries in the work list.
-     * Each entry consists of a pointer and a points-to set.
+     * Each entry consists of a pointer and a points-to set, and the source
+     * pointer of the points-to set, which is null if the objects are
+     * introduced to the pointer directly, e.g., by allocation.
      */
-    record Entry(Pointer pointer, PointsToSet pointsToSet) {
+    record Entry(Pointer pointer, PointsToSet pointsToSet,
+                 @Nullable Pointer source) {
     }
 }
@@ -0,0 +1,363 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled binary form of {@link TaintConfig}, which spares the YAML
+ * parsing and the validation of method signatures at every startup.
+ * <p>
+ * A compiled config is keyed by the hash of the YAML file, and records
+ * the fingerprints (superclass and method signatures) of the classes
+ * that declare the configured methods, so it is used only if neither
+ * the YAML file nor these classes have changed since compilation.
+ * Loading looks up only these classes, and resolves the configured
+ * methods while checking the fingerprints. The format is:
+ * <pre>
+ * magic, version, YAML hash
+ * #strings, strings (class names, method signatures and type names)
+ * #classes, (class, fingerprint)*
+ * #sources, (method, type)*
+ * #sinks, (method, index)*
+ * #transfers, (method, from, to, type)*
+ * </pre>
+ * where the classes, methods and types are indexes of the string table.
+ */
+final class CompiledTaintConfig {
+
+    private static final Logger logger = LogManager.getLogger(CompiledTaintConfig.class);
+
+    private static final int MAGIC = 0x54434647; // "TCFG"
+
+    private static final int VERSION = 2;
+
+    private CompiledTaintConfig() {
+    }
+
+    /**
+     * Reads a taint analysis configuration from the compiled form in
+     * cacheDir if it is valid, otherwise reads the YAML file and then
+     * compiles it to cacheDir.
+     *
+     * @throws ConfigException if failed to load the config file
+     */
+    static TaintConfig readConfig(Path path, Path cacheDir,
+                                  ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        long yamlHash = hashYAML(path);
+        Path compiled = resolve(cacheDir, yamlHash);
+        TaintConfig config = load(compiled, yamlHash, hierarchy, typeSystem);
+        if (config != null) {
+            logger.info("Loaded compiled taint config {}", compiled);
+        } else {
+            config = TaintConfig.readConfig(path.toString(), hierarchy, typeSystem);
+            write(compiled, yamlHash, config);
+        }
+        return config;
+    }
+
+    /**
+     * @return the config compiled from given YAML file in cacheDir,
+     * or null if it is absent, corrupted or stale.
+     * @throws ConfigException if failed to read the YAML file
+     */
+    @Nullable
+    static TaintConfig loadCompiled(Path path, Path cacheDir,
+                                    ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        long yamlHash = hashYAML(path);
+        return load(resolve(cacheDir, yamlHash), yamlHash, hierarchy, typeSystem);
+    }
+
+    private static long hashYAML(Path path) {
+        try {
+            return hash(Files.readAllBytes(path));
+        } catch (IOException e) {
+            throw new ConfigException("Failed to read taint analysis config file " + path, e);
+        }
+    }
+
+    /**
+     * @return the path of the config compiled from the YAML file
+     * of given hash in cacheDir.
+     */
+    private static Path resolve(Path cacheDir, long yamlHash) {
+        return cacheDir.resolve(String.format("taint-config-%016x.bin", yamlHash));
+    }
+
+    /**
+     * @return the config loaded from compiled file, or null if the file
+     * is absent, corrupted or stale.
+     */
+    @Nullable
+    private static TaintConfig load(Path compiled, long yamlHash,
+                                    ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        if (!Files.isRegularFile(compiled)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(compiled, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION ||
+                    buffer.getLong() != yamlHash) {
+                return null;
+            }
+            // each string takes at least the 4 bytes of its length
+            String[] strings = new String[readCount(buffer, Integer.BYTES)];
+            for (int i = 0; i < strings.length; ++i) {
+                byte[] bytes = new byte[readCount(buffer, 1)];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            // each class takes 4 bytes of its name and 8 bytes of fingerprint
+            int[] classes = new int[readCount(buffer, Integer.BYTES + Long.BYTES)];
+            long[] fingerprints = new long[classes.length];
+            for (int i = 0; i < classes.length; ++i) {
+                classes[i] = buffer.getInt();
+                fingerprints[i] = buffer.getLong();
+            }
+            int[] sources = readRules(buffer, 2);
+            int[] sinks = readRules(buffer, 2);
+            int[] transfers = readRules(buffer, 4);
+            Set<String> methodSigs = Sets.newSet();
+            for (int[] rules : List.of(sources, sinks, transfers)) {
+                int width = rules == transfers ? 4 : 2;
+                for (int i = 0; i < rules.length; i += width) {
+                    methodSigs.add(strings[rules[i]]);
+                }
+            }
+            Map<String, JMethod> methods = Maps.newMap(methodSigs.size());
+            for (int i = 0; i < classes.length; ++i) {
+                JClass jclass = hierarchy.getClass(strings[classes[i]]);
+                if (jclass == null || fingerprint(jclass, methodSigs, methods)
+                        != fingerprints[i]) {
+                    logger.info("Compiled taint config {} is stale", compiled);
+                    return null;
+                }
+            }
+            if (methods.size() != methodSigs.size()) {
+                // the classes of all configured methods are recorded,
+                // so this means the file is corrupted
+                return null;
+            }
+            Set<Source> sourceSet = Sets.newSet(sources.length / 2);
+            for (int i = 0; i < sources.length; i += 2) {
+                sourceSet.add(new Source(methods.get(strings[sources[i]]),
+                        typeSystem.getType(strings[sources[i + 1]])));
+            }
+            Set<Sink> sinkSet = Sets.newSet(sinks.length / 2);
+            for (int i = 0; i < sinks.length; i += 2) {
+                sinkSet.add(new Sink(methods.get(strings[sinks[i]]), sinks[i + 1]));
+            }
+            Set<TaintTransfer> transferSet = Sets.newSet(transfers.length / 4);
+            for (int i = 0; i < transfers.length; i += 4) {
+                transferSet.add(new TaintTransfer(
+                        methods.get(strings[transfers[i]]),
+                        transfers[i + 1], transfers[i + 2],
+                        typeSystem.getType(strings[transfers[i + 3]])));
+            }
+            return new TaintConfig(Collections.unmodifiableSet(sourceSet),
+                    Collections.unmodifiableSet(sinkSet),
+                    Collections.unmodifiableSet(transferSet));
+        } catch (IOException | BufferUnderflowException |
+                 IndexOutOfBoundsException | NegativeArraySizeException e) {
+            logger.warn("Failed to load compiled taint config {}", compiled, e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads a rule section, i.e., the number of rules followed by
+     * width integers for each rule.
+     */
+    private static int[] readRules(ByteBuffer buffer, int width) {
+        int[] rules = new int[readCount(buffer, width * Integer.BYTES) * width];
+        buffer.asIntBuffer().get(rules);
+        buffer.position(buffer.position() + rules.length * Integer.BYTES);
+        return rules;
+    }
+
+    /**
+     * Reads the number of the following elements, and checks it against
+     * the remaining bytes, so that a corrupted count makes the file
+     * rejected instead of allocating a huge array.
+     *
+     * @param elementBytes the minimum size of each element in bytes
+     * @throws BufferUnderflowException if the count is invalid
+     */
+    private static int readCount(ByteBuffer buffer, int elementBytes) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / elementBytes) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static void write(Path compiled, long yamlHash, TaintConfig config) {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream rules = new DataOutputStream(bytes)) {
+            Set<JClass> classes = Sets.newSet();
+            config.getSources().forEach(s -> classes.add(s.method().getDeclaringClass()));
+            config.getSinks().forEach(s -> classes.add(s.method().getDeclaringClass()));
+            config.getTransfers().forEach(t -> classes.add(t.method().getDeclaringClass()));
+            rules.writeInt(classes.size());
+            for (JClass jclass : classes) {
+                rules.writeInt(indexOf(strings, jclass));
+                rules.writeLong(fingerprint(jclass, Set.of(), Maps.newMap()));
+            }
+            rules.writeInt(config.getSources().size());
+            for (Source source : config.getSources()) {
+                rules.writeInt(indexOf(strings, source.method()));
+                rules.writeInt(indexOf(strings, source.type()));
+            }
+            rules.writeInt(config.getSinks().size());
+            for (Sink sink : config.getSinks()) {
+                rules.writeInt(indexOf(strings, sink.method()));
+                rules.writeInt(sink.index());
+            }
+            rules.writeInt(config.getTransfers().size());
+            for (TaintTransfer transfer : config.getTransfers()) {
+                rules.writeInt(indexOf(strings, transfer.method()));
+                rules.writeInt(transfer.from());
+                rules.writeInt(transfer.to());
+                rules.writeInt(indexOf(strings, transfer.type()));
+            }
+            Files.createDirectories(compiled.getParent());
+            Path tmp = Files.createTempFile(compiled.getParent(), "taint-config", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    Files.newOutputStream(tmp))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(yamlHash);
+                out.writeInt(strings.size());
+                for (String s : strings.keySet()) {
+                    byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(utf8.length);
+                    out.write(utf8);
+                }
+                bytes.writeTo(out);
+            }
+            // concurrent runs may compile the same config, and moving
+            // the complete file into place keeps readers from seeing
+            // a partially written file
+            Files.move(tmp, compiled, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Compiled taint config to {}", compiled);
+        } catch (IOException e) {
+            logger.warn("Failed to compile taint config to {}", compiled, e);
+        }
+    }
+
+    private static int indexOf(Map<String, Integer> strings, JClass jclass) {
+        return strings.computeIfAbsent(jclass.getName(), unused -> strings.size());
+    }
+
+    private static int indexOf(Map<String, Integer> strings, JMethod method) {
+        return strings.computeIfAbsent(method.getSignature(), unused -> strings.size());
+    }
+
+    private static int indexOf(Map<String, Integer> strings, Type type) {
+        return strings.computeIfAbsent(type.getName(), unused -> strings.size());
+    }
+
+    /**
+     * @return 64-bit FNV-1a hash of given bytes.
+     */
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Computes a fingerprint of given class, i.e., its name, superclass
+     * and the signatures of its methods, which is independent of the
+     * order of the methods. As this scans the declared methods, it also
+     * resolves the methods of given signatures.
+     *
+     * @param methodSigs the signatures of the methods to be resolved
+     * @param methods    map to which the resolved methods are put
+     */
+    private static long fingerprint(JClass jclass, Set<String> methodSigs,
+                                    Map<String, JMethod> methods) {
+        JClass superClass = jclass.getSuperClass();
+        long h = mix(hash(jclass.getName() + " <: " +
+                (superClass != null ? superClass.getName() : "")));
+        for (JMethod method : jclass.getDeclaredMethods()) {
+            String signature = method.getSignature();
+            h += mix(hash(signature));
+            if (methodSigs.contains(signature)) {
+                methods.put(signature, method);
+            }
+        }
+        return h;
+    }
+
+    private static long hash(String s) {
+        return hash(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Finalization mix of MurmurHash3, which spreads the bits of given
+     * value so that the sum of mixed values rarely collides.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9f62ad4fe53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
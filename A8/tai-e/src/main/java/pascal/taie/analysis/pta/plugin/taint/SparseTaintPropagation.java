@@ -0,0 +1,296 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Propagates taint objects alone over the pointer flow graph built by
+ * a points-to analysis that does not track taint objects.
+ * The call graph and the points-to sets of ordinary objects (i.e.,
+ * the alias facts) come from the points-to analysis, so this propagation
+ * only visits the pointers that taint objects actually flow to, and
+ * ordinary objects are never propagated again.
+ * <p>
+ * Besides the edges of the pointer flow graph, taint objects flow along
+ * taint transfers, and along the field/array/call edges introduced when
+ * taint objects act as bases or receivers. If the callee of a call on
+ * a taint receiver has not been analyzed under the selected context,
+ * e.g., no ordinary object of its class reaches the receiver, the
+ * points-to analysis is resumed with the call edge, and the taint objects
+ * are re-propagated over the pointer flow graph it extends.
+ * <p>
+ * The points-to analysis is still the full analysis of the configured
+ * context sensitivity, so this propagation only saves the work of
+ * propagating taint objects within that analysis, e.g., taint objects
+ * are not tracked in its work list and points-to sets. It does not make
+ * the points-to analysis itself cheaper than in full taint mode.
+ */
+class SparseTaintPropagation {
+
+    private static final Logger logger = LogManager.getLogger(SparseTaintPropagation.class);
+
+    private final TaintAnalysiss taintAnalysis;
+
+    private final Solver solver;
+
+    private final CSManager csManager;
+
+    private final ContextSelector contextSelector;
+
+    private final CallGraph<CSCallSite, CSMethod> callGraph;
+
+    /**
+     * Taint objects pointed to by each pointer.
+     */
+    private final Map<Pointer, PointsToSet> taints = Maps.newMap();
+
+    /**
+     * Edges that are absent in the pointer flow graph, i.e., the ones
+     * introduced by taint objects acting as bases or receivers.
+     */
+    private final MultiMap<Pointer, Pointer> taintEdges = Maps.newMultiMap();
+
+    private final MultiMap<Pointer, TaintAnalysiss.TransferEdge> transferEdges = Maps.newMultiMap();
+
+    private final Queue<Entry> workList = new ArrayDeque<>();
+
+    /**
+     * Call edges that have been processed by {@link #processCallEdge(Edge)}.
+     */
+    private final Set<Edge<CSCallSite, CSMethod>> processedEdges = Sets.newSet();
+
+    /**
+     * Calls on taint receivers whose callees have not been analyzed
+     * by the points-to analysis.
+     */
+    private final Set<MissingCall> missingCalls = Sets.newSet();
+
+    SparseTaintPropagation(TaintAnalysiss taintAnalysis, Solver solver) {
+        this.taintAnalysis = taintAnalysis;
+        this.solver = solver;
+        this.csManager = solver.getCSManager();
+        this.contextSelector = solver.getContextSelector();
+        this.callGraph = solver.getResult().getCSCallGraph();
+    }
+
+    void propagate() {
+        do {
+            callGraph.edges()
+                    .filter(edge -> !processedEdges.contains(edge))
+                    .toList()
+                    .forEach(this::processCallEdge);
+            propagateWorkList();
+        } while (analyzeMissingCalls());
+        logger.info("{} pointers point to taint objects", taints.size());
+    }
+
+    private void propagateWorkList() {
+        while (!workList.isEmpty()) {
+            Entry entry = workList.poll();
+            Pointer pointer = entry.pointer();
+            PointsToSet delta = addTaints(pointer, entry.taints());
+            if (delta.isEmpty()) {
+                continue;
+            }
+            solver.getSuccsOf(pointer).forEach(succ -> addEntry(succ, delta));
+            taintEdges.get(pointer).forEach(succ -> addEntry(succ, delta));
+            transferEdges.get(pointer).forEach(transferEdge -> addEntry(
+                    transferEdge.target(),
+                    taintAnalysis.transferTaints(delta, transferEdge.type())));
+            if (pointer instanceof CSVar csVar) {
+                delta.forEach(taint -> processTaintBase(csVar, taint));
+            }
+        }
+    }
+
+    /**
+     * Resumes the points-to analysis with the missing calls, and then
+     * re-propagates the taint objects, as the analysis may add PFG edges
+     * to the pointers that have been processed.
+     *
+     * @return true if there were missing calls.
+     */
+    private boolean analyzeMissingCalls() {
+        if (missingCalls.isEmpty()) {
+            return false;
+        }
+        List<MissingCall> calls = List.copyOf(missingCalls);
+        missingCalls.clear();
+        logger.info("Analyzing {} callee(s) invoked on taint objects", calls.size());
+        calls.forEach(call -> solver.addCallEdge(call.csCallSite(), call.csCallee()));
+        taints.forEach((pointer, pts) -> solver.getSuccsOf(pointer)
+                .forEach(succ -> addEntry(succ, pts)));
+        calls.forEach(call -> processTaintBase(call.csVar(), call.taint()));
+        return true;
+    }
+
+    /**
+     * @return the taint objects pointed to by given pointer.
+     */
+    PointsToSet getTaints(Pointer pointer) {
+        PointsToSet pts = taints.get(pointer);
+        return pts != null ? pts : PointsToSetFactory.make();
+    }
+
+    /**
+     * Adds taint objects to pt(pointer) and returns the new ones.
+     */
+    private PointsToSet addTaints(Pointer pointer, PointsToSet pts) {
+        PointsToSet ptsOfPointer = taints.computeIfAbsent(pointer,
+                unused -> PointsToSetFactory.make());
+        PointsToSet delta = PointsToSetFactory.make();
+        pts.objects()
+                .filter(ptsOfPointer::addObject)
+                .forEach(delta::addObject);
+        return delta;
+    }
+
+    private void addEntry(Pointer pointer, PointsToSet pts) {
+        if (!pts.isEmpty()) {
+            workList.add(new Entry(pointer, pts));
+        }
+    }
+
+    private void addTaintEdge(Pointer source, Pointer target) {
+        if (taintEdges.put(source, target)) {
+            addEntry(target, getTaints(source));
+        }
+    }
+
+    /**
+     * Generates taint objects at the source call and taint-transfer
+     * edges for given call edge.
+     */
+    private void processCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        processedEdges.add(edge);
+        CSCallSite csCallSite = edge.getCallSite();
+        Context context = csCallSite.getContext();
+        Invoke callSite = csCallSite.getCallSite();
+        JMethod callee = edge.getCallee().getMethod();
+        PointsToSet sourceTaints = taintAnalysis.getSourceTaints(callSite, callee);
+        if (!sourceTaints.isEmpty()) {
+            addEntry(csManager.getCSVar(context, callSite.getLValue()), sourceTaints);
+        }
+        for (TaintTransfer transfer : taintAnalysis.getTransfers(callee)) {
+            Var from = TaintAnalysiss.getVar(callSite, transfer.from());
+            Var to = TaintAnalysiss.getVar(callSite, transfer.to());
+            if (from != null && to != null) {
+                CSVar csFrom = csManager.getCSVar(context, from);
+                TaintAnalysiss.TransferEdge transferEdge = new TaintAnalysiss.TransferEdge(
+                        csManager.getCSVar(context, to), transfer.type());
+                if (transferEdges.put(csFrom, transferEdge)) {
+                    addEntry(transferEdge.target(), taintAnalysis.transferTaints(
+                            getTaints(csFrom), transfer.type()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes the statements that use csVar as base or receiver,
+     * when taint object flows to csVar.
+     */
+    private void processTaintBase(CSVar csVar, CSObj taint) {
+        Var var = csVar.getVar();
+        Context context = csVar.getContext();
+        var.getStoreFields().forEach(store -> addTaintEdge(
+                csManager.getCSVar(context, store.getRValue()),
+                csManager.getInstanceField(taint, store.getFieldRef().resolve())));
+        var.getLoadFields().forEach(load -> addTaintEdge(
+                csManager.getInstanceField(taint, load.getFieldRef().resolve()),
+                csManager.getCSVar(context, load.getLValue())));
+        var.getStoreArrays().forEach(store -> addTaintEdge(
+                csManager.getCSVar(context, store.getRValue()),
+                csManager.getArrayIndex(taint)));
+        var.getLoadArrays().forEach(load -> addTaintEdge(
+                csManager.getArrayIndex(taint),
+                csManager.getCSVar(context, load.getLValue())));
+        for (Invoke callSite : var.getInvokes()) {
+            JMethod callee = solver.resolveCallee(taint, callSite);
+            if (callee == null) {
+                continue;
+            }
+            CSCallSite csCallSite = csManager.getCSCallSite(context, callSite);
+            Context calleeContext = contextSelector.selectContext(
+                    csCallSite, taint, callee);
+            CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+            if (!callGraph.contains(csCallee)) {
+                missingCalls.add(new MissingCall(csVar, taint, csCallSite, csCallee));
+                continue;
+            }
+            IR ir = callee.getIR();
+            addEntry(csManager.getCSVar(calleeContext, ir.getThis()),
+                    PointsToSetFactory.make(taint));
+            List<Var> args = callSite.getInvokeExp().getArgs();
+            for (int i = 0; i < args.size(); ++i) {
+                addTaintEdge(csManager.getCSVar(context, args.get(i)),
+                        csManager.getCSVar(calleeContext, ir.getParam(i)));
+            }
+            Var lhs = callSite.getLValue();
+            if (lhs != null) {
+                CSVar csLHS = csManager.getCSVar(context, lhs);
+                ir.getReturnVars().forEach(ret -> addTaintEdge(
+                        csManager.getCSVar(calleeContext, ret), csLHS));
+            }
+            processCallEdge(new Edge<>(
+                    CallGraphs.getCallKind(callSite), csCallSite, csCallee));
+        }
+    }
+
+    private record Entry(Pointer pointer, PointsToSet taints) {
+    }
+
+    private record MissingCall(CSVar csVar, CSObj taint,
+                               CSCallSite csCallSite, CSMethod csCallee) {
+    }
+}
@@ -25,14 +25,35 @@ package pascal.taie.analysis.pta.plugin.taint;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
 
-import java.util.Map;
+import javax.annotation.Nullable;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Function;
 
 public class TaintAnalysiss {
 
@@ -48,6 +69,17 @@ public class TaintAnalysiss {
 
     private final Context emptyContext;
 
+    /**
+     * Whether taint objects are propagated by {@link SparseTaintPropagation}
+     * after the points-to analysis, instead of along with other objects.
+     */
+    private final boolean sparse;
+
+    /**
+     * Map from "from" variable to its taint transfers.
+     */
+    private final MultiMap<CSVar, TransferEdge> transferEdges = Maps.newMultiMap();
+
     public TaintAnalysiss(Solver solver) {
         manager = new TaintManager();
         this.solver = solver;
@@ -55,23 +87,185 @@ public class TaintAnalysiss {
         emptyContext = solver.getContextSelector().getEmptyContext();
         config = TaintConfig.readConfig(
                 solver.getOptions().getString("taint-config"),
+                solver.getOptions().getString("taint-config-cache"),
                 World.get().getClassHierarchy(),
                 World.get().getTypeSystem());
         logger.info(config);
+        sparse = isSparse(solver.getOptions());
+    }
+
+    /**
+     * @return true if given options select the sparse taint mode,
+     * i.e., taint-mode: sparse. Sparse mode runs the same points-to
+     * analysis as full mode, see {@link SparseTaintPropagation}.
+     */
+    public static boolean isSparse(AnalysisOptions options) {
+        String mode = options.getString("taint-mode");
+        if (mode == null || mode.equals("full")) {
+            return false;
+        } else if (mode.equals("sparse")) {
+            return true;
+        } else {
+            throw new ConfigException("Unknown taint mode: " + mode);
+        }
+    }
+
+    /**
+     * Generates taint objects at source calls and taint transfers
+     * for the call sites that invoke taint-transfer methods.
+     */
+    public void onNewCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        if (sparse) {
+            return;
+        }
+        CSCallSite csCallSite = edge.getCallSite();
+        Context context = csCallSite.getContext();
+        Invoke callSite = csCallSite.getCallSite();
+        JMethod callee = edge.getCallee().getMethod();
+        PointsToSet taints = getSourceTaints(callSite, callee);
+        if (!taints.isEmpty()) {
+            solver.addPointsTo(
+                    csManager.getCSVar(context, callSite.getLValue()), taints);
+        }
+        for (TaintTransfer transfer : getTransfers(callee)) {
+            Var from = getVar(callSite, transfer.from());
+            Var to = getVar(callSite, transfer.to());
+            if (from != null && to != null) {
+                CSVar csFrom = csManager.getCSVar(context, from);
+                TransferEdge transferEdge = new TransferEdge(
+                        csManager.getCSVar(context, to), transfer.type());
+                if (transferEdges.put(csFrom, transferEdge)) {
+                    transferTaints(csFrom, csFrom.getPointsToSet(), transferEdge);
+                }
+            }
+        }
     }
 
-    // TODO - finish me
+    /**
+     * Transfers the new taint objects pointed to by csVar.
+     */
+    public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+        if (sparse) {
+            return;
+        }
+        transferEdges.get(csVar)
+                .forEach(transferEdge -> transferTaints(csVar, pts, transferEdge));
+    }
+
+    private void transferTaints(CSVar from, PointsToSet pts,
+                                TransferEdge transferEdge) {
+        PointsToSet taints = transferTaints(pts, transferEdge.type());
+        if (!taints.isEmpty()) {
+            solver.addPointsTo(transferEdge.target(), taints, from);
+        }
+    }
+
+    /**
+     * @return true if any taint object has been generated, otherwise false.
+     */
+    public boolean hasTaints() {
+        return manager.hasTaints();
+    }
+
+    /**
+     * @return true if given object is a taint object, otherwise false.
+     */
+    public boolean isTaint(Obj obj) {
+        return manager.isTaint(obj);
+    }
 
     public void onFinish() {
-        Set<TaintFlow> taintFlows = collectTaintFlows();
+        Set<TaintFlow> taintFlows;
+        if (sparse) {
+            SparseTaintPropagation propagation =
+                    new SparseTaintPropagation(this, solver);
+            propagation.propagate();
+            taintFlows = collectTaintFlows(propagation::getTaints);
+        } else {
+            taintFlows = collectTaintFlows(Pointer::getPointsToSet);
+            solver.getResult().storeResult(TaintPaths.class.getName(),
+                    new TaintPaths(solver, manager));
+        }
         solver.getResult().storeResult(getClass().getName(), taintFlows);
     }
 
-    private Set<TaintFlow> collectTaintFlows() {
+    /**
+     * @param taintsOf returns the taint objects pointed to by given pointer.
+     */
+    private Set<TaintFlow> collectTaintFlows(
+            Function<Pointer, PointsToSet> taintsOf) {
         Set<TaintFlow> taintFlows = new TreeSet<>();
         PointerAnalysisResult result = solver.getResult();
-        // TODO - finish me
-        // You could query pointer analysis results you need via variable result.
+        result.getCSCallGraph().edges().forEach(edge -> {
+            CSCallSite csCallSite = edge.getCallSite();
+            Invoke sinkCall = csCallSite.getCallSite();
+            JMethod callee = edge.getCallee().getMethod();
+            for (Sink sink : config.getSinks(callee)) {
+                int index = sink.index();
+                Var arg = sinkCall.getInvokeExp().getArg(index);
+                taintsOf.apply(csManager.getCSVar(csCallSite.getContext(), arg))
+                        .objects()
+                        .map(CSObj::getObject)
+                        .filter(manager::isTaint)
+                        .forEach(taint -> taintFlows.add(new TaintFlow(
+                                manager.getSourceCall(taint), sinkCall, index)));
+            }
+        });
         return taintFlows;
     }
+
+    /**
+     * @return the taint objects generated by given call site
+     * if the callee is a source, otherwise an empty set.
+     */
+    PointsToSet getSourceTaints(Invoke callSite, JMethod callee) {
+        PointsToSet taints = PointsToSetFactory.make();
+        if (callSite.getLValue() != null) {
+            config.getSources(callee).forEach(source -> taints.addObject(
+                    csManager.getCSObj(emptyContext,
+                            manager.makeTaint(callSite, source.type()))));
+        }
+        return taints;
+    }
+
+    /**
+     * @return the taint objects of given type that are transferred from
+     * the taint objects in pts.
+     */
+    PointsToSet transferTaints(PointsToSet pts, Type type) {
+        PointsToSet taints = PointsToSetFactory.make();
+        pts.objects()
+                .map(CSObj::getObject)
+                .filter(manager::isTaint)
+                .map(taint -> manager.makeTaint(manager.getSourceCall(taint), type))
+                .forEach(taint -> taints.addObject(
+                        csManager.getCSObj(emptyContext, taint)));
+        return taints;
+    }
+
+    List<TaintTransfer> getTransfers(JMethod method) {
+        return config.getTransfers(method);
+    }
+
+    /**
+     * @return the variable at given index of the call site, where the index
+     * follows {@link TaintTransfer}, or null if the variable is absent.
+     */
+    @Nullable
+    static Var getVar(Invoke callSite, int index) {
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        return switch (index) {
+            case TaintTransfer.BASE -> invokeExp instanceof InvokeInstanceExp instanceExp ?
+                    instanceExp.getBase() : null;
+            case TaintTransfer.RESULT -> callSite.getLValue();
+            default -> invokeExp.getArg(index);
+        };
+    }
+
+    /**
+     * Represents that the taint objects flowing to the source of the edge
+     * are transferred to target as taint objects of given type.
+     */
+    record TransferEdge(Pointer target, Type type) {
+    }
 }
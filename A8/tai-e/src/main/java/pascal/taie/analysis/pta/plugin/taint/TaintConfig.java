@@ -35,15 +35,25 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.config.ConfigException;
 import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.StringReps;
 import pascal.taie.language.type.Type;
 import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Configuration for taint analysis.
@@ -67,11 +77,67 @@ class TaintConfig {
      */
     private final Set<TaintTransfer> transfers;
 
-    private TaintConfig(Set<Source> sources, Set<Sink> sinks,
-                        Set<TaintTransfer> transfers) {
+    /**
+     * Sources indexed by source method.
+     */
+    private final Map<JMethod, List<Source>> method2Sources;
+
+    /**
+     * Sinks indexed by sink method.
+     */
+    private final Map<JMethod, List<Sink>> method2Sinks;
+
+    /**
+     * Taint transfers indexed by taint-transfer method.
+     */
+    private final Map<JMethod, List<TaintTransfer>> method2Transfers;
+
+    TaintConfig(Set<Source> sources, Set<Sink> sinks,
+                Set<TaintTransfer> transfers) {
         this.sources = sources;
         this.sinks = sinks;
         this.transfers = transfers;
+        this.method2Sources = index(sources, Source::method);
+        this.method2Sinks = index(sinks, Sink::method);
+        this.method2Transfers = index(transfers, TaintTransfer::method);
+    }
+
+    private static <T> Map<JMethod, List<T>> index(
+            Set<T> rules, Function<T, JMethod> getMethod) {
+        Map<JMethod, List<T>> index = Maps.newMap(rules.size());
+        rules.forEach(rule -> index.computeIfAbsent(
+                getMethod.apply(rule), unused -> new ArrayList<>()).add(rule));
+        index.replaceAll((unused, list) -> List.copyOf(list));
+        return index;
+    }
+
+    /**
+     * Resolves given method signatures in one pass, which looks up each
+     * declaring class only once and scans its methods, instead of parsing
+     * and resolving each signature separately via
+     * {@link ClassHierarchy#getMethod(String)}.
+     *
+     * @return map from signatures to the methods in the class hierarchy.
+     * The signatures of absent methods are not in the map.
+     */
+    static Map<String, JMethod> resolveMethods(
+            ClassHierarchy hierarchy, Collection<String> methodSigs) {
+        Map<String, Set<String>> class2Sigs = Maps.newMap();
+        methodSigs.forEach(methodSig -> class2Sigs.computeIfAbsent(
+                StringReps.getClassNameOf(methodSig),
+                unused -> Sets.newSet()).add(methodSig));
+        Map<String, JMethod> methods = Maps.newMap(methodSigs.size());
+        class2Sigs.forEach((className, sigs) -> {
+            JClass jclass = hierarchy.getClass(className);
+            if (jclass != null) {
+                for (JMethod method : jclass.getDeclaredMethods()) {
+                    if (sigs.contains(method.getSignature())) {
+                        methods.put(method.getSignature(), method);
+                    }
+                }
+            }
+        });
+        return methods;
     }
 
     /**
@@ -98,6 +164,26 @@ class TaintConfig {
         }
     }
 
+    /**
+     * Reads a taint analysis configuration from file. If cacheDir is
+     * given, the configuration is loaded from its compiled form in cacheDir
+     * when possible, see {@link CompiledTaintConfig}.
+     *
+     * @param path       the path to the config file
+     * @param cacheDir   the directory of compiled configs, may be null
+     * @param hierarchy  the class hierarchy
+     * @param typeSystem the type manager
+     * @return the TaintConfig object
+     * @throws ConfigException if failed to load the config file
+     */
+    static TaintConfig readConfig(String path, @Nullable String cacheDir,
+                                  ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        return cacheDir == null ?
+                readConfig(path, hierarchy, typeSystem) :
+                CompiledTaintConfig.readConfig(Path.of(path), Path.of(cacheDir),
+                        hierarchy, typeSystem);
+    }
+
     /**
      * @return sources in the configuration.
      */
@@ -119,6 +205,27 @@ class TaintConfig {
         return transfers;
     }
 
+    /**
+     * @return sources whose source method is given method.
+     */
+    List<Source> getSources(JMethod method) {
+        return method2Sources.getOrDefault(method, List.of());
+    }
+
+    /**
+     * @return sinks whose sink method is given method.
+     */
+    List<Sink> getSinks(JMethod method) {
+        return method2Sinks.getOrDefault(method, List.of());
+    }
+
+    /**
+     * @return taint transfers caused by invocation to given method.
+     */
+    List<TaintTransfer> getTransfers(JMethod method) {
+        return method2Transfers.getOrDefault(method, List.of());
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("TaintConfig:");
@@ -149,6 +256,11 @@ class TaintConfig {
 
         private final TypeSystem typeSystem;
 
+        /**
+         * Methods of the signatures in the config file.
+         */
+        private Map<String, JMethod> methods;
+
         private Deserializer(ClassHierarchy hierarchy, TypeSystem typeSystem) {
             this.hierarchy = hierarchy;
             this.typeSystem = typeSystem;
@@ -159,12 +271,28 @@ class TaintConfig {
                 throws IOException {
             ObjectCodec oc = p.getCodec();
             JsonNode node = oc.readTree(p);
+            methods = resolveMethods(node);
             Set<Source> sources = deserializeSources(node.get("sources"));
             Set<Sink> sinks = deserializeSinks(node.get("sinks"));
             Set<TaintTransfer> transfers = deserializeTransfers(node.get("transfers"));
             return new TaintConfig(sources, sinks, transfers);
         }
 
+        /**
+         * @return map from the signatures in the config file to
+         * the methods in the class hierarchy.
+         */
+        private Map<String, JMethod> resolveMethods(JsonNode node) {
+            List<String> methodSigs = new ArrayList<>();
+            for (String key : List.of("sources", "sinks", "transfers")) {
+                if (node.get(key) instanceof ArrayNode arrayNode) {
+                    arrayNode.forEach(elem ->
+                            methodSigs.add(elem.get("method").asText()));
+                }
+            }
+            return TaintConfig.resolveMethods(hierarchy, methodSigs);
+        }
+
         /**
          * Deserializes a {@link JsonNode} (assume it is an {@link ArrayNode})
          * to a set of {@link Source}.
@@ -177,7 +305,7 @@ class TaintConfig {
                 Set<Source> sources = Sets.newSet(arrayNode.size());
                 for (JsonNode elem : arrayNode) {
                     String methodSig = elem.get("method").asText();
-                    JMethod method = hierarchy.getMethod(methodSig);
+                    JMethod method = methods.get(methodSig);
                     if (method != null) {
                         // if the method (given in config file) is absent in
                         // the class hierarchy, just ignore it.
@@ -207,7 +335,7 @@ class TaintConfig {
                 Set<Sink> sinks = Sets.newSet(arrayNode.size());
                 for (JsonNode elem : arrayNode) {
                     String methodSig = elem.get("method").asText();
-                    JMethod method = hierarchy.getMethod(methodSig);
+                    JMethod method = methods.get(methodSig);
                     if (method != null) {
                         // if the method (given in config file) is absent in
                         // the class hierarchy, just ignore it.
@@ -236,7 +364,7 @@ class TaintConfig {
                 Set<TaintTransfer> transfers = Sets.newSet(arrayNode.size());
                 for (JsonNode elem : arrayNode) {
                     String methodSig = elem.get("method").asText();
-                    JMethod method = hierarchy.getMethod(methodSig);
+                    JMethod method = methods.get(methodSig);
                     if (method != null) {
                         // if the method (given in config file) is absent in
                         // the class hierarchy, just ignore it.
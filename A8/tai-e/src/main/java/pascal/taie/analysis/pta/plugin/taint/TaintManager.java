@@ -51,6 +51,13 @@ class TaintManager {
                 (s, t) -> new MockObj(TAINT_DESC, s, t));
     }
 
+    /**
+     * @return true if any taint object has been made, otherwise false.
+     */
+    boolean hasTaints() {
+        return !taints.isEmpty();
+    }
+
     /**
      * @return true if given obj represents a taint object, otherwise false.
      */
@@ -0,0 +1,155 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Reconstructs witness paths of taint flows on demand, i.e., the chains
+ * of pointers along which taint objects flow from source calls to
+ * sink calls.
+ * <p>
+ * The search walks backward from the sink argument over the pointer flow
+ * graph and the provenance edges recorded by {@link Solver}. The latter
+ * cover the flows that are not PFG edges, e.g., taint transfers and
+ * receiver objects passed to "this" variables. Only the pointers that
+ * carry taint objects of the source call are visited.
+ */
+public class TaintPaths {
+
+    private final Solver solver;
+
+    private final TaintManager manager;
+
+    private final CSManager csManager;
+
+    /**
+     * Predecessors in the pointer flow graph, built on the first query.
+     */
+    private MultiMap<Pointer, Pointer> predecessors;
+
+    TaintPaths(Solver solver, TaintManager manager) {
+        this.solver = solver;
+        this.manager = manager;
+        this.csManager = solver.getCSManager();
+    }
+
+    /**
+     * Searches a shortest witness path of given taint flow.
+     *
+     * @param flow      the taint flow
+     * @param maxLength the maximum number of pointers on the path
+     * @return the pointers on the path, from the result variable of the
+     * source call to the argument of the sink call, or an empty list if
+     * there is no such path of at most maxLength pointers.
+     */
+    public List<Pointer> getWitness(TaintFlow flow, int maxLength) {
+        Invoke sourceCall = flow.sourceCall();
+        Var result = sourceCall.getLValue();
+        Var arg = flow.sinkCall().getInvokeExp().getArg(flow.index());
+        // successor of each visited pointer on the path to the sink
+        Map<Pointer, Pointer> next = Maps.newMap();
+        Set<Pointer> visited = Sets.newSet();
+        List<Pointer> level = new ArrayList<>();
+        for (CSVar csArg : csManager.getCSVarsOf(arg)) {
+            if (carries(csArg, sourceCall)) {
+                visited.add(csArg);
+                level.add(csArg);
+            }
+        }
+        for (int length = 1; length <= maxLength && !level.isEmpty(); ++length) {
+            List<Pointer> nextLevel = new ArrayList<>();
+            for (Pointer pointer : level) {
+                if (pointer instanceof CSVar csVar && csVar.getVar().equals(result)) {
+                    return toPath(pointer, next);
+                }
+                getPredsOf(pointer, sourceCall)
+                        .filter(pred -> carries(pred, sourceCall))
+                        .filter(visited::add)
+                        .forEach(pred -> {
+                            next.put(pred, pointer);
+                            nextLevel.add(pred);
+                        });
+            }
+            level = nextLevel;
+        }
+        return List.of();
+    }
+
+    private static List<Pointer> toPath(Pointer origin, Map<Pointer, Pointer> next) {
+        List<Pointer> path = new ArrayList<>();
+        for (Pointer p = origin; p != null; p = next.get(p)) {
+            path.add(p);
+        }
+        return path;
+    }
+
+    /**
+     * @return true if given pointer points to taint objects of the source call.
+     */
+    private boolean carries(Pointer pointer, Invoke sourceCall) {
+        return getTaints(pointer, sourceCall).findAny().isPresent();
+    }
+
+    private Stream<CSObj> getTaints(Pointer pointer, Invoke sourceCall) {
+        return pointer.getPointsToSet()
+                .objects()
+                .filter(obj -> manager.isTaint(obj.getObject()) &&
+                        manager.getSourceCall(obj.getObject()).equals(sourceCall));
+    }
+
+    private Stream<Pointer> getPredsOf(Pointer pointer, Invoke sourceCall) {
+        if (predecessors == null) {
+            predecessors = Maps.newMultiMap();
+            Stream.<Collection<? extends Pointer>>of(csManager.getCSVars(),
+                            csManager.getStaticFields(),
+                            csManager.getInstanceFields(),
+                            csManager.getArrayIndexes())
+                    .flatMap(Collection::stream)
+                    .forEach(p -> solver.getSuccsOf(p)
+                            .forEach(succ -> predecessors.put(succ, p)));
+        }
+        Stream<Pointer> provenance = getTaints(pointer, sourceCall)
+                .map(taint -> solver.getProvenance(pointer, taint))
+                .filter(Objects::nonNull);
+        return Stream.concat(provenance, predecessors.get(pointer).stream());
+    }
+}
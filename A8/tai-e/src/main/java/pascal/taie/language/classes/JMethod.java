@@ -60,7 +60,7 @@ public class JMethod extends ClassMember {
      */
     private final Object methodSource;
 
-    private IR ir;
+    private volatile IR ir;
 
     public JMethod(JClass declaringClass, String name, Set<Modifier> modifiers,
                    List<Type> paramTypes, Type returnType, List<ClassType> exceptions,
@@ -149,15 +149,24 @@ public class JMethod extends ClassMember {
     }
 
     public IR getIR() {
+        IR ir = this.ir;
         if (ir == null) {
-            if (isAbstract()) {
-                throw new AnalysisException("Abstract method " + this +
-                        " has no method body");
-            }
-            if (isNative()) {
-                ir = World.get().getNativeModel().buildNativeIR(this);
-            } else {
-                ir = World.get().getIRBuilder().buildIR(this);
+            // IR builders are not thread-safe, so the analyses that run
+            // in parallel build IRs one at a time
+            synchronized (JMethod.class) {
+                ir = this.ir;
+                if (ir == null) {
+                    if (isAbstract()) {
+                        throw new AnalysisException("Abstract method " + this +
+                                " has no method body");
+                    }
+                    if (isNative()) {
+                        ir = World.get().getNativeModel().buildNativeIR(this);
+                    } else {
+                        ir = World.get().getIRBuilder().buildIR(this);
+                    }
+                    this.ir = ir;
+                }
             }
         }
         return ir;
@@ -24,6 +24,15 @@ package pascal.taie.analysis.pta;
 
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
+import pascal.taie.config.ConfigException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
 
 public class TaintTest {
 
@@ -70,4 +79,92 @@ public class TaintTest {
         Tests.testCSPTA(DIR, "TaintInList",
                 "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
     }
+
+    @Test
+    public void testSparseSimpleTaint() {
+        Tests.testCSPTA(DIR, "SimpleTaint",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml",
+                "taint-mode:sparse");
+    }
+
+    @Test
+    public void testSparseArgToResult() {
+        Tests.testCSPTA(DIR, "ArgToResult",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml",
+                "taint-mode:sparse");
+    }
+
+    @Test
+    public void testSparseBaseToResult() {
+        Tests.testCSPTA(DIR, "BaseToResult",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml",
+                "taint-mode:sparse");
+    }
+
+    @Test
+    public void testSparseStringAppend() {
+        Tests.testCSPTA(DIR, "StringAppend",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml",
+                "taint-mode:sparse");
+    }
+
+    @Test
+    public void testSparseOneCallTaint() {
+        Tests.testCSPTA(DIR, "OneCallTaint",
+                "cs:1-call;taint-config:src/test/resources/pta/taint/taint-config.yml",
+                "taint-mode:sparse");
+    }
+
+    @Test
+    public void testSparseInterTaintTransfer() {
+        Tests.testCSPTA(DIR, "InterTaintTransfer",
+                "cs:2-call;taint-config:src/test/resources/pta/taint/taint-config.yml",
+                "taint-mode:sparse");
+    }
+
+    @Test
+    public void testSparseTaintInList() {
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml",
+                "taint-mode:sparse");
+    }
+
+    @Test
+    public void testCompiledTaintConfig() throws IOException {
+        Path cacheDir = Files.createTempDirectory("taint-config-cache");
+        // the first run compiles the config
+        Tests.testCSPTA(DIR, "SimpleTaint",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml",
+                "taint-config-cache:" + cacheDir);
+        Path compiled;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            compiled = files.findFirst().orElseThrow();
+        }
+        FileTime time = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(compiled, time);
+        // the second run loads the compiled config, and a recompiled
+        // config would replace the file and change its modified time
+        Tests.testCSPTA(DIR, "SimpleTaint",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml",
+                "taint-config-cache:" + cacheDir);
+        assertEquals(time, Files.getLastModifiedTime(compiled));
+    }
+
+    @Test
+    public void testEntryGroups() {
+        Tests.testCSPTA(DIR, "StringAppend",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml",
+                "entry-methods:src/test/resources/pta/taint/StringAppend-entries.txt",
+                "entry-groups:3");
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testDumpEntryGroups() {
+        // points-to sets of multiple groups cannot be dumped
+        Tests.testCSPTA(DIR, "StringAppend",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml",
+                "entry-methods:src/test/resources/pta/taint/StringAppend-entries.txt",
+                "entry-groups:3",
+                "action:dump;file:output/StringAppend-groups.txt");
+    }
 }
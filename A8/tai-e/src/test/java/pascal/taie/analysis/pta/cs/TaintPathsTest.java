@@ -0,0 +1,78 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.selector._2CallSelector;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
+import pascal.taie.analysis.pta.plugin.taint.TaintPaths;
+import pascal.taie.config.AnalysisOptions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TaintPathsTest {
+
+    @Test
+    public void testInterTaintTransfer() {
+        Main.buildWorld("-pp", "-cp", "src/test/resources/pta/taint",
+                "-m", "InterTaintTransfer");
+        AnalysisOptions options = new AnalysisOptions(Map.of(
+                "cs", "2-call",
+                "merge-string-constants", false,
+                "merge-string-objects", false,
+                "merge-string-builders", false,
+                "merge-exception-objects", true,
+                "taint-config", "src/test/resources/pta/taint/taint-config.yml"));
+        Solver solver = new Solver(options,
+                new AllocationSiteBasedModel(options), new _2CallSelector());
+        solver.solve();
+        PointerAnalysisResult result = solver.getResult();
+        Set<TaintFlow> taintFlows = result.getResult(TaintAnalysiss.class.getName());
+        TaintPaths taintPaths = result.getResult(TaintPaths.class.getName());
+        assertEquals(3, taintFlows.size());
+        for (TaintFlow flow : taintFlows) {
+            List<Pointer> path = taintPaths.getWitness(flow, 100);
+            assertFalse(path.isEmpty());
+            assertEquals(flow.sourceCall().getLValue(),
+                    ((CSVar) path.get(0)).getVar());
+            assertEquals(flow.sinkCall().getInvokeExp().getArg(flow.index()),
+                    ((CSVar) path.get(path.size() - 1)).getVar());
+            // the taint flows through method transfer(), so it cannot be
+            // witnessed by a path of the source and sink variables alone
+            assertTrue(taintPaths.getWitness(flow, 2).isEmpty());
+        }
+    }
+}
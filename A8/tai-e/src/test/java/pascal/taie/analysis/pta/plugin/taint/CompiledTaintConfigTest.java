@@ -0,0 +1,83 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.type.TypeSystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CompiledTaintConfigTest {
+
+    private static final Path CONFIG = Path.of(
+            "src/test/resources/pta/taint/taint-config.yml");
+
+    @Test
+    public void testLoadCompiled() throws IOException {
+        Main.buildWorld("-pp", "-cp", "src/test/resources/pta/taint",
+                "-m", "SimpleTaint");
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        TypeSystem typeSystem = World.get().getTypeSystem();
+        Path cacheDir = Files.createTempDirectory("taint-config-cache");
+        assertNull(CompiledTaintConfig.loadCompiled(
+                CONFIG, cacheDir, hierarchy, typeSystem));
+
+        TaintConfig parsed = CompiledTaintConfig.readConfig(
+                CONFIG, cacheDir, hierarchy, typeSystem);
+        TaintConfig loaded = CompiledTaintConfig.loadCompiled(
+                CONFIG, cacheDir, hierarchy, typeSystem);
+        assertNotNull(loaded);
+        assertEquals(parsed.getSources(), loaded.getSources());
+        assertEquals(parsed.getSinks(), loaded.getSinks());
+        assertEquals(parsed.getTransfers(), loaded.getTransfers());
+
+        // corrupt the number of strings, which follows the 16-byte header
+        List<Path> compiled;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            compiled = files.toList();
+        }
+        assertEquals(1, compiled.size());
+        try (FileChannel channel = FileChannel.open(compiled.get(0),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES)
+                    .putInt(0, Integer.MAX_VALUE), 16);
+        }
+        assertNull(CompiledTaintConfig.loadCompiled(
+                CONFIG, cacheDir, hierarchy, typeSystem));
+    }
+}